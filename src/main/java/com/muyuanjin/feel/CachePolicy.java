@@ -0,0 +1,42 @@
+package com.muyuanjin.feel;
+
+import jakarta.annotation.Nullable;
+import lombok.Builder;
+
+import java.time.Duration;
+
+/**
+ * 编译结果缓存的策略，见 {@link Feel#cachePolicy(CachePolicy)}
+ * <p>
+ * 没有设置任何上限时与之前的行为一致：生成的类按弱引用缓存，由 GC 决定何时回收。
+ * 设置了上限时改为强引用，淘汰由缓存自身决定，每个条目使用独立的类加载器，淘汰且没有实例存活后即可卸载
+ *
+ * @param maximumSize       最多缓存的类数量，与 maximumWeight 互斥
+ * @param maximumWeight     按字节码大小（字节）计算的最大总权重，与 maximumSize 互斥
+ * @param expireAfterAccess 最后一次访问之后多久淘汰
+ */
+@Builder
+public record CachePolicy(@Nullable Long maximumSize,
+                          @Nullable Long maximumWeight,
+                          @Nullable Duration expireAfterAccess) {
+    public static final CachePolicy UNBOUNDED = new CachePolicy(null, null, null);
+
+    public CachePolicy {
+        if (maximumSize != null && maximumWeight != null) {
+            throw new IllegalArgumentException("maximumSize and maximumWeight cannot be set at the same time");
+        }
+        if (maximumSize != null && maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+        }
+        if (maximumWeight != null && maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative: " + maximumWeight);
+        }
+        if (expireAfterAccess != null && expireAfterAccess.isNegative()) {
+            throw new IllegalArgumentException("expireAfterAccess must not be negative: " + expireAfterAccess);
+        }
+    }
+
+    public boolean bounded() {
+        return maximumSize != null || maximumWeight != null || expireAfterAccess != null;
+    }
+}
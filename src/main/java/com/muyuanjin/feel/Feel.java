@@ -2,19 +2,39 @@ package com.muyuanjin.feel;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.javaparser.ast.ArrayCreationLevel;
 import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.ArrayCreationExpr;
+import com.github.javaparser.ast.expr.ArrayInitializerExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
 import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.NullLiteralExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
 import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.ThrowStmt;
+import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.PrimitiveType;
-import com.muyuanjin.common.util.DigestUtil;
+import com.github.javaparser.ast.type.WildcardType;
 import com.muyuanjin.common.util.LazyLog;
+import com.muyuanjin.common.util.MapUtil;
+import com.muyuanjin.common.util.TypeUtil;
 import com.muyuanjin.compiler.CompilationResult;
 import com.muyuanjin.compiler.JavaCompiler;
 import com.muyuanjin.compiler.util.JUnsafe;
@@ -22,16 +42,30 @@ import com.muyuanjin.compiler.util.Throws;
 import com.muyuanjin.feel.dmn.DecisionTable;
 import com.muyuanjin.feel.dmn.DecisionTableDefinition;
 import com.muyuanjin.feel.dmn.EvalResult;
+import com.muyuanjin.feel.exception.FeelLangException;
 import com.muyuanjin.feel.lang.FType;
 import com.muyuanjin.feel.lang.ast.ASTNode;
+import com.muyuanjin.feel.lang.type.FBoolean;
+import com.muyuanjin.feel.lang.type.FNumber;
 import com.muyuanjin.feel.translate.*;
 import com.muyuanjin.feel.util.FeelUtil;
 import de.fxlae.typeid.TypeId;
+import jakarta.annotation.Nullable;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
 import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * @author muyuanjin
@@ -40,6 +74,118 @@ import java.util.Map;
 public class Feel {
     public interface Expression<I> {
         EvalResult eval(I input);
+
+        /**
+         * 批量求值，结果直接写入 results[from, to)，不会为每一行创建 EvalResult
+         */
+        default void evalBatch(I[] inputs, Object[] results, int from, int to) {
+            for (int i = from; i < to; i++) {
+                results[i] = eval(inputs[i]).value();
+            }
+        }
+
+        default void evalBatch(I[] inputs, Object[] results) {
+            evalBatch(inputs, results, 0, inputs.length);
+        }
+
+        default void evalBatch(List<? extends I> inputs, Object[] results) {
+            for (int i = 0, size = inputs.size(); i < size; i++) {
+                results[i] = eval(inputs.get(i)).value();
+            }
+        }
+
+        default List<Object> evalBatch(List<? extends I> inputs) {
+            Object[] results = new Object[inputs.size()];
+            evalBatch(inputs, results);
+            return Arrays.asList(results);
+        }
+    }
+
+    /**
+     * 静态类型为 int 的表达式，evalInt 直接返回 doEval 的原始类型结果，不装箱也不创建 EvalResult
+     * <p>
+     * 结果为 FEEL 的 null（例如输入中缺少变量）时 evalInt 和 evalBatch 抛出 IllegalStateException，
+     * 可能为 null 的表达式请使用 {@link #eval}
+     */
+    public interface IntExpression<I> extends Expression<I> {
+        int evalInt(I input);
+
+        default void evalBatch(I[] inputs, int[] results) {
+            for (int i = 0; i < inputs.length; i++) {
+                results[i] = evalInt(inputs[i]);
+            }
+        }
+    }
+
+    /**
+     * 静态类型为 long 的表达式，evalLong 直接返回 doEval 的原始类型结果，不装箱也不创建 EvalResult
+     * <p>
+     * 结果为 FEEL 的 null 时 evalLong 和 evalBatch 抛出 IllegalStateException，可能为 null 的表达式请使用 {@link #eval}
+     */
+    public interface LongExpression<I> extends Expression<I> {
+        long evalLong(I input);
+
+        default void evalBatch(I[] inputs, long[] results) {
+            for (int i = 0; i < inputs.length; i++) {
+                results[i] = evalLong(inputs[i]);
+            }
+        }
+    }
+
+    /**
+     * 静态类型为 double 的表达式，evalDouble 直接返回 doEval 的原始类型结果，不装箱也不创建 EvalResult
+     * <p>
+     * 结果为 FEEL 的 null 时 evalDouble 和 evalBatch 抛出 IllegalStateException，可能为 null 的表达式请使用 {@link #eval}
+     */
+    public interface DoubleExpression<I> extends Expression<I> {
+        double evalDouble(I input);
+
+        default void evalBatch(I[] inputs, double[] results) {
+            for (int i = 0; i < inputs.length; i++) {
+                results[i] = evalDouble(inputs[i]);
+            }
+        }
+    }
+
+    /**
+     * 静态类型为 boolean 的表达式，evalBoolean 直接返回 doEval 的原始类型结果，不装箱也不创建 EvalResult
+     * <p>
+     * 结果为 FEEL 的 null 时 evalBoolean 和 evalBatch 抛出 IllegalStateException，可能为 null 的表达式请使用 {@link #eval}
+     */
+    public interface BooleanExpression<I> extends Expression<I> {
+        boolean evalBoolean(I input);
+
+        default void evalBatch(I[] inputs, boolean[] results) {
+            for (int i = 0; i < inputs.length; i++) {
+                results[i] = evalBoolean(inputs[i]);
+            }
+        }
+    }
+
+    /**
+     * 按槽位布局读取 Map 输入的表达式：变量在编译期按 {@link #slotNames()} 分配固定下标，求值时按下标读取，不再逐个查找 Map
+     */
+    public interface SlotExpression<I> extends Expression<I> {
+        /**
+         * 槽位布局，slots[i] 对应变量 slotNames().get(i)
+         */
+        List<String> slotNames();
+
+        /**
+         * 直接使用调用方按布局填好的槽位求值，slots 的长度不能小于布局的长度
+         */
+        EvalResult evalSlots(Object[] slots);
+
+        /**
+         * 从 Map 中按布局填充槽位，可以复用同一个数组
+         */
+        default Object[] toSlots(Map<String, ?> input, Object[] slots) {
+            List<String> names = slotNames();
+            for (int i = 0, size = names.size(); i < size; i++) {
+                slots[i] = input.get(names.get(i));
+            }
+            return slots;
+        }
     }
 
     public interface UnaryTest<T, I> {
@@ -66,6 +212,45 @@ public class Feel {
         return cachedCompile(expression, inputType);
     }
 
+    /**
+     * 编译为按槽位读取变量的表达式，槽位布局由 input 中的成员决定
+     */
+    public static SlotExpression<Map<String, Object>> compileSlots(String expression, Map<String, ?> input) {
+        return cachedCompileSlots(expression, input);
+    }
+
+    /**
+     * @param inputType Map 类型，例如 {@code Map<String, Integer>}
+     */
+    public static <T> SlotExpression<T> compileSlots(String expression, Type inputType) {
+        return cachedCompileSlots(expression, inputType);
+    }
+
+    /**
+     * 先解释执行，调用次数达到 {@link #tierThreshold(int)} 后在后台编译，编译完成后切换到编译后的实现，
+     * 适合临时过滤、预览这类只执行一两次的表达式，省去首次调用时的代码生成和 javac
+     * <p>
+     * 已经编译过或者包含解释器不支持的语法（见 {@link ASTInterpreter#supports}）时直接返回编译后的实现
+     */
+    public static Expression<Map<String, Object>> interpret(String expression) {
+        return tiered(expression, Map.of());
+    }
+
+    public static <T> Expression<T> interpret(String expression, Class<T> inputType) {
+        return tiered(expression, inputType);
+    }
+
+    public static <T> Expression<T> interpret(String expression, Type inputType) {
+        return tiered(expression, inputType);
+    }
+
+    public static void tierThreshold(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("tier threshold must be positive: " + threshold);
+        }
+        Feel.tierThreshold = threshold;
+    }
+
     public static <T> UnaryTest<T, Map<String, Object>> compileUT(String expression, FType inputFeelType) {
         return cachedCompileUT(expression, inputFeelType, Map.of());
     }
@@ -118,51 +303,313 @@ public class Feel {
         return cachedCompileDMN(definition, inputType);
     }
 
+    /**
+     * 与 {@link #compileDMN(DecisionTableDefinition, Object)} 相同，生成的类使用指定的包名和类名前缀
+     */
+    public static <T> DecisionTable<T> compileDMN(DecisionTableDefinition definition, T input, String packageName, String classNamePrefix) {
+        return cachedCompileDMN(definition, input, packageName, classNamePrefix);
+    }
+
+    /**
+     * 与 {@link #compileDMN(DecisionTableDefinition, Type)} 相同，生成的类使用指定的包名和类名前缀
+     */
+    public static <T> DecisionTable<T> compileDMN(DecisionTableDefinition definition, Type inputType, String packageName, String classNamePrefix) {
+        return cachedCompileDMN(definition, inputType, packageName, classNamePrefix);
+    }
+
+    /**
+     * 批量编译多个表达式，返回结果与 expressions 一一对应
+     */
+    public static List<Expression<Map<String, Object>>> compileAll(List<String> expressions) {
+        return cachedCompileAll("expr", expressions, Map.of(), (i, inputFType) -> generateExpr(expressions.get(i), inputFType));
+    }
+
+    public static <T> List<Expression<T>> compileAll(List<String> expressions, Type inputType) {
+        return cachedCompileAll("expr", expressions, inputType, (i, inputFType) -> generateExpr(expressions.get(i), inputFType));
+    }
+
+    public static List<DecisionTable<Map<String, Object>>> compileAllDMN(List<DecisionTableDefinition> definitions) {
+        return cachedCompileAllDMN(definitions, Map.of());
+    }
+
+    public static <T> List<DecisionTable<T>> compileAllDMN(List<DecisionTableDefinition> definitions, Type inputType) {
+        return cachedCompileAllDMN(definitions, inputType);
+    }
+
+    /**
+     * 与 {@link #compileAllDMN(List, Type)} 相同，生成的类使用指定的包名和类名前缀
+     */
+    public static <T> List<DecisionTable<T>> compileAllDMN(List<DecisionTableDefinition> definitions, Type inputType, String packageName, String classNamePrefix) {
+        return cachedCompileAllDMN(definitions, inputType, packageName, classNamePrefix);
+    }
+
+    private static <T> List<DecisionTable<T>> cachedCompileAllDMN(List<DecisionTableDefinition> definitions, Object rootInputObjOrInputJavaType) {
+        return cachedCompileAllDMN(definitions, rootInputObjOrInputJavaType, PACKAGE_NAME, DMN_CLASS_PREFIX);
+    }
+
+    private static <T> List<DecisionTable<T>> cachedCompileAllDMN(List<DecisionTableDefinition> definitions, Object rootInputObjOrInputJavaType,
+                                                                  String packageName, String classNamePrefix) {
+        String prefix = dmnKeyPrefix(packageName, classNamePrefix);
+        List<String> strings = new ArrayList<>(definitions.size());
+        for (DecisionTableDefinition definition : definitions) {
+            strings.add(definition == null ? null : prefix + definition);
+        }
+        return cachedCompileAll("dmn", strings, rootInputObjOrInputJavaType,
+                (i, inputFType) -> generateDMN(definitions.get(i), inputFType, packageName, classNamePrefix));
+    }
+
+    /**
+     * 自定义了类名的结果不与默认类名的共用缓存
+     */
+    private static String dmnKeyPrefix(String packageName, String classNamePrefix) {
+        return PACKAGE_NAME.equals(packageName) && DMN_CLASS_PREFIX.equals(classNamePrefix) ? "" : packageName + "." + classNamePrefix + "\u0000";
+    }
+
     @SneakyThrows
     @SuppressWarnings("unchecked")
     private static <T> Expression<T> cachedCompile(String expression, Object inputObjOrInputJavaType) {
-        if (expression == null || expression.isBlank()) {
+        if (expression == null) {
+            return null;
+        }
+        boolean hot = HotCache.accepts(inputObjOrInputJavaType);
+        Object instance = hot ? EXPR_HOT.get(expression, null, inputObjOrInputJavaType) : null;
+        if (instance != null) {
+            return (Expression<T>) instance;
+        }
+        if (expression.isBlank()) {
             return null;
         }
-        CacheKey cacheKey = new CacheKey(expression.length() > 64 ? DigestUtil.sha256Hex(expression) : expression, inputObjOrInputJavaType);
-        return (Expression<T>) JUnsafe.UNSAFE.allocateInstance(CACHE.get(cacheKey, key -> doCompile(expression, key.inputFType)));
+        CacheKey cacheKey = new CacheKey(SOURCE_KEYS.intern(expression), inputObjOrInputJavaType);
+        instance = instance(compiledCache.get(cacheKey, key -> cacheValue(compileOrLoad(key, "expr", expression, diskKey -> compileClass(generateExpr(expression, key.inputFType), diskKey)))));
+        if (hot) {
+            EXPR_HOT.put(expression, null, inputObjOrInputJavaType, instance);
+        }
+        return (Expression<T>) instance;
     }
 
     @SneakyThrows
     @SuppressWarnings("unchecked")
-    private static <T, I> UnaryTest<T, I> cachedCompileUT(String expression, Object testInputObjOrInputJavaType, Object rootInputObjOrInputJavaType) {
-        if (expression == null || expression.isBlank()) {
+    private static <T> SlotExpression<T> cachedCompileSlots(String expression, Object inputObjOrInputJavaType) {
+        if (expression == null) {
+            return null;
+        }
+        boolean hot = HotCache.accepts(inputObjOrInputJavaType);
+        Object instance = hot ? SLOTS_HOT.get(expression, null, inputObjOrInputJavaType) : null;
+        if (instance != null) {
+            return (SlotExpression<T>) instance;
+        }
+        if (expression.isBlank()) {
             return null;
         }
-        CacheKey cacheKey = new CacheKey(expression.length() > 64 ? DigestUtil.sha256Hex(expression) : expression, testInputObjOrInputJavaType, rootInputObjOrInputJavaType);
-        return (UnaryTest<T, I>) JUnsafe.UNSAFE.allocateInstance(CACHE.get(cacheKey, key -> doCompileUT(expression, key.testInputFType, key.inputFType)));
+        CacheKey cacheKey = new CacheKey(SLOT_SOURCE_KEYS.intern(expression), inputObjOrInputJavaType);
+        instance = instance(compiledCache.get(cacheKey, key -> cacheValue(compileOrLoad(key, "slots", expression, diskKey -> compileClass(generateExpr(expression, key.inputFType, true), diskKey)))));
+        if (hot) {
+            SLOTS_HOT.put(expression, null, inputObjOrInputJavaType, instance);
+        }
+        return (SlotExpression<T>) instance;
     }
 
     @SneakyThrows
     @SuppressWarnings("unchecked")
+    private static <T, I> UnaryTest<T, I> cachedCompileUT(String expression, Object testInputObjOrInputJavaType, Object rootInputObjOrInputJavaType) {
+        if (expression == null) {
+            return null;
+        }
+        boolean hot = HotCache.accepts(testInputObjOrInputJavaType) && HotCache.accepts(rootInputObjOrInputJavaType);
+        Object instance = hot ? UT_HOT.get(expression, testInputObjOrInputJavaType, rootInputObjOrInputJavaType) : null;
+        if (instance != null) {
+            return (UnaryTest<T, I>) instance;
+        }
+        if (expression.isBlank()) {
+            return null;
+        }
+        CacheKey cacheKey = new CacheKey(SOURCE_KEYS.intern(expression), testInputObjOrInputJavaType, rootInputObjOrInputJavaType);
+        instance = instance(compiledCache.get(cacheKey, key -> cacheValue(compileOrLoad(key, "ut", expression, diskKey -> compileClass(generateUT(expression, key.testInputFType, key.inputFType), diskKey)))));
+        if (hot) {
+            UT_HOT.put(expression, testInputObjOrInputJavaType, rootInputObjOrInputJavaType, instance);
+        }
+        return (UnaryTest<T, I>) instance;
+    }
+
     private static <T> DecisionTable<T> cachedCompileDMN(DecisionTableDefinition definition, Object rootInputObjOrInputJavaType) {
+        return cachedCompileDMN(definition, rootInputObjOrInputJavaType, PACKAGE_NAME, DMN_CLASS_PREFIX);
+    }
+
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    private static <T> DecisionTable<T> cachedCompileDMN(DecisionTableDefinition definition, Object rootInputObjOrInputJavaType,
+                                                         String packageName, String classNamePrefix) {
         if (definition == null) {
             return null;
         }
-        String string = definition.toString();
-        CacheKey cacheKey = new CacheKey(string.length() > 64 ? DigestUtil.sha256Hex(string) : string, rootInputObjOrInputJavaType);
-        return (DecisionTable<T>) JUnsafe.UNSAFE.allocateInstance(CACHE.get(cacheKey, key -> doCompilerDMN(definition, key.inputFType)));
+        String prefix = dmnKeyPrefix(packageName, classNamePrefix);
+        // 定义对象按引用匹配，命中时不需要 toString；自定义了类名的结果只走普通缓存
+        boolean hot = prefix.isEmpty() && HotCache.accepts(rootInputObjOrInputJavaType);
+        Object instance = hot ? DMN_HOT.get(definition, null, rootInputObjOrInputJavaType) : null;
+        if (instance != null) {
+            return (DecisionTable<T>) instance;
+        }
+        String string = prefix + definition;
+        CacheKey cacheKey = new CacheKey(SOURCE_KEYS.intern(string), rootInputObjOrInputJavaType);
+        instance = instance(compiledCache.get(cacheKey, key -> cacheValue(compileOrLoad(key, "dmn", string,
+                diskKey -> compileClass(generateDMN(definition, key.inputFType, packageName, classNamePrefix), diskKey)))));
+        if (hot) {
+            DMN_HOT.put(definition, null, rootInputObjOrInputJavaType, instance);
+        }
+        return (DecisionTable<T>) instance;
+    }
+
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    private static <T> Expression<T> tiered(String expression, Object inputObjOrInputJavaType) {
+        if (expression == null || expression.isBlank()) {
+            return null;
+        }
+        CacheKey cacheKey = new CacheKey(SOURCE_KEYS.intern(expression), inputObjOrInputJavaType);
+        Object compiled = compiledCache.getIfPresent(cacheKey);
+        if (compiled != null) {
+            return (Expression<T>) instance(compiled);
+        }
+        // 同一个表达式共用一个实例，调用次数合并计算，也不必每次重新解析；不支持解释执行的不放入缓存
+        Object tiered = TIERED.get(cacheKey, key -> {
+            CompilerTask task = new CompilerTask().expression(expression).rootInput(inputObjOrInputJavaType);
+            ASTNode astNode = FeelUtil.parseExpr2AST(expression, task.inputTypes());
+            return ASTInterpreter.supports(astNode) ? new TieredExpression<>(expression, inputObjOrInputJavaType, astNode) : null;
+        });
+        return tiered != null ? (Expression<T>) tiered : cachedCompile(expression, inputObjOrInputJavaType);
+    }
+
+    /**
+     * 替换编译结果缓存的策略，已缓存的类和统计数据会被丢弃（已经返回的表达式实例不受影响）
+     */
+    public static void cachePolicy(CachePolicy policy) {
+        Objects.requireNonNull(policy, "policy");
+        compiledCache = newCache(policy);
+        isolatedLoader = policy.bounded();
+        TIERED.invalidateAll();
+        EXPR_HOT.clear();
+        SLOTS_HOT.clear();
+        UT_HOT.clear();
+        DMN_HOT.clear();
     }
 
-    private static Class<?> doCompile(String expression, Object inputObjOrInputJavaType) {
+    /**
+     * 编译结果缓存的命中、未命中、淘汰次数和加载（编译）耗时
+     */
+    public static CacheStats cacheStats() {
+        return compiledCache.stats();
+    }
+
+    private static Cache<CacheKey, Object> newCache(CachePolicy policy) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (!policy.bounded()) {
+            return builder.weakValues().build();
+        }
+        if (policy.maximumSize() != null) {
+            builder.maximumSize(policy.maximumSize());
+        }
+        if (policy.expireAfterAccess() != null) {
+            builder.expireAfterAccess(policy.expireAfterAccess());
+        }
+        if (policy.maximumWeight() != null) {
+            return builder.maximumWeight(policy.maximumWeight()).weigher(Feel::weigh).build();
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按字节码大小计算权重，无法得知字节码大小的类（janino、javac 回退）按 {@link #ESTIMATED_CLASS_SIZE} 计算
+     */
+    private static int weigh(CacheKey key, Object value) {
+        int size = MemoryJavac.bytecodeSize(value instanceof Class<?> type ? type : value.getClass());
+        return size >= 0 ? size : ESTIMATED_CLASS_SIZE;
+    }
+
+    /**
+     * 开启编译结果的磁盘缓存，生成类的字节码保存在 directory 下，JVM 重启后直接加载而不再调用 javac
+     */
+    public static void enableDiskCache(Path directory) {
+        diskCache = new ClassFileCache(directory);
+    }
+
+    public static void disableDiskCache() {
+        diskCache = null;
+    }
+
+    /**
+     * 设置之后编译使用的后端，已经编译过的表达式不受影响
+     */
+    public static void backend(CompilerTask.Backend backend) {
+        Feel.backend = Objects.requireNonNull(backend, "backend");
+    }
+
+    private static void applyBackend(CompilerTask task) {
+        CompilerTask.Backend current = backend;
+        task.backend(current);
+        if (current == CompilerTask.Backend.JANINO) {
+            // janino 不支持 lambda，泛型也只按原始类型处理
+            task.noLambda(true).castGenerics(true);
+        }
+    }
+
+    /**
+     * 生成的类没有实例状态，每个类只创建一个实例放入缓存
+     */
+    @SneakyThrows
+    private static Object instantiate(Class<?> type) {
+        return JUnsafe.UNSAFE.allocateInstance(type);
+    }
+
+    /**
+     * 没有上限时缓存弱引用的类本身，实例由 {@link #SINGLETONS} 挂在类上，只要类没有被卸载就一直复用同一个实例；
+     * 有上限时缓存实例，由缓存的淘汰决定类的生命周期
+     */
+    private static Object cacheValue(Class<?> type) {
+        return isolatedLoader ? instantiate(type) : type;
+    }
+
+    private static Object instance(Object cacheValue) {
+        return cacheValue instanceof Class<?> type ? SINGLETONS.get(type) : cacheValue;
+    }
+
+    private static Class<?> compileOrLoad(CacheKey key, String kind, String source, Function<String, Class<?>> compiler) {
+        ClassFileCache cache = diskCache;
+        if (cache == null) {
+            return compiler.apply(null);
+        }
+        String diskKey = key.diskKey(kind, source);
+        Class<?> loaded = cache.load(diskKey);
+        return loaded != null ? loaded : compiler.apply(diskKey);
+    }
+
+    private static Unit generateExpr(String expression, Object inputObjOrInputJavaType) {
+        return generateExpr(expression, inputObjOrInputJavaType, false);
+    }
+
+    private static Unit generateExpr(String expression, Object inputObjOrInputJavaType, boolean slots) {
         CompilerTask task = new CompilerTask()
                 .packageName(PACKAGE_NAME)
                 .className("Feel" + "$" + TypeId.generate())
-                .methodName("doEval")
+                .methodName(slots ? "doEvalSlots" : "doEval")
                 .expression(expression)
                 .rootInput(inputObjOrInputJavaType);
+        if (slots) {
+            task.slotInput();
+        }
+        applyBackend(task);
         ASTNode astNode = FeelUtil.parseExpr2AST(expression, task.inputTypes());
         Context context = task.context();
-        ASTCompilerVisitor.instance(context).visit(astNode);
+        JavaExpr result = ASTCompilerVisitor.instance(context).visit(astNode);
         ClassManager manager = ClassManager.instance(context);
         var classDeclaration = manager.getClassDeclaration();
-        classDeclaration.addImplementedType(manager.getClassType(Expression.class)
+        PrimitiveEval primitiveEval = PrimitiveEval.of(astNode.getType(), result.javaType());
+        classDeclaration.addImplementedType(manager.getClassType(primitiveEval == null ? Expression.class : primitiveEval.expressionType)
                 .setTypeArguments(manager.getClassType(task.rootInputJavaType())));
+        if (slots) {
+            addSlotMethods(task, manager, classDeclaration, result);
+            // 其余的 eval 方法都通过桥接的 doEval 调用
+            task.methodName("doEval");
+        }
         var eval = new MethodDeclaration(NodeList.nodeList(Modifier.publicModifier()), manager.getClassType(EvalResult.class), "eval");
         NameExpr param = new NameExpr(task.rootInputParam());
         eval.addParameter(new Parameter(manager.getClassType(task.rootInputJavaType()), param.getName()));
@@ -171,10 +618,139 @@ public class Feel {
         eval.setBody(evalBody);
         evalBody.addStatement(new ReturnStmt(manager.getStaticMethod(EvalResult.class, "of")
                 .addArgument(new MethodCallExpr(null, task.methodName()).addArgument(param))));
-        return getClass(task, manager, classDeclaration, eval);
+        addEvalBatch(task, manager, classDeclaration);
+        if (primitiveEval != null) {
+            var primitive = new MethodDeclaration(NodeList.nodeList(Modifier.publicModifier()), manager.getType(primitiveEval.javaType), primitiveEval.methodName);
+            primitive.addParameter(new Parameter(manager.getClassType(task.rootInputJavaType()), param.getName()));
+            primitive.addAnnotation(new MarkerAnnotationExpr("Override"));
+            MethodCallExpr doEval = new MethodCallExpr(null, task.methodName()).addArgument(param);
+            if (result.javaType() == primitiveEval.javaType) {
+                primitive.setBody(new BlockStmt().addStatement(new ReturnStmt(doEval)));
+            } else {
+                // doEval 返回包装类型时结果可能是 FEEL 的 null，拆箱前显式检查
+                NameExpr value = new NameExpr("result");
+                primitive.setBody(new BlockStmt()
+                        .addStatement(new VariableDeclarationExpr(new VariableDeclarator(manager.getType(result.javaType()), value.getName(), doEval)))
+                        .addStatement(new IfStmt(new BinaryExpr(value, new NullLiteralExpr(), BinaryExpr.Operator.EQUALS),
+                                new BlockStmt().addStatement(new ThrowStmt(new ObjectCreationExpr(null, manager.getClassType(IllegalStateException.class),
+                                        NodeList.nodeList(CodeGens.stringLiteral("result of " + primitiveEval.methodName + " is null, use eval instead")))))),
+                                null))
+                        .addStatement(new ReturnStmt(value)));
+            }
+            classDeclaration.getMembers().add(0, primitive);
+        }
+        return generate(task, manager, classDeclaration, eval);
+    }
+
+    /**
+     * 生成 evalBatch 的循环实现，循环体内直接调用静态的 doEval，不经过 eval 也不创建 EvalResult
+     * <pre>{@code
+     *  public void evalBatch(T[] inputs, Object[] results, int from, int to) {
+     *      for (int i = from; i < to; i++) {
+     *          results[i] = doEval(inputs[i]);
+     *      }
+     *  }
+     *  public void evalBatch(List<? extends T> inputs, Object[] results) {
+     *      for (int i = 0, size = inputs.size(); i < size; i++) {
+     *          results[i] = doEval(inputs.get(i));
+     *      }
+     *  }
+     * }</pre>
+     */
+    private static void addEvalBatch(CompilerTask task, ClassManager manager, ClassOrInterfaceDeclaration classDeclaration) {
+        NameExpr inputs = new NameExpr("inputs");
+        NameExpr results = new NameExpr("results");
+        NameExpr index = new NameExpr("i");
+        ArrayType resultsType = manager.getArrayType(Object[].class);
+        ClassOrInterfaceType inputType = manager.getClassType(task.rootInputJavaType());
+
+        var arrayBatch = new MethodDeclaration(NodeList.nodeList(Modifier.publicModifier()), PrimitiveType.voidType(), "evalBatch");
+        arrayBatch.addParameter(new Parameter(new ArrayType(inputType), inputs.getName()));
+        arrayBatch.addParameter(new Parameter(resultsType, results.getName()));
+        arrayBatch.addParameter(new Parameter(PrimitiveType.intType(), "from"));
+        arrayBatch.addParameter(new Parameter(PrimitiveType.intType(), "to"));
+        arrayBatch.addAnnotation(new MarkerAnnotationExpr("Override"));
+        ForStmt arrayLoop = new ForStmt();
+        arrayLoop.setInitialization(NodeList.nodeList(new VariableDeclarationExpr(
+                new VariableDeclarator(PrimitiveType.intType(), index.getName(), new NameExpr("from")))));
+        arrayLoop.setCompare(new BinaryExpr(index, new NameExpr("to"), BinaryExpr.Operator.LESS));
+        arrayLoop.setUpdate(NodeList.nodeList(new UnaryExpr(index, UnaryExpr.Operator.POSTFIX_INCREMENT)));
+        arrayLoop.setBody(new BlockStmt().addStatement(new AssignExpr(new ArrayAccessExpr(results, index),
+                new MethodCallExpr(null, task.methodName()).addArgument(new ArrayAccessExpr(inputs, index)),
+                AssignExpr.Operator.ASSIGN)));
+        arrayBatch.setBody(new BlockStmt().addStatement(arrayLoop));
+
+        var listBatch = new MethodDeclaration(NodeList.nodeList(Modifier.publicModifier()), PrimitiveType.voidType(), "evalBatch");
+        ClassOrInterfaceType listType = manager.getClassType(List.class);
+        listBatch.addParameter(new Parameter(new ClassOrInterfaceType(listType.getScope().orElse(null), listType.getName(),
+                NodeList.nodeList(new WildcardType(inputType))), inputs.getName()));
+        listBatch.addParameter(new Parameter(resultsType, results.getName()));
+        listBatch.addAnnotation(new MarkerAnnotationExpr("Override"));
+        ForStmt listLoop = new ForStmt();
+        listLoop.setInitialization(NodeList.nodeList(new VariableDeclarationExpr(NodeList.nodeList(
+                new VariableDeclarator(PrimitiveType.intType(), index.getName(), new IntegerLiteralExpr("0")),
+                new VariableDeclarator(PrimitiveType.intType(), "size", new MethodCallExpr(inputs, "size"))))));
+        listLoop.setCompare(new BinaryExpr(index, new NameExpr("size"), BinaryExpr.Operator.LESS));
+        listLoop.setUpdate(NodeList.nodeList(new UnaryExpr(index, UnaryExpr.Operator.POSTFIX_INCREMENT)));
+        listLoop.setBody(new BlockStmt().addStatement(new AssignExpr(new ArrayAccessExpr(results, index),
+                new MethodCallExpr(null, task.methodName()).addArgument(new MethodCallExpr(inputs, "get").addArgument(index)),
+                AssignExpr.Operator.ASSIGN)));
+        listBatch.setBody(new BlockStmt().addStatement(listLoop));
+
+        classDeclaration.getMembers().add(0, listBatch);
+        classDeclaration.getMembers().add(0, arrayBatch);
+    }
+
+    /**
+     * 生成槽位布局相关的方法，doEval 从 Map 中一次性取出所有槽位后调用 doEvalSlots
+     * <pre>{@code
+     *  private static final List<String> SLOT_NAMES = List.of("a", "b");
+     *  public List<String> slotNames() {
+     *      return SLOT_NAMES;
+     *  }
+     *  public EvalResult evalSlots(Object[] slots) {
+     *      return EvalResult.of(doEvalSlots(slots));
+     *  }
+     *  private static int doEval(Map<String, Object> input) {
+     *      return doEvalSlots(new Object[]{input.get("a"), input.get("b")});
+     *  }
+     * }</pre>
+     */
+    private static void addSlotMethods(CompilerTask task, ClassManager manager, ClassOrInterfaceDeclaration classDeclaration, JavaExpr result) {
+        classDeclaration.addImplementedType(manager.getClassType(SlotExpression.class)
+                .setTypeArguments(manager.getClassType(task.rootInputJavaType())));
+        NameExpr input = new NameExpr(task.rootInputParam());
+        MethodCallExpr names = manager.getStaticMethod(List.class, "of");
+        ArrayInitializerExpr values = new ArrayInitializerExpr();
+        for (String name : task.inputSlots()) {
+            names.addArgument(CodeGens.stringLiteral(name));
+            values.getValues().add(new MethodCallExpr(input, "get").addArgument(CodeGens.stringLiteral(name)));
+        }
+        String slotNames = "SLOT_NAMES";
+        manager.getConstants().put(slotNames, CodeGens.staticField(manager.getListType(String.class), slotNames, names));
+
+        var slotNamesMethod = new MethodDeclaration(NodeList.nodeList(Modifier.publicModifier()), manager.getListType(String.class), "slotNames");
+        slotNamesMethod.addAnnotation(new MarkerAnnotationExpr("Override"));
+        slotNamesMethod.setBody(new BlockStmt().addStatement(new ReturnStmt(new NameExpr(slotNames))));
+
+        NameExpr slots = new NameExpr("slots");
+        var evalSlots = new MethodDeclaration(NodeList.nodeList(Modifier.publicModifier()), manager.getClassType(EvalResult.class), "evalSlots");
+        evalSlots.addParameter(new Parameter(manager.getArrayType(Object[].class), slots.getName()));
+        evalSlots.addAnnotation(new MarkerAnnotationExpr("Override"));
+        evalSlots.setBody(new BlockStmt().addStatement(new ReturnStmt(manager.getStaticMethod(EvalResult.class, "of")
+                .addArgument(new MethodCallExpr(null, task.methodName()).addArgument(slots)))));
+
+        var doEval = new MethodDeclaration(NodeList.nodeList(Modifier.privateModifier(), Modifier.staticModifier()), manager.getType(result.javaType()), "doEval");
+        doEval.addParameter(new Parameter(manager.getClassType(task.rootInputJavaType()), input.getName()));
+        doEval.setBody(new BlockStmt().addStatement(new ReturnStmt(new MethodCallExpr(null, task.methodName())
+                .addArgument(new ArrayCreationExpr(manager.getClassType(Object.class), NodeList.nodeList(new ArrayCreationLevel()), values)))));
+
+        classDeclaration.getMembers().add(0, doEval);
+        classDeclaration.getMembers().add(0, evalSlots);
+        classDeclaration.getMembers().add(0, slotNamesMethod);
     }
 
-    private static Class<?> doCompileUT(String expression, Object testInputObjOrInputJavaType, Object rootInputObjOrInputJavaType) {
+    private static Unit generateUT(String expression, Object testInputObjOrInputJavaType, Object rootInputObjOrInputJavaType) {
         CompilerTask task = new CompilerTask()
                 .packageName(PACKAGE_NAME)
                 .className("FeelUT" + "$" + TypeId.generate())
@@ -182,6 +758,7 @@ public class Feel {
                 .expression(expression)
                 .unaryTestInput(testInputObjOrInputJavaType)
                 .rootInput(rootInputObjOrInputJavaType);
+        applyBackend(task);
         ASTNode astNode = FeelUtil.parseUT2AST(expression, task.unaryTestInputType(), task.inputTypes());
         Context context = task.context();
         ASTCompilerVisitor.instance(context).visit(astNode);
@@ -199,56 +776,314 @@ public class Feel {
         eval.setBody(evalBody);
         evalBody.addStatement(new ReturnStmt(new MethodCallExpr(null, task.methodName())
                 .addArgument(testParam).addArgument(inputParam)));
-        return getClass(task, manager, classDeclaration, eval);
+        return generate(task, manager, classDeclaration, eval);
     }
 
-    private static Class<?> doCompilerDMN(DecisionTableDefinition definition, Object rootInputObjOrInputJavaType) {
-        CompilerTask compilerTask = new CompilerTask().packageName(PACKAGE_NAME)
-                .className("FeelDMN" + "$" + TypeId.generate())
+    private static Unit generateDMN(DecisionTableDefinition definition, Object rootInputObjOrInputJavaType, String packageName, String classNamePrefix) {
+        CompilerTask compilerTask = new CompilerTask().packageName(packageName)
+                .className(classNamePrefix + "$" + TypeId.generate())
                 .rootInput(rootInputObjOrInputJavaType);
+        applyBackend(compilerTask);
 
         String generate = DMNGenerator.instance(compilerTask.context()).generate(definition);
-        try {
-            CompilationResult compile = JavaCompiler.NATIVE.compile(compilerTask.className(), generate);
-            return compile.classes().size() == 1 ? compile.loadSingle() :
-                    compile.load(compilerTask.packageName() + "." + compilerTask.className());
-        } catch (Exception e) {
-            log.error("compile error: {}", generate);
-            throw e;
-        }
+        return new Unit(compilerTask, generate);
     }
 
-    private static Class<?> getClass(CompilerTask task, ClassManager manager, ClassOrInterfaceDeclaration classDeclaration, MethodDeclaration eval) {
+    private static Unit generate(CompilerTask task, ClassManager manager, ClassOrInterfaceDeclaration classDeclaration, MethodDeclaration eval) {
         classDeclaration.getMembers().add(0, eval);
         String generate = manager.generate();
         if (log.isDebugEnabled()) {
             log.debug("generate task:{} \n{}", task, generate);
         }
+        return new Unit(task, generate);
+    }
+
+    private static Class<?> compileClass(Unit unit, @Nullable String diskKey) {
         try {
-            CompilationResult compile = JavaCompiler.NATIVE.compile(task.className(), generate);
-            return compile.classes().size() == 1 ? compile.loadSingle() :
-                    compile.load(task.packageName() + "." + task.className());
+            ClassFileCache cache = diskCache;
+            boolean persist = diskKey != null && cache != null;
+            // 先按选择的后端编译，janino 的结果同样写入磁盘缓存
+            if (unit.task.backend() == CompilerTask.Backend.JANINO) {
+                Map<String, byte[]> classes = JaninoCompiler.compile(unit.fullName(), unit.source);
+                if (classes != null) {
+                    if (persist) {
+                        cache.store(diskKey, unit.fullName(), classes);
+                    }
+                    return MemoryJavac.loader(classes).loadClass(unit.fullName());
+                }
+            }
+            if (persist) {
+                Class<?> compiled = cache.compile(diskKey, unit.fullName(), unit.source);
+                if (compiled != null) {
+                    return compiled;
+                }
+            }
+            if (isolatedLoader) {
+                Class<?> compiled = MemoryJavac.compile(unit.fullName(), unit.source);
+                if (compiled != null) {
+                    return compiled;
+                }
+            }
+            CompilationResult compile = JavaCompiler.NATIVE.compile(unit.task.className(), unit.source);
+            return compile.classes().size() == 1 ? compile.loadSingle() : compile.load(unit.fullName());
         } catch (Exception e) {
-            log.error("compile error: {}", generate);
+            log.error("compile error: {}", unit.source);
             throw Throws.sneakyThrows(e);
         }
     }
 
-    private static final Cache<CacheKey, Class<?>> CACHE = Caffeine.newBuilder().weakValues().build();
+    /**
+     * 批量编译：先在 ForkJoinPool 中并行完成解析和代码生成，再把每 {@link #BATCH_SIZE} 个类交给同一个 javac 任务编译，
+     * 共享编译器的初始化和类加载开销
+     */
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> cachedCompileAll(String kind, List<String> sources, Object rootInputObjOrInputJavaType, BiFunction<Integer, FType, Unit> generator) {
+        int size = sources.size();
+        CacheKey[] keys = new CacheKey[size];
+        Class<?>[] classes = new Class<?>[size];
+        Object[] instances = new Object[size];
+        List<Integer> pending = new ArrayList<>();
+        ClassFileCache cache = diskCache;
+        for (int i = 0; i < size; i++) {
+            String source = sources.get(i);
+            if (source == null || source.isBlank()) {
+                continue;
+            }
+            keys[i] = new CacheKey(SOURCE_KEYS.intern(source), rootInputObjOrInputJavaType);
+            Object cached = compiledCache.getIfPresent(keys[i]);
+            instances[i] = cached == null ? null : instance(cached);
+            if (instances[i] != null) {
+                continue;
+            }
+            if (cache != null) {
+                classes[i] = cache.load(keys[i].diskKey(kind, source));
+            }
+            if (classes[i] == null) {
+                pending.add(i);
+            }
+        }
+        Unit[] units = new Unit[size];
+        pending.parallelStream().forEach(i -> units[i] = generator.apply(i, keys[i].inputFType));
+
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i += BATCH_SIZE) {
+            batches.add(pending.subList(i, Math.min(i + BATCH_SIZE, pending.size())));
+        }
+        batches.parallelStream().forEach(batch -> {
+            Map<String, String> batchSources = MapUtil.newLinkedHashMap(batch.size());
+            for (int i : batch) {
+                batchSources.put(units[i].fullName(), units[i].source);
+            }
+            boolean janino = units[batch.get(0)].task.backend() == CompilerTask.Backend.JANINO;
+            Map<String, byte[]> compiled = janino ? null : MemoryJavac.compile(batchSources);
+            if (compiled == null) {
+                // 使用 janino、javac 不可用或者有单元编译失败时逐个编译，以便报告具体出错的单元
+                for (int i : batch) {
+                    classes[i] = compileClass(units[i], cache == null ? null : keys[i].diskKey(kind, sources.get(i)));
+                }
+                return;
+            }
+            for (int i : batch) {
+                String fullName = units[i].fullName();
+                Map<String, byte[]> unitClasses = MemoryJavac.classesOf(compiled, fullName);
+                try {
+                    // 每个类使用独立的类加载器，被缓存淘汰后可以单独卸载
+                    classes[i] = MemoryJavac.loader(unitClasses).loadClass(fullName);
+                } catch (ClassNotFoundException e) {
+                    throw Throws.sneakyThrows(e);
+                }
+                if (cache != null) {
+                    cache.store(keys[i].diskKey(kind, sources.get(i)), fullName, unitClasses);
+                }
+            }
+        });
+
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (instances[i] == null && classes[i] != null) {
+                Object value = cacheValue(classes[i]);
+                Object existing = compiledCache.asMap().putIfAbsent(keys[i], value);
+                instances[i] = instance(existing == null ? value : existing);
+            }
+            result.add((T) instances[i]);
+        }
+        return result;
+    }
+
+    private static volatile Cache<CacheKey, Object> compiledCache = newCache(CachePolicy.UNBOUNDED);
+    private static volatile boolean isolatedLoader = false;
+    private static final ClassValue<Object> SINGLETONS = new ClassValue<>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            return instantiate(type);
+        }
+    };
     private static final LazyLog log = LazyLog.of(Feel.class);
+    private static final int BATCH_SIZE = 256;
+    private static final int ESTIMATED_CLASS_SIZE = 8 * 1024;
+    private static volatile ClassFileCache diskCache;
+    private static volatile CompilerTask.Backend backend = CompilerTask.Backend.JAVAC;
+    private static volatile int tierThreshold = 16;
+    private static final Cache<CacheKey, Object> TIERED = Caffeine.newBuilder().maximumSize(1024).build();
     private static final String PACKAGE_NAME = "runtime.feel";
+    private static final String DMN_CLASS_PREFIX = "FeelDMN";
+    private static final SourceKey.Registry SOURCE_KEYS = new SourceKey.Registry(0);
+    /**
+     * 与普通表达式共用编译结果缓存，用不同的注册表区分
+     */
+    private static final SourceKey.Registry SLOT_SOURCE_KEYS = new SourceKey.Registry(1);
+    private static final HotCache EXPR_HOT = new HotCache();
+    private static final HotCache SLOTS_HOT = new HotCache();
+    private static final HotCache UT_HOT = new HotCache();
+    private static final HotCache DMN_HOT = new HotCache();
+
+    /**
+     * 热点查找的无锁快速路径，命中时不需要查找 {@link SourceKey} 和创建 {@link CacheKey}
+     * <p>
+     * 按表达式文本（或 DMN 定义对象的引用）和输入类型对象的引用直接映射到槽位，冲突时后写入的覆盖先写入的。
+     * 条目不可变，并发写入只会造成未命中；只接受不可变的输入类型描述，样例输入对象可能被调用方修改，所以不走这里。
+     * 槽位对实例是强引用，最多让 {@link #SIZE} 个类不被缓存淘汰，{@link Feel#cachePolicy(CachePolicy)} 时清空
+     */
+    private static final class HotCache {
+        private static final int SIZE = 256;
+        private static final Map<?, ?> EMPTY_INPUT = Map.of();
+        private final Entry[] table = new Entry[SIZE];
+
+        private static boolean accepts(Object input) {
+            return input == null || input == EMPTY_INPUT || input instanceof Type || input instanceof FType;
+        }
+
+        private @Nullable Object get(Object key, Object testInput, Object input) {
+            Entry entry = table[index(key, testInput, input)];
+            if (entry != null && entry.testInput == testInput && entry.input == input
+                && (entry.key == key || key instanceof String && key.equals(entry.key))) {
+                return entry.instance;
+            }
+            return null;
+        }
+
+        private void put(Object key, Object testInput, Object input, Object instance) {
+            table[index(key, testInput, input)] = new Entry(key, testInput, input, instance);
+        }
 
-    private record CacheKey(String string, FType testInputFType, FType inputFType) {
-        private CacheKey(String string, Object inputObjOrInputJavaType) {
-            this(string, null, toType(inputObjOrInputJavaType));
+        private void clear() {
+            Arrays.fill(table, null);
         }
 
-        private CacheKey(String string, Object testInputObjOrInputJavaType, Object rootInputObjOrInputJavaType) {
-            this(string, toType(testInputObjOrInputJavaType), toType(rootInputObjOrInputJavaType));
+        private static int index(Object key, Object testInput, Object input) {
+            int h = key instanceof String ? key.hashCode() : System.identityHashCode(key);
+            h = (h * 31 + System.identityHashCode(testInput)) * 31 + System.identityHashCode(input);
+            return (h ^ (h >>> 16)) & (SIZE - 1);
+        }
+
+        private record Entry(Object key, Object testInput, Object input, Object instance) {}
+    }
+
+    private static final class TieredExpression<T> implements Expression<T> {
+        private final String expression;
+        private final Object inputObjOrInputJavaType;
+        private final ASTNode astNode;
+        private final AtomicInteger invocations = new AtomicInteger();
+        private final AtomicBoolean compiling = new AtomicBoolean();
+        private volatile Expression<T> compiled;
+
+        private TieredExpression(String expression, Object inputObjOrInputJavaType, ASTNode astNode) {
+            this.expression = expression;
+            this.inputObjOrInputJavaType = inputObjOrInputJavaType;
+            this.astNode = astNode;
+        }
+
+        @Override
+        public EvalResult eval(T input) {
+            Expression<T> delegate = compiled;
+            if (delegate != null) {
+                return delegate.eval(input);
+            }
+            // 阈值可能在运行中调低，因此用 >= 判断，同一时间只有一个后台编译
+            if (invocations.incrementAndGet() >= tierThreshold && compiling.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> compiled = cachedCompile(expression, inputObjOrInputJavaType))
+                        .exceptionally(e -> {
+                            // 编译失败时重新计数，再次达到阈值后重试
+                            log.warn("background compile failed, keep interpreting: {}", expression, e);
+                            invocations.set(0);
+                            compiling.set(false);
+                            return null;
+                        });
+            }
+            try {
+                return EvalResult.of(ASTInterpreter.evaluate(astNode, input));
+            } catch (FeelLangException e) {
+                // 解释器无法处理的情况，直接同步编译
+                log.debug("interpret failed, compile now: {}", expression, e);
+                Expression<T> now = cachedCompile(expression, inputObjOrInputJavaType);
+                compiled = now;
+                return now.eval(input);
+            }
+        }
+    }
+
+    /**
+     * 根据表达式的静态类型选择原始类型特化的 Expression 接口，
+     * doEval 的实际返回类型必须是对应的原始类型或其包装类型，否则不做特化（例如 int / int 的结果是 BigDecimal）
+     */
+    private enum PrimitiveEval {
+        INT(FNumber.INTEGER, IntExpression.class, int.class, "evalInt"),
+        LONG(FNumber.LONG, LongExpression.class, long.class, "evalLong"),
+        DOUBLE(FNumber.DOUBLE, DoubleExpression.class, double.class, "evalDouble"),
+        BOOLEAN(FBoolean.BOOLEAN, BooleanExpression.class, boolean.class, "evalBoolean");
+
+        private final FType feelType;
+        private final Class<?> expressionType;
+        private final Class<?> javaType;
+        private final String methodName;
+
+        PrimitiveEval(FType feelType, Class<?> expressionType, Class<?> javaType, String methodName) {
+            this.feelType = feelType;
+            this.expressionType = expressionType;
+            this.javaType = javaType;
+            this.methodName = methodName;
+        }
+
+        private static @Nullable PrimitiveEval of(FType feelType, Type doEvalType) {
+            for (PrimitiveEval value : values()) {
+                if (value.feelType.equals(feelType) &&
+                    (value.javaType == doEvalType || TypeUtil.primitiveToWrapper(value.javaType) == doEvalType)) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Unit(CompilerTask task, String source) {
+        private String fullName() {
+            return task.packageName() + "." + task.className();
+        }
+    }
+
+    private record CacheKey(SourceKey source, FType testInputFType, FType inputFType) {
+        private CacheKey(SourceKey source, Object inputObjOrInputJavaType) {
+            this(source, null, toType(inputObjOrInputJavaType));
+        }
+
+        private CacheKey(SourceKey source, Object testInputObjOrInputJavaType, Object rootInputObjOrInputJavaType) {
+            this(source, toType(testInputObjOrInputJavaType), toType(rootInputObjOrInputJavaType));
         }
 
         private static FType toType(Object obj) {
             return obj instanceof Type type ? FType.of(type) : FType.of(obj);
         }
+
+        /**
+         * 磁盘缓存使用完整的源文本，并带上输入类型对应的 java 类型（不同的 POJO 可能有相同的 FEEL 类型）
+         */
+        private String diskKey(String kind, String source) {
+            return ClassFileCache.key(kind, source, typeKey(testInputFType), typeKey(inputFType));
+        }
+
+        private static String typeKey(FType type) {
+            return type == null ? "" : type + "|" + type.getJavaType().getTypeName();
+        }
     }
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.muyuanjin.feel.dmn;
 
 import com.muyuanjin.feel.dmn.impl.DefaultDMNCompiler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author muyuanjin
  */
@@ -10,5 +13,13 @@ public interface DMNCompiler {
 
     <T> DecisionTable<T> compile(DecisionTableDefinition definition, Class<T> inputType);
 
+    default <T> List<DecisionTable<T>> compileAll(List<DecisionTableDefinition> definitions, Class<T> inputType) {
+        List<DecisionTable<T>> result = new ArrayList<>(definitions.size());
+        for (DecisionTableDefinition definition : definitions) {
+            result.add(compile(definition, inputType));
+        }
+        return result;
+    }
+
     DMNCompiler DEFAULT = new DefaultDMNCompiler();
 }
\ No newline at end of file
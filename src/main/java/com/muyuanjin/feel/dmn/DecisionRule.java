@@ -25,4 +25,9 @@ public record DecisionRule(
         @NotEmpty @Singular("input") List<String> inputEntry,
         @NotEmpty @Singular("output") List<String> outputEntry,
         @Nullable @Singular("annotation") List<String> annotationEntry) {
+    public DecisionRule {
+        inputEntry = List.copyOf(inputEntry);
+        outputEntry = List.copyOf(outputEntry);
+        annotationEntry = annotationEntry == null ? null : List.copyOf(annotationEntry);
+    }
 }
\ No newline at end of file
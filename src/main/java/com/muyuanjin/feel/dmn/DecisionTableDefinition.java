@@ -15,7 +15,7 @@ import java.util.List;
  * @param outputs     表头——输出条款
  * @param annotations 表头——注释条款
  * @param rules       规则列表，行索引
- * @param hitPolicy   规则命中策略
+ * @param hitPolicy   规则命中策略，为 null 时按 FIRST 处理
  * @param aggregation 多值命中策略选择的聚合器
  */
 @Builder
@@ -28,6 +28,11 @@ public record DecisionTableDefinition(
         @Nullable HitPolicy hitPolicy,
         @Nullable Aggregation aggregation) {
     public DecisionTableDefinition {
+        // 编译结果按定义对象的引用缓存，组件必须不可变
+        inputs = List.copyOf(inputs);
+        outputs = List.copyOf(outputs);
+        annotations = annotations == null ? null : List.copyOf(annotations);
+        rules = rules == null ? null : List.copyOf(rules);
         if (rules != null && !rules.isEmpty()) {
             for (DecisionRule decisionRule : rules) {
                 if (decisionRule.inputEntry().size() != inputs.size()) {
@@ -40,5 +45,13 @@ public record DecisionTableDefinition(
                 }
             }
         }
+        if (aggregation != null) {
+            if (hitPolicy != HitPolicy.COLLECT) {
+                throw new IllegalArgumentException("聚合器只能与 COLLECT 命中策略一起使用");
+            }
+            if (outputs.size() != 1) {
+                throw new IllegalArgumentException("聚合器只能用于单输出的决策表");
+            }
+        }
     }
 }
\ No newline at end of file
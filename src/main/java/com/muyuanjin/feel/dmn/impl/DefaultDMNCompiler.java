@@ -1,24 +1,21 @@
 package com.muyuanjin.feel.dmn.impl;
 
-import com.muyuanjin.common.util.LazyLog;
-import com.muyuanjin.compiler.CompilationResult;
-import com.muyuanjin.compiler.JavaCompiler;
-import com.muyuanjin.compiler.util.JUnsafe;
+import com.muyuanjin.feel.Feel;
 import com.muyuanjin.feel.dmn.DMNCompiler;
 import com.muyuanjin.feel.dmn.DecisionTable;
 import com.muyuanjin.feel.dmn.DecisionTableDefinition;
-import com.muyuanjin.feel.translate.CompilerTask;
-import com.muyuanjin.feel.translate.DMNGenerator;
-import de.fxlae.typeid.TypeId;
 import lombok.AllArgsConstructor;
-import lombok.SneakyThrows;
+
+import java.util.List;
 
 /**
+ * 通过 {@link Feel} 编译，与 {@link Feel#compileDMN} 共用编译缓存、磁盘缓存和当前选择的编译后端，
+ * 按包名和类名前缀区分缓存
+ *
  * @author muyuanjin
  */
 @AllArgsConstructor
 public class DefaultDMNCompiler implements DMNCompiler {
-    private static final LazyLog log = LazyLog.of(DefaultDMNCompiler.class);
     private final String packageName;
     private final String classNamePrefix;
 
@@ -29,30 +26,19 @@ public class DefaultDMNCompiler implements DMNCompiler {
 
     @Override
     public <T> DecisionTable<T> compile(DecisionTableDefinition definition, T input) {
-        return doCompile(definition, input);
+        return Feel.compileDMN(definition, input, packageName, classNamePrefix);
     }
 
     @Override
     public <T> DecisionTable<T> compile(DecisionTableDefinition definition, Class<T> inputType) {
-        return doCompile(definition, inputType);
+        return Feel.compileDMN(definition, inputType, packageName, classNamePrefix);
     }
 
-    @SneakyThrows
-    @SuppressWarnings("unchecked")
-    private <T> DecisionTable<T> doCompile(DecisionTableDefinition definition, Object inputOrInputType) {
-        CompilerTask compilerTask = new CompilerTask().packageName(packageName)
-                .className(classNamePrefix + "$" + TypeId.generate())
-                .rootInput(inputOrInputType);
-
-        String generate = DMNGenerator.instance(compilerTask.context()).generate(definition);
-        try {
-            CompilationResult compile = JavaCompiler.NATIVE.compile(compilerTask.className(), generate);
-            Class<Object> compiledClass = compile.classes().size() == 1 ? compile.loadSingle() :
-                    compile.load(compilerTask.packageName() + "." + compilerTask.className());
-            return (DecisionTable<T>) JUnsafe.UNSAFE.allocateInstance(compiledClass);
-        } catch (Exception e) {
-            log.error("compile error: {}", generate);
-            throw e;
-        }
+    /**
+     * 使用 {@link Feel} 的批量编译：并行生成源码，按批交给 javac，并使用当前选择的编译后端和磁盘缓存
+     */
+    @Override
+    public <T> List<DecisionTable<T>> compileAll(List<DecisionTableDefinition> definitions, Class<T> inputType) {
+        return Feel.compileAllDMN(definitions, inputType, packageName, classNamePrefix);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package com.muyuanjin.feel.dmn.impl;
+
+import com.muyuanjin.feel.impl.DefaultFeelTypeFactory;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 生成的决策表在多命中策略下使用的运行时辅助方法
+ *
+ * @author muyuanjin
+ */
+public final class HitPolicies {
+    private HitPolicies() {}
+
+    /**
+     * @return 前 size 个命中结果组成的列表，可以包含 null
+     */
+    public static List<Object> toList(Object[] hits, int size) {
+        return Arrays.asList(Arrays.copyOf(hits, size));
+    }
+
+    /**
+     * OUTPUT ORDER：按优先级升序（值越小越优先）排列，优先级相同时保持规则顺序
+     */
+    public static List<Object> sortByPriority(Object[] hits, long[] priorities, int size) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // 对象数组的排序是稳定的
+        Arrays.sort(order, (a, b) -> Long.compare(priorities[a], priorities[b]));
+        Object[] result = new Object[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = hits[order[i]];
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * COLLECT COUNT：不同输出值的数量
+     */
+    public static int countDistinct(Object[] hits, int size) {
+        if (size <= 8) {
+            int count = 0;
+            outer:
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < i; j++) {
+                    if (Objects.equals(hits[i], hits[j])) {
+                        continue outer;
+                    }
+                }
+                count++;
+            }
+            return count;
+        }
+        return new HashSet<>(Arrays.asList(hits).subList(0, size)).size();
+    }
+
+    /**
+     * COLLECT SUM 按 long 累加时 a + b 是否溢出
+     */
+    public static boolean addOverflows(long a, long b) {
+        long result = a + b;
+        return ((a ^ result) & (b ^ result)) < 0;
+    }
+
+    /**
+     * 溢出前把 long 的累加值转入 BigDecimal
+     */
+    public static BigDecimal spill(BigDecimal overflow, long value) {
+        return overflow == null ? BigDecimal.valueOf(value) : overflow.add(BigDecimal.valueOf(value));
+    }
+
+    /**
+     * COLLECT SUM 按 long 累加的结果，没有溢出过时为 long，否则为 BigDecimal
+     */
+    public static Number sum(BigDecimal overflow, long value) {
+        return overflow == null ? (Number) value : overflow.add(BigDecimal.valueOf(value));
+    }
+
+    /**
+     * COLLECT MIN/MAX 在输出不是同一种原始数值类型时的比较，数值统一按 BigDecimal 比较
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static int compare(Object left, Object right) {
+        if (left instanceof Number l && right instanceof Number r) {
+            return DefaultFeelTypeFactory.toBigDecimal(l).compareTo(DefaultFeelTypeFactory.toBigDecimal(r));
+        }
+        if (left instanceof Comparable comparable && left.getClass().isInstance(right)) {
+            return comparable.compareTo(right);
+        }
+        throw new IllegalArgumentException("Cannot compare " + left.getClass().getName() + " with " + right.getClass().getName());
+    }
+}
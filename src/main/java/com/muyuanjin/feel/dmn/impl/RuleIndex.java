@@ -0,0 +1,352 @@
+package com.muyuanjin.feel.dmn.impl;
+
+import jakarta.annotation.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 决策表的规则索引，evaluate 时先按输入值找出候选规则，再按顺序只对候选规则执行完整的测试
+ * <p>
+ * 每个输入列独立建立索引：字面量相等的条目放入哈希表，数值区间的条目切分为有序的基本区间，每个基本区间对应一个规则位图，
+ * 多个列的候选位图取交集。其余条目（'-'、否定、函数调用、引用变量等）对任意输入都是候选，所以索引只会缩小范围，不会改变结果
+ * <p>
+ * 索引在编译期由 {@link Builder} 分析规则得到，编码为字符串常量放入生成的类中，类初始化时用 {@link #decode(String)} 还原
+ *
+ * @author muyuanjin
+ */
+public final class RuleIndex {
+    private final int ruleCount;
+    private final Column[] columns;
+
+    private RuleIndex(int ruleCount, Column[] columns) {
+        this.ruleCount = ruleCount;
+        this.columns = columns;
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * @param values 每一列的输入值，没有建立索引的列可以传 null
+     * @return 候选规则，按规则顺序遍历，调用方可以修改
+     */
+    public BitSet candidates(Object... values) {
+        BitSet result = null;
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            if (column == null) {
+                continue;
+            }
+            if (result == null) {
+                result = (BitSet) column.candidates(values[i]).clone();
+            } else {
+                result.and(column.candidates(values[i]));
+            }
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        if (result == null) {
+            result = new BitSet(ruleCount);
+            result.set(0, ruleCount);
+        }
+        return result;
+    }
+
+    public static RuleIndex decode(String encoded) {
+        Reader reader = new Reader(encoded);
+        int ruleCount = reader.nextInt();
+        int columnCount = reader.nextInt();
+        ColumnBuilder[] builders = new ColumnBuilder[columnCount];
+        while (reader.hasNext()) {
+            char kind = reader.nextChar();
+            int column = reader.nextInt();
+            int rule = reader.nextInt();
+            ColumnBuilder builder = builders[column];
+            if (builder == null) {
+                builder = builders[column] = new ColumnBuilder(ruleCount);
+            }
+            if (kind == 'E') {
+                int count = reader.nextInt();
+                for (int i = 0; i < count; i++) {
+                    builder.equal(rule, reader.nextKey());
+                }
+            } else if (kind == 'R') {
+                char startFlag = reader.nextChar();
+                BigDecimal start = startFlag == '_' ? null : new BigDecimal(reader.nextString());
+                char endFlag = reader.nextChar();
+                BigDecimal end = endFlag == '_' ? null : new BigDecimal(reader.nextString());
+                builder.range(rule, start, startFlag == '[', end, endFlag == ']');
+            } else {
+                throw new IllegalArgumentException("Invalid rule index entry: " + kind);
+            }
+        }
+        Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = builders[i] == null ? null : builders[i].build();
+        }
+        return new RuleIndex(ruleCount, columns);
+    }
+
+    /**
+     * 与 {@link #decode(String)} 对应，数值统一按 {@link BigDecimal} 比较和哈希
+     */
+    private static @Nullable Object key(@Nullable Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+        } else if (value instanceof BigInteger integer) {
+            return key(new BigDecimal(integer));
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return Double.isFinite(d) ? key(BigDecimal.valueOf(d)) : value;
+        } else if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+            return key(BigDecimal.valueOf(((Number) value).longValue()));
+        }
+        return value;
+    }
+
+    private static final class Column {
+        private final BitSet always;
+        private final Map<Object, BitSet> equal;
+        private final BigDecimal[] points;
+        private final BitSet[] segments;
+        private final BitSet ranges;
+
+        private Column(BitSet always, Map<Object, BitSet> equal, BigDecimal[] points, BitSet[] segments, BitSet ranges) {
+            this.always = always;
+            this.equal = equal;
+            this.points = points;
+            this.segments = segments;
+            this.ranges = ranges;
+        }
+
+        /**
+         * 返回的位图不能修改
+         */
+        private BitSet candidates(Object value) {
+            BitSet equalRules = equal.isEmpty() ? null : equal.get(key(value));
+            BitSet rangeRules = null;
+            if (points != null) {
+                Object key = key(value);
+                if (key instanceof BigDecimal decimal) {
+                    int index = Arrays.binarySearch(points, decimal);
+                    rangeRules = segments[index >= 0 ? index * 2 + 1 : (-index - 1) * 2];
+                } else {
+                    // 非数值交给规则自身判断
+                    rangeRules = ranges;
+                }
+            }
+            if (equalRules == null) {
+                return rangeRules == null ? always : rangeRules;
+            }
+            if (rangeRules == null) {
+                return equalRules;
+            }
+            BitSet result = (BitSet) equalRules.clone();
+            result.or(rangeRules);
+            return result;
+        }
+    }
+
+    private static final class ColumnBuilder {
+        private final int ruleCount;
+        private final BitSet indexed = new BitSet();
+        private final Map<Object, BitSet> equal = new HashMap<>();
+        private final List<Object[]> ranges = new ArrayList<>();
+
+        private ColumnBuilder(int ruleCount) {
+            this.ruleCount = ruleCount;
+        }
+
+        private void equal(int rule, Object key) {
+            indexed.set(rule);
+            equal.computeIfAbsent(key(key), k -> new BitSet(ruleCount)).set(rule);
+        }
+
+        private void range(int rule, @Nullable BigDecimal start, boolean startInclusive, @Nullable BigDecimal end, boolean endInclusive) {
+            indexed.set(rule);
+            ranges.add(new Object[]{rule, start, startInclusive, end, endInclusive});
+        }
+
+        private Column build() {
+            BitSet always = new BitSet(ruleCount);
+            always.set(0, ruleCount);
+            always.andNot(indexed);
+            // 相等和区间的位图都预先并上 always，查询时不需要再合并
+            for (BitSet rules : equal.values()) {
+                rules.or(always);
+            }
+            if (ranges.isEmpty()) {
+                return new Column(always, equal, null, null, always);
+            }
+            TreeSet<BigDecimal> sorted = new TreeSet<>();
+            for (Object[] range : ranges) {
+                if (range[1] != null) {
+                    sorted.add((BigDecimal) range[1]);
+                }
+                if (range[3] != null) {
+                    sorted.add((BigDecimal) range[3]);
+                }
+            }
+            BigDecimal[] points = sorted.toArray(new BigDecimal[0]);
+            // 基本区间：(-∞,p0) [p0] (p0,p1) [p1] ... [pm-1] (pm-1,+∞)，下标为偶数的是开区间，奇数的是端点
+            BitSet[] segments = new BitSet[points.length * 2 + 1];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = (BitSet) always.clone();
+            }
+            BitSet allRanges = (BitSet) always.clone();
+            for (Object[] range : ranges) {
+                int rule = (int) range[0];
+                allRanges.set(rule);
+                int from = range[1] == null ? 0 : segmentOf(points, (BigDecimal) range[1], (boolean) range[2], true);
+                int to = range[3] == null ? segments.length - 1 : segmentOf(points, (BigDecimal) range[3], (boolean) range[4], false);
+                for (int i = from; i <= to; i++) {
+                    segments[i].set(rule);
+                }
+            }
+            return new Column(always, equal, points, segments, allRanges);
+        }
+
+        private static int segmentOf(BigDecimal[] points, BigDecimal bound, boolean inclusive, boolean start) {
+            int point = Arrays.binarySearch(points, bound) * 2 + 1;
+            if (inclusive) {
+                return point;
+            }
+            return start ? point + 1 : point - 1;
+        }
+    }
+
+    /**
+     * 编译期使用，收集每个单元格可以建立索引的条目并编码为字符串
+     */
+    public static final class Builder {
+        private final int ruleCount;
+        private final int columnCount;
+        private final StringBuilder encoded = new StringBuilder();
+        private final BitSet indexedColumns = new BitSet();
+
+        public Builder(int ruleCount, int columnCount) {
+            this.ruleCount = ruleCount;
+            this.columnCount = columnCount;
+            writeInt(encoded, ruleCount);
+            writeInt(encoded, columnCount);
+        }
+
+        /**
+         * 输入值与 keys 中的任意一个相等时命中，key 只能是字符串或数值
+         */
+        public Builder equal(int column, int rule, List<?> keys) {
+            check(column, rule);
+            encoded.append('E');
+            writeInt(encoded, column);
+            writeInt(encoded, rule);
+            writeInt(encoded, keys.size());
+            for (Object key : keys) {
+                if (key instanceof String string) {
+                    encoded.append('s');
+                    writeString(encoded, string);
+                } else if (key instanceof BigDecimal decimal) {
+                    encoded.append('n');
+                    writeString(encoded, decimal.toString());
+                } else {
+                    throw new IllegalArgumentException("Unsupported rule index key: " + key);
+                }
+            }
+            indexedColumns.set(column);
+            return this;
+        }
+
+        /**
+         * 输入值落在区间内时命中，start 或 end 为 null 表示无界
+         */
+        public Builder range(int column, int rule, @Nullable BigDecimal start, boolean startInclusive, @Nullable BigDecimal end, boolean endInclusive) {
+            check(column, rule);
+            if (start == null && end == null) {
+                return this;
+            }
+            encoded.append('R');
+            writeInt(encoded, column);
+            writeInt(encoded, rule);
+            if (start == null) {
+                encoded.append('_');
+            } else {
+                encoded.append(startInclusive ? '[' : '(');
+                writeString(encoded, start.toString());
+            }
+            if (end == null) {
+                encoded.append('_');
+            } else {
+                encoded.append(endInclusive ? ']' : ')');
+                writeString(encoded, end.toString());
+            }
+            indexedColumns.set(column);
+            return this;
+        }
+
+        public boolean isIndexed(int column) {
+            return indexedColumns.get(column);
+        }
+
+        public boolean isEmpty() {
+            return indexedColumns.isEmpty();
+        }
+
+        public String encode() {
+            return encoded.toString();
+        }
+
+        private void check(int column, int rule) {
+            Objects.checkIndex(column, columnCount);
+            Objects.checkIndex(rule, ruleCount);
+        }
+
+        private static void writeInt(StringBuilder sb, int value) {
+            sb.append(value).append(',');
+        }
+
+        private static void writeString(StringBuilder sb, String value) {
+            writeInt(sb, value.length());
+            sb.append(value);
+        }
+    }
+
+    private static final class Reader {
+        private final String encoded;
+        private int position;
+
+        private Reader(String encoded) {
+            this.encoded = encoded;
+        }
+
+        private boolean hasNext() {
+            return position < encoded.length();
+        }
+
+        private char nextChar() {
+            return encoded.charAt(position++);
+        }
+
+        private int nextInt() {
+            int end = encoded.indexOf(',', position);
+            int value = Integer.parseInt(encoded, position, end, 10);
+            position = end + 1;
+            return value;
+        }
+
+        private String nextString() {
+            int length = nextInt();
+            String value = encoded.substring(position, position + length);
+            position += length;
+            return value;
+        }
+
+        private Object nextKey() {
+            char kind = nextChar();
+            String value = nextString();
+            return kind == 'n' ? new BigDecimal(value) : value;
+        }
+    }
+}
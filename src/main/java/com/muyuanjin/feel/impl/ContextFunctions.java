@@ -0,0 +1,73 @@
+package com.muyuanjin.feel.impl;
+
+import com.muyuanjin.common.util.MapUtil;
+import com.muyuanjin.feel.parser.MemberAccessor;
+import com.muyuanjin.feel.parser.ParserUtil;
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 上下文函数（表 81）的运行时实现
+ *
+ * @author muyuanjin
+ */
+@UtilityClass
+public class ContextFunctions {
+    public static Object getValue(Map<?, ?> context, String key) {
+        return context == null || key == null ? null : context.get(key);
+    }
+
+    /**
+     * 上下文是 POJO 或 record 时通过 {@link MemberAccessor} 读取属性
+     */
+    public static Object getValue(Object context, String key) {
+        if (context instanceof Map<?, ?> map) {
+            return getValue(map, key);
+        }
+        return context == null || key == null ? null : MemberAccessor.getter(context.getClass(), key).apply(context);
+    }
+
+    /**
+     * @return 每个条目是包含 key 和 value 的上下文，顺序与原上下文一致
+     */
+    public static List<Map<String, Object>> getEntries(Map<?, ?> context) {
+        if (context == null) {
+            return null;
+        }
+        List<Map<String, Object>> entries = new ArrayList<>(context.size());
+        for (var entry : context.entrySet()) {
+            entries.add(entry(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * 上下文是 POJO 或 record 时按可读属性的顺序列出
+     */
+    public static List<Map<String, Object>> getEntries(Object context) {
+        if (context instanceof Map<?, ?> map) {
+            return getEntries(map);
+        }
+        if (context == null) {
+            return null;
+        }
+        Class<?> type = context.getClass();
+        Set<String> properties = ParserUtil.PROPERTY_READ.get(type).keySet();
+        List<Map<String, Object>> entries = new ArrayList<>(properties.size());
+        for (String property : properties) {
+            entries.add(entry(property, MemberAccessor.getter(type, property).apply(context)));
+        }
+        return entries;
+    }
+
+    private static Map<String, Object> entry(Object key, Object value) {
+        Map<String, Object> map = MapUtil.newLinkedHashMap(2);
+        map.put("key", key);
+        map.put("value", value);
+        return map;
+    }
+}
@@ -0,0 +1,93 @@
+package com.muyuanjin.feel.impl;
+
+import com.muyuanjin.feel.parser.ParserUtil;
+import lombok.experimental.UtilityClass;
+
+import java.math.BigDecimal;
+import java.time.*;
+
+/**
+ * 转换函数（表 72）和布尔函数（表 73）的运行时实现
+ *
+ * @author muyuanjin
+ */
+@UtilityClass
+public class ConversionFunctions {
+    public static LocalDateTime dateAndTime(String from) {
+        return from == null ? null : ParserUtil.parseDateTime(from);
+    }
+
+    public static LocalDateTime dateAndTime(LocalDate date, LocalTime time) {
+        return date == null || time == null ? null : LocalDateTime.of(date, time);
+    }
+
+    public static LocalTime time(String from) {
+        return from == null ? null : ParserUtil.parseTime(from);
+    }
+
+    public static LocalTime time(LocalDateTime from) {
+        return from == null ? null : from.toLocalTime();
+    }
+
+    public static LocalTime time(Integer hour, Integer minute, Integer second) {
+        return hour == null || minute == null || second == null ? null : LocalTime.of(hour, minute, second);
+    }
+
+    /**
+     * time 类型是 LocalTime，不保存时区偏移，offset 只校验不为 null
+     */
+    public static LocalTime time(Integer hour, Integer minute, Integer second, Duration offset) {
+        return offset == null ? null : time(hour, minute, second);
+    }
+
+    /**
+     * @param groupingSeparator 分组分隔符，只能是空格、逗号、点或 null
+     * @param decimalSeparator  小数点，只能是逗号、点或 null，且不能与分组分隔符相同
+     */
+    public static BigDecimal number(String from, String groupingSeparator, String decimalSeparator) {
+        if (from == null
+            || (groupingSeparator != null && !" ".equals(groupingSeparator) && !",".equals(groupingSeparator) && !".".equals(groupingSeparator))
+            || (decimalSeparator != null && !",".equals(decimalSeparator) && !".".equals(decimalSeparator))
+            || (groupingSeparator != null && groupingSeparator.equals(decimalSeparator))) {
+            return null;
+        }
+        String number = groupingSeparator == null ? from : from.replace(groupingSeparator, "");
+        if (decimalSeparator != null && !".".equals(decimalSeparator)) {
+            number = number.replace(decimalSeparator, ".");
+        }
+        try {
+            return new BigDecimal(number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String string(Object from) {
+        if (from == null || from instanceof String) {
+            return (String) from;
+        }
+        if (from instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return from.toString();
+    }
+
+    public static Duration duration(String from) {
+        return from == null ? null : ParserUtil.parseDuration(from);
+    }
+
+    public static Period yearsAndMonthsDuration(String from) {
+        return from == null ? null : ParserUtil.parsePeriod(from);
+    }
+
+    /**
+     * 两个日期之间的年月差，不足一个月的天数舍去
+     */
+    public static Period yearsAndMonthsDuration(LocalDate from, LocalDate to) {
+        return from == null || to == null ? null : Period.between(from, to).withDays(0).normalized();
+    }
+
+    public static Boolean not(Boolean negand) {
+        return negand == null ? null : !negand;
+    }
+}
@@ -1,22 +1,35 @@
 package com.muyuanjin.feel.impl;
 
-import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
 import com.muyuanjin.common.util.MapUtil;
+import com.muyuanjin.common.util.TypeUtil;
 import com.muyuanjin.feel.FeelFunctionFactory;
+import com.muyuanjin.feel.lang.FType;
 import com.muyuanjin.feel.lang.FeelFunction;
 import com.muyuanjin.feel.lang.FeelFunctions;
 import com.muyuanjin.feel.lang.ast.ASTNode;
-import com.muyuanjin.feel.lang.type.FDate;
-import com.muyuanjin.feel.lang.type.FFunction;
+import com.muyuanjin.feel.lang.type.*;
 import com.muyuanjin.feel.parser.ParserUtil;
 import com.muyuanjin.feel.translate.ClassManager;
+import com.muyuanjin.feel.translate.CodeGens;
 import com.muyuanjin.feel.translate.Context;
 import com.muyuanjin.feel.translate.JavaExpr;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 /**
  * @author muyuanjin
@@ -39,7 +52,7 @@ public class DefaultFeelFunctionFactory implements FeelFunctionFactory {
         ClassManager manager = ClassManager.instance(context);
         return switch (functions) {
             case date -> {
-                int index = functions.getFunctions().indexOf(function);
+                int index = overload(functions, function);
                 yield switch (index) {
                     case 0 ->
                             JavaExpr.of(node, manager.getStaticField(DefaultFeelFunctionFactory.class, "date0"), function.getJavaType(), true)
@@ -62,14 +75,21 @@ public class DefaultFeelFunctionFactory implements FeelFunctionFactory {
                 //TODO all functions
             }
             case sum -> {
-                int index = functions.getFunctions().indexOf(function);
+                int index = overload(functions, function);
                 yield switch (index) {
                     case 0 ->
                             JavaExpr.of(node, manager.getStaticField(DefaultFeelFunctionFactory.class, "sum0"), function.getJavaType(), true)
-                                    .inLineFun((classManager, args) -> classManager.getStaticMethod(DefaultFeelFunctionFactory.class, "sum").addArgument(args[0].expr()));
+                                    .inLineFun((classManager, args) -> {
+                                        Expression kernel = numericKernel(classManager, functions, index, args);
+                                        return kernel != null ? kernel : classManager.getStaticMethod(DefaultFeelFunctionFactory.class, "sum").addArgument(args[0].expr());
+                                    });
                     case 1 ->
                             JavaExpr.of(node, manager.getStaticField(DefaultFeelFunctionFactory.class, "sum1"), function.getJavaType(), true)
                                     .inLineFun((classManager, args) -> {
+                                        Expression kernel = numericKernel(classManager, functions, index, args);
+                                        if (kernel != null) {
+                                            return kernel;
+                                        }
                                         MethodCallExpr sum = classManager.getStaticMethod(DefaultFeelFunctionFactory.class, "sum");
                                         for (JavaExpr arg : args) {
                                             sum.addArgument(arg.expr());
@@ -79,10 +99,411 @@ public class DefaultFeelFunctionFactory implements FeelFunctionFactory {
                     default -> throw new IllegalStateException("Unexpected value: " + index);
                 };
             }
+            case sort -> {
+                int index = overload(functions, function);
+                FType elementType = function.getParamType(0);
+                if (index == 0) {
+                    elementType = FType.getElementType(elementType);
+                }
+                // 元素是基本类型的数字时直接按基本类型数组排序
+                String method = elementType instanceof FNumber number ? switch (number) {
+                    case INTEGER -> "sortInts";
+                    case LONG -> "sortLongs";
+                    case DOUBLE -> "sortDoubles";
+                    default -> "sort";
+                } : "sort";
+                yield switch (index) {
+                    case 0 -> listFunction(node, manager, "sort0", function,
+                            (classManager, args) -> classManager.getStaticMethod(ListFunctions.class, method).addArgument(args[0].expr()));
+                    case 1 -> listFunction(node, manager, "sort1", function, (classManager, args) -> {
+                        MethodCallExpr list = classManager.getStaticMethod(Arrays.class, "asList");
+                        for (JavaExpr arg : args) {
+                            list.addArgument(arg.expr());
+                        }
+                        return classManager.getStaticMethod(ListFunctions.class, method).addArgument(list);
+                    });
+                    case 2 -> listFunction(node, manager, "sort2", function, (classManager, args) ->
+                            classManager.getStaticMethod(ListFunctions.class, "sort").addArgument(args[0].expr()).addArgument(args[1].expr()));
+                    default -> throw new IllegalStateException("Unexpected value: " + index);
+                };
+            }
+            case min, max -> {
+                int index = overload(functions, function);
+                String name = functions.name();
+                yield switch (index) {
+                    case 0 -> listFunction(node, manager, name + "0", function,
+                            (classManager, args) -> classManager.getStaticMethod(ListFunctions.class, name).addArgument(args[0].expr()));
+                    case 1 -> listFunction(node, manager, name + "1", function, (classManager, args) -> {
+                        if (args.length == 1) {
+                            return args[0].expr();
+                        }
+                        // 参数直接传给固定参数个数的重载，不创建数组或列表
+                        MethodCallExpr extremum = classManager.getStaticMethod(ListFunctions.class, name);
+                        for (JavaExpr arg : args) {
+                            extremum.addArgument(arg.expr());
+                        }
+                        return extremum;
+                    });
+                    default -> throw new IllegalStateException("Unexpected value: " + index);
+                };
+            }
+            case distinct_values -> listFunction(node, manager, "distinctValues0", function,
+                    (classManager, args) -> classManager.getStaticMethod(ListFunctions.class, "distinctValues").addArgument(args[0].expr()));
+            case union -> listFunction(node, manager, "union0", function, (classManager, args) -> {
+                MethodCallExpr union = classManager.getStaticMethod(ListFunctions.class, "union");
+                for (JavaExpr arg : args) {
+                    union.addArgument(arg.expr());
+                }
+                return union;
+            });
+            case index_of -> listFunction(node, manager, "indexOf0", function,
+                    (classManager, args) -> classManager.getStaticMethod(ListFunctions.class, "indexOf").addArgument(args[0].expr()).addArgument(args[1].expr()));
+            default -> builtin(node, manager, functions, function);
+        };
+    }
+
+    /**
+     * 其余的内置函数：参数类型允许时直接调用 JDK 的方法，否则调用 ListFunctions 等运行时库中同名（驼峰形式）的静态方法
+     */
+    private static JavaExpr builtin(ASTNode node, ClassManager manager, FeelFunctions functions, FFunction function) {
+        int index = overload(functions, function);
+        if (index == -1) {
+            return null;
+        }
+        String name = functions.getName();
+        Method method = method(functions, index);
+        // 作为值使用时只在类初始化时查找一次，保存到生成类的静态字段
+        return JavaExpr.of(node, () -> manager.addStaticField(new VariableDeclarator(manager.getType(function.getJavaType()),
+                                name.replace(' ', '_'), manager.getStaticMethod(DefaultFeelFunctionFactory.class, "builtin")
+                                .addArgument(CodeGens.stringLiteral(name))
+                                .addArgument(new IntegerLiteralExpr(Integer.toString(index)))),
+                        DefaultFeelFunctionFactory.class, name + "#" + index), function.getJavaType(), true)
+                .inLineFun((classManager, args) -> {
+                    Expression call = numericKernel(classManager, functions, index, args);
+                    if (call == null) {
+                        call = jdkCall(classManager, functions, args);
+                    }
+                    return call != null ? call : libraryCall(classManager, method, function, args);
+                });
+    }
+
+    /**
+     * sum、mean、product 的元素静态类型是具体的数字类型时，直接调用 NumericFunctions 中该类型的实现，
+     * 只有 number 或 any 才走按实际类型分派的通用实现；不满足时返回 null
+     */
+    private static Expression numericKernel(ClassManager manager, FeelFunctions functions, int index, JavaExpr[] args) {
+        if (functions != FeelFunctions.sum && functions != FeelFunctions.mean && functions != FeelFunctions.product) {
+            return null;
+        }
+        FNumber elementType = null;
+        if (functions.getFunction(index).hasVarargs()) {
+            for (JavaExpr arg : args) {
+                if (!(arg.original().feelType() instanceof FNumber number) || (elementType != null && elementType != number)) {
+                    return null;
+                }
+                elementType = number;
+            }
+        } else if (FType.getElementType(args[0].original().feelType()) instanceof FNumber number) {
+            elementType = number;
+        }
+        String suffix = elementType == null ? null : switch (elementType) {
+            case INTEGER -> "Ints";
+            case LONG -> "Longs";
+            case DOUBLE -> "Doubles";
+            case BIG_DECIMAL -> "Decimals";
+            case NUMBER -> null;
+        };
+        if (suffix == null) {
+            return null;
+        }
+        MethodCallExpr call = manager.getStaticMethod(NumericFunctions.class, functions.name() + suffix);
+        if (!functions.getFunction(index).hasVarargs()) {
+            return call.addArgument(args[0].expr());
+        }
+        MethodCallExpr list = manager.getStaticMethod(Arrays.class, "asList");
+        for (JavaExpr arg : args) {
+            list.addArgument(arg.original().expr());
+        }
+        return call.addArgument(list);
+    }
+
+    private static Expression libraryCall(ClassManager manager, Method method, FFunction function, JavaExpr[] args) {
+        MethodCallExpr call = manager.getStaticMethod(method.getDeclaringClass(), method.getName());
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            Class<?> parameterType = method.isVarArgs() && i >= parameterTypes.length - 1
+                    ? parameterTypes[parameterTypes.length - 1].getComponentType() : parameterTypes[i];
+            call.addArgument(argument(manager, args[i], parameterType));
+        }
+        Type returnType = function.getReturnType().getWrappedJavaType();
+        return returnType.equals(method.getReturnType()) ? call : manager.castTo(returnType, call);
+    }
+
+    /**
+     * 静态类型不能直接传给参数的（包括 null 字面量，避免重载的歧义）先强转
+     */
+    private static Expression argument(ClassManager manager, JavaExpr arg, Class<?> parameterType) {
+        Class<?> argType = rawClass(arg.javaType());
+        if (argType != void.class && parameterType.isAssignableFrom(TypeUtil.primitiveToWrapper(argType))) {
+            return arg.expr();
+        }
+        if (argType != void.class && argType.isPrimitive() && TypeUtil.isPrimitiveWrapper(parameterType)) {
+            return manager.castTo(TypeUtil.wrapperToPrimitive(parameterType), arg.expr());
+        }
+        return manager.castTo(parameterType, arg.expr());
+    }
+
+    /**
+     * 参数类型已知且不为 null 时可以直接调用的 JDK 方法，没有时返回 null
+     */
+    private static Expression jdkCall(ClassManager manager, FeelFunctions functions, JavaExpr[] args) {
+        return switch (functions) {
+            case string_length -> nonNull(args, 1) && args[0].isSimple()
+                    ? new MethodCallExpr(scope(args[0]), "codePointCount").addArgument(new IntegerLiteralExpr("0"))
+                    .addArgument(new MethodCallExpr(scope(args[0]), "length")) : null;
+            case upper_case, lower_case -> nonNull(args, 1)
+                    ? new MethodCallExpr(scope(args[0]), functions == FeelFunctions.upper_case ? "toUpperCase" : "toLowerCase")
+                    .addArgument(manager.getStaticField(Locale.class, "ROOT")) : null;
+            case contains, starts_with, ends_with -> nonNull(args, 2)
+                    ? new MethodCallExpr(scope(args[0]), methodName(functions.getName())).addArgument(args[1].expr()) : null;
+            case matches, replace, split -> regex(manager, functions, args);
+            case string -> nonNull(args, 1) && args[0].javaType() == String.class ? args[0].expr() : null;
+            case not -> args[0].javaType() == boolean.class ? new UnaryExpr(scope(args[0]), UnaryExpr.Operator.LOGICAL_COMPLEMENT) : null;
+            case count -> nonNull(args, 1) ? new MethodCallExpr(scope(args[0]), "size") : null;
+            case list_contains -> {
+                // 数字、列表等需要按 FEEL 的规则判断相等，其余类型的 equals 与 FEEL 一致
+                FType elementType = FType.getElementType(args[0].feelType());
+                boolean plainEquals = elementType instanceof FString || elementType instanceof FBoolean
+                                      || elementType instanceof FDate || elementType instanceof FDateTime || elementType instanceof FTime;
+                yield plainEquals && nonNull(args, 2) ? new MethodCallExpr(scope(args[0]), "contains").addArgument(args[1].expr()) : null;
+            }
+            case floor, ceiling -> {
+                // 整数取整后不变；double 和 BigDecimal 超出 long 范围时结果是 BigDecimal，交给 NumericFunctions
+                Type type = args[0].javaType();
+                if (type == int.class || type == long.class) {
+                    yield manager.getStaticMethod(type == int.class ? Integer.class : Long.class, "valueOf").addArgument(args[0].expr());
+                }
+                yield null;
+            }
+            case decimal -> args[0].javaType() == BigDecimal.class && args[1].javaType() == int.class && nonNull(args, 1)
+                    ? new MethodCallExpr(scope(args[0]), "setScale").addArgument(args[1].expr())
+                    .addArgument(manager.getStaticField(RoundingMode.class, RoundingMode.HALF_EVEN.name())) : null;
+            case abs -> {
+                Type type = args[0].javaType();
+                if (type == int.class || type == long.class) {
+                    // 只有 MIN_VALUE 的绝对值会溢出，不能确定参数不是 MIN_VALUE 时交给 NumericFunctions 扩大结果类型
+                    if (!nonNegativeLiteral(args[0].expr())) {
+                        yield manager.getStaticMethod(NumericFunctions.class, "abs").addArgument(args[0].expr());
+                    }
+                    yield manager.getStaticMethod(type == int.class ? Integer.class : Long.class, "valueOf")
+                            .addArgument(manager.getStaticMethod(Math.class, "absExact").addArgument(args[0].expr()));
+                }
+                if (type == double.class) {
+                    yield manager.getStaticMethod(Math.class, "abs").addArgument(args[0].expr());
+                }
+                yield (type == BigDecimal.class || type == Duration.class) && nonNull(args, 1) ? new MethodCallExpr(scope(args[0]), "abs") : null;
+            }
+            case odd, even -> args[0].javaType() == int.class || args[0].javaType() == long.class
+                    ? new BinaryExpr(new EnclosedExpr(new BinaryExpr(scope(args[0]), new IntegerLiteralExpr("1"), BinaryExpr.Operator.BINARY_AND)),
+                    new IntegerLiteralExpr("0"), functions == FeelFunctions.odd ? BinaryExpr.Operator.NOT_EQUALS : BinaryExpr.Operator.EQUALS) : null;
+            case get_value, get_entries -> {
+                if (Map.class.isAssignableFrom(rawClass(args[0].javaType()))) {
+                    yield functions == FeelFunctions.get_value && nonNull(args, 2)
+                            ? new MethodCallExpr(scope(args[0]), "get").addArgument(args[1].expr()) : null;
+                }
+                // 上下文的 Java 类型是 POJO 或 record 时不能当作 Map，按 Object 调用通过 MemberAccessor 读取
+                MethodCallExpr call = manager.getStaticMethod(ContextFunctions.class, methodName(functions.getName()))
+                        .addArgument(manager.castTo(Object.class, args[0].expr()));
+                yield functions == FeelFunctions.get_value ? call.addArgument(args[1].expr()) : call;
+            }
             default -> null;
         };
     }
 
+    /**
+     * 正则表达式和标志都是字面量时，编译好的 Pattern 保存到生成类的静态字段
+     */
+    private static Expression regex(ClassManager manager, FeelFunctions functions, JavaExpr[] args) {
+        int flagsIndex = functions == FeelFunctions.replace ? 3 : functions == FeelFunctions.matches ? 2 : -1;
+        boolean hasFlags = flagsIndex != -1 && flagsIndex < args.length;
+        if (!(args[1].expr() instanceof StringLiteralExpr regex)
+            || (hasFlags && !(args[flagsIndex].expr() instanceof StringLiteralExpr))
+            || !nonNull(args, functions == FeelFunctions.replace ? 3 : 1)) {
+            return null;
+        }
+        Expression flags = hasFlags ? args[flagsIndex].expr() : new NullLiteralExpr();
+        String flagsValue = flags instanceof StringLiteralExpr literal ? literal.asString() : null;
+        try {
+            Pattern.compile(regex.asString(), StringFunctions.flags(flagsValue));
+        } catch (IllegalArgumentException e) {
+            // 表达式无效时在运行时按同样的方式报错
+            return null;
+        }
+        NameExpr pattern = manager.addStaticField(new VariableDeclarator(manager.getClassType(Pattern.class), "pattern",
+                        manager.getStaticMethod(StringFunctions.class, "pattern").addArgument(regex.clone()).addArgument(flags.clone())),
+                Pattern.class, flagsValue + "/" + regex.asString());
+        return switch (functions) {
+            case matches -> new MethodCallExpr(new MethodCallExpr(pattern, "matcher").addArgument(args[0].expr()), "find");
+            case replace -> new MethodCallExpr(new MethodCallExpr(pattern, "matcher").addArgument(args[0].expr()), "replaceAll").addArgument(args[2].expr());
+            default -> manager.getStaticMethod(Arrays.class, "asList")
+                    .addArgument(new MethodCallExpr(pattern, "split").addArgument(args[0].expr()).addArgument(new IntegerLiteralExpr("-1")));
+        };
+    }
+
+    /**
+     * 作为方法调用的对象或一元运算的操作数时，不是简单表达式的加上括号
+     */
+    private static Expression scope(JavaExpr arg) {
+        Expression expr = arg.expr();
+        return expr instanceof NameExpr || expr instanceof MethodCallExpr || expr instanceof FieldAccessExpr
+               || expr instanceof EnclosedExpr || expr instanceof LiteralExpr ? expr : new EnclosedExpr(expr);
+    }
+
+    private static boolean nonNegativeLiteral(Expression expr) {
+        return (expr instanceof IntegerLiteralExpr || expr instanceof LongLiteralExpr)
+               && !((LiteralStringValueExpr) expr).getValue().startsWith("-");
+    }
+
+    private static boolean nonNull(JavaExpr[] args, int count) {
+        for (int i = 0; i < count && i < args.length; i++) {
+            if (args[i].nullable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final Map<String, FeelFunction<?>> builtins = new ConcurrentHashMap<>();
+
+    /**
+     * 内置函数作为值使用时的实现，直接调用运行时库中对应的方法
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> FeelFunction<R> builtin(String name, int index) {
+        FeelFunctions functions = FeelFunctions.from(name);
+        if (functions == null) {
+            throw new IllegalArgumentException("No such function: " + name);
+        }
+        return (FeelFunction<R>) builtins.computeIfAbsent(name + "#" + index, key -> {
+            Method method = method(functions, index);
+            Function<Object[], Object> invoker = UtilFeelFunctionFactory.invoker(method);
+            if (method.isVarArgs()) {
+                // 变长参数打包成方法需要的数组
+                int fixed = method.getParameterCount() - 1;
+                Class<?> componentType = method.getParameterTypes()[fixed].getComponentType();
+                Function<Object[], Object> spread = invoker;
+                invoker = args -> {
+                    Object[] packed = Arrays.copyOf(args, fixed + 1);
+                    Object varargs = Array.newInstance(componentType, Math.max(0, args.length - fixed));
+                    System.arraycopy(args, fixed, varargs, 0, Array.getLength(varargs));
+                    packed[fixed] = varargs;
+                    return spread.apply(packed);
+                };
+            }
+            return new FeelFunction.Default<>(functions.getFunction(index), invoker);
+        });
+    }
+
+    /**
+     * 运行时库中实现内置函数的方法：函数名的驼峰形式，参数类型能接收声明的参数类型
+     */
+    static Method method(FeelFunctions functions, int index) {
+        Class<?> library = switch (functions) {
+            case date_and_time, time, number, string, duration, years_and_months_duration, not -> ConversionFunctions.class;
+            case substring, string_length, upper_case, lower_case, substring_before, substring_after, replace, contains,
+                 starts_with, ends_with, matches, split -> StringFunctions.class;
+            case mean, product, median, stddev, mode, decimal, floor, ceiling, abs, modulo, sqrt, log, exp, odd, even ->
+                    NumericFunctions.class;
+            case is, day_of_year, day_of_week, month_of_year, week_of_year -> TemporalFunctions.class;
+            case before, after, meets, met_by, overlaps, overlaps_before, overlaps_after, finishes, finished_by, starts,
+                 started_by, coincides -> RangeFunctions.class;
+            case get_value, get_entries -> ContextFunctions.class;
+            default -> ListFunctions.class;
+        };
+        String name = methodName(functions.getName());
+        List<FType> types = functions.getFunction(index).getParameterTypes();
+        Class<?>[] parameterTypes = new Class<?>[types.size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            FType type = types.get(i);
+            parameterTypes[i] = type instanceof FList list && list.isVarargs()
+                    ? rawClass(list.getElementType().getWrappedJavaType()).arrayType() : rawClass(type.getWrappedJavaType());
+        }
+        try {
+            return library.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            out:
+            for (Method method : library.getMethods()) {
+                if (!method.getName().equals(name) || method.getParameterCount() != parameterTypes.length) {
+                    continue;
+                }
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    if (!method.getParameterTypes()[i].isAssignableFrom(parameterTypes[i])) {
+                        continue out;
+                    }
+                }
+                return method;
+            }
+            throw new IllegalStateException("No implementation for function: " + functions.getName() + " at index " + index, e);
+        }
+    }
+
+    /**
+     * "string length" -> "stringLength"
+     */
+    private static String methodName(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        boolean upper = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ' ') {
+                upper = true;
+            } else {
+                builder.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return clazz;
+        }
+        if (type instanceof ParameterizedType parameterizedType && parameterizedType.getRawType() instanceof Class<?> clazz) {
+            return clazz;
+        }
+        return Object.class;
+    }
+
+    /**
+     * 泛型函数（比如 min 的 A）传入的是绑定了具体类型的签名，与声明的不相等，此时按参数个数和是否变长参数找到声明的重载
+     */
+    static int overload(FeelFunctions functions, FFunction function) {
+        List<FFunction> declared = functions.getFunctions();
+        int index = declared.indexOf(function);
+        if (index != -1) {
+            return index;
+        }
+        int paramCount = function.getParamCount();
+        for (int i = 0; i < declared.size(); i++) {
+            FFunction candidate = declared.get(i);
+            if (candidate.getParamCount() == paramCount && (paramCount == 0 || candidate.hasVarargs() == function.hasVarargs())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 列表函数的参数和返回值是泛型的，函数值和内联调用的结果都强转为绑定后的类型
+     */
+    private static JavaExpr listFunction(ASTNode node, ClassManager manager, String field, FFunction function,
+                                         BiFunction<ClassManager, JavaExpr[], Expression> inLine) {
+        Expression value = manager.castTo(function.getJavaType(), manager.getStaticField(DefaultFeelFunctionFactory.class, field));
+        return JavaExpr.of(node, value, function.getJavaType(), true)
+                .inLineFun((classManager, args) -> classManager.castTo(function.getReturnType().getWrappedJavaType(), inLine.apply(classManager, args)));
+    }
+
     public static final Map<String, Set<FFunction>> functions;
 
     static {
@@ -111,41 +532,47 @@ public class DefaultFeelFunctionFactory implements FeelFunctionFactory {
     public static final FeelFunction<Number> sum1 = new FeelFunction.Default<>(FeelFunctions.sum.getFunction(0),
             args -> sum((List) Arrays.asList(args)));
 
+    public static final FeelFunction<?> sort0 = new FeelFunction.Of1<>(FeelFunctions.sort.getFunction(0),
+            list -> ListFunctions.sort((List<?>) list));
+
+    public static final FeelFunction<?> sort1 = new FeelFunction.Default<>(FeelFunctions.sort.getFunction(1),
+            args -> ListFunctions.sort(Arrays.asList(args)));
+
+    public static final FeelFunction<?> sort2 = new FeelFunction.Of2<>(FeelFunctions.sort.getFunction(2),
+            (list, precedes) -> ListFunctions.sort((List<?>) list, (FeelFunction<?>) precedes));
+
+    public static final FeelFunction<?> min0 = new FeelFunction.Of1<>(FeelFunctions.min.getFunction(0),
+            list -> ListFunctions.min((List<?>) list));
+
+    public static final FeelFunction<?> min1 = new FeelFunction.Default<>(FeelFunctions.min.getFunction(1),
+            args -> ListFunctions.min(Arrays.asList(args)));
+
+    public static final FeelFunction<?> max0 = new FeelFunction.Of1<>(FeelFunctions.max.getFunction(0),
+            list -> ListFunctions.max((List<?>) list));
+
+    public static final FeelFunction<?> max1 = new FeelFunction.Default<>(FeelFunctions.max.getFunction(1),
+            args -> ListFunctions.max(Arrays.asList(args)));
+
+    public static final FeelFunction<?> distinctValues0 = new FeelFunction.Of1<>(FeelFunctions.distinct_values.getFunction(0),
+            list -> ListFunctions.distinctValues((List<?>) list));
+
+    public static final FeelFunction<?> union0 = new FeelFunction.Default<>(FeelFunctions.union.getFunction(0),
+            args -> ListFunctions.union(Arrays.copyOf(args, args.length, List[].class)));
+
+    public static final FeelFunction<?> indexOf0 = new FeelFunction.Of2<>(FeelFunctions.index_of.getFunction(0),
+            (list, match) -> ListFunctions.indexOf((List<?>) list, match));
+
     public static Number sum(Number... numbers) {
         return sum(Arrays.asList(numbers));
     }
 
+    /**
+     * 元素类型在编译时未知时使用，按元素的实际类型分派到 {@link NumericFunctions#sum(List)}
+     */
     public static Number sum(Collection<? extends Number> numbers) {
-        BigDecimal bigDecimalSum = BigDecimal.ZERO;
-        double doubleSum = 0.0;
-        long longSum = 0;
-        boolean hasLong = false;
-
-        for (Number number : numbers) {
-            if (number instanceof BigDecimal bigDecimal) {
-                bigDecimalSum = bigDecimalSum.add(bigDecimal);
-            } else if (number instanceof Double || number instanceof Float) {
-                doubleSum += number.doubleValue();
-            } else if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
-                hasLong |= number instanceof Long;
-                longSum += number.longValue();
-            } else {
-                doubleSum += number.doubleValue();
-            }
-        }
-
-        if (bigDecimalSum.compareTo(BigDecimal.ZERO) != 0) {
-            if (doubleSum != 0.0) {
-                bigDecimalSum = bigDecimalSum.add(BigDecimal.valueOf(doubleSum));
-            }
-            if (longSum != 0) {
-                bigDecimalSum = bigDecimalSum.add(BigDecimal.valueOf(longSum));
-            }
-            return bigDecimalSum;
-        }
-        if (doubleSum != 0.0) {
-            return doubleSum + longSum;
+        if (numbers == null) {
+            return null;
         }
-        return (hasLong || longSum > Integer.MAX_VALUE) ? longSum : (int) longSum;
+        return NumericFunctions.sum(numbers instanceof List<? extends Number> list ? list : new ArrayList<>(numbers));
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
 import com.github.javaparser.ast.stmt.ForStmt;
 import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.PrimitiveType;
 import com.github.javaparser.ast.type.Type;
 import com.muyuanjin.common.util.DateUtil;
@@ -17,6 +18,7 @@ import com.muyuanjin.feel.lang.FeelFunction;
 import com.muyuanjin.feel.lang.ast.ASTNode;
 import com.muyuanjin.feel.lang.ast.InfixOpNode;
 import com.muyuanjin.feel.lang.type.*;
+import com.muyuanjin.feel.parser.MemberAccessor;
 import com.muyuanjin.feel.parser.ParserUtil;
 import com.muyuanjin.feel.translate.*;
 import lombok.extern.slf4j.Slf4j;
@@ -339,9 +341,11 @@ public class DefaultFeelTypeFactory implements FeelTypeFactory {
         if (sourceType instanceof FNumber || sourceType instanceof FBoolean) {
             return null;
         }
-        //null or any
-        return manager.getStaticMethod(ParserUtil.class, "accessMember")
-                .addArgument(expr).addArgument(CodeGens.stringLiteral(member));
+        //null or any，每个访问点一个按接收者类型缓存读取函数的 MemberAccessor
+        ClassOrInterfaceType accessorType = manager.getClassType(MemberAccessor.class);
+        NameExpr accessor = manager.addStaticField(new VariableDeclarator(accessorType, "access_" + member,
+                new ObjectCreationExpr(null, accessorType, NodeList.nodeList(CodeGens.stringLiteral(member)))));
+        return new MethodCallExpr(accessor, "get").addArgument(expr);
     }
 
     @Override
@@ -456,8 +460,8 @@ public class DefaultFeelTypeFactory implements FeelTypeFactory {
         return end.doubleValue() > current.doubleValue();
     }
 
-    public static final Function<List<?>, FeelFunction<Boolean>> list0 = list -> new FeelFunction.Default<>(
+    public static final Function<List<?>, FeelFunction<Boolean>> list0 = list -> new FeelFunction.OfBoolean1(
             FFunction.of(FBoolean.BOOLEAN, FAny.ANY),
-            args -> list.contains(args[0])
+            list::contains
     );
 }
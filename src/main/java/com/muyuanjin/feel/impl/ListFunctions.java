@@ -0,0 +1,544 @@
+package com.muyuanjin.feel.impl;
+
+import com.muyuanjin.feel.lang.FeelFunction;
+import com.muyuanjin.feel.lang.NumberList;
+import lombok.experimental.UtilityClass;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 列表内置函数的运行时实现，生成的代码直接调用
+ * <p>
+ * 比较和相等都按 FEEL 的语义：不同类型的数字按数值比较，{@code 1}、{@code 1L}、{@code 1.0} 是同一个值；
+ * 不能互相比较的元素使结果为 null
+ *
+ * @author muyuanjin
+ */
+@UtilityClass
+public class ListFunctions {
+    /**
+     * 比较过程中遇到不能互相比较的元素
+     */
+    private static final Object INCOMPARABLE = new Object();
+
+    /**
+     * 自然排序，元素全是 Integer、Long 或 Double 时使用基本类型数组排序
+     */
+    public static List<?> sort(List<?> list) {
+        if (list == null) {
+            return null;
+        }
+        if (list instanceof NumberList.OfInt) {
+            return sortInts(list);
+        }
+        if (list instanceof NumberList.OfLong) {
+            return sortLongs(list);
+        }
+        if (list instanceof NumberList.OfDouble) {
+            return sortDoubles(list);
+        }
+        Object first = list.isEmpty() ? null : list.get(0);
+        if (first instanceof Integer) {
+            return sortInts(list);
+        }
+        if (first instanceof Long) {
+            return sortLongs(list);
+        }
+        if (first instanceof Double) {
+            return sortDoubles(list);
+        }
+        return sortObjects(list);
+    }
+
+    /**
+     * 元素类型在编译期已知为 int 时使用，遇到其他元素时退回 {@link #sort(List)} 的通用排序
+     */
+    public static List<?> sortInts(List<?> list) {
+        if (list == null) {
+            return null;
+        }
+        int[] values = new int[list.size()];
+        if (list instanceof NumberList.OfInt ints) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ints.getInt(i);
+            }
+        } else {
+            int i = 0;
+            for (Object value : list) {
+                if (!(value instanceof Integer number)) {
+                    return sortObjects(list);
+                }
+                values[i++] = number;
+            }
+        }
+        Arrays.sort(values);
+        return new NumberList.OfInt(values);
+    }
+
+    public static List<?> sortLongs(List<?> list) {
+        if (list == null) {
+            return null;
+        }
+        long[] values = new long[list.size()];
+        if (list instanceof NumberList.OfLong longs) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = longs.getLong(i);
+            }
+        } else {
+            int i = 0;
+            for (Object value : list) {
+                if (!(value instanceof Long || value instanceof Integer)) {
+                    return sortObjects(list);
+                }
+                values[i++] = ((Number) value).longValue();
+            }
+        }
+        Arrays.sort(values);
+        return new NumberList.OfLong(values);
+    }
+
+    public static List<?> sortDoubles(List<?> list) {
+        if (list == null) {
+            return null;
+        }
+        double[] values = new double[list.size()];
+        if (list instanceof NumberList.OfDouble doubles) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = doubles.getDouble(i);
+            }
+        } else {
+            int i = 0;
+            for (Object value : list) {
+                if (!(value instanceof Double number)) {
+                    return sortObjects(list);
+                }
+                values[i++] = number;
+            }
+        }
+        Arrays.sort(values);
+        return new NumberList.OfDouble(values);
+    }
+
+    /**
+     * 按 precedes(a, b) 排序，precedes 返回 true 表示 a 排在 b 前面
+     * <p>
+     * precedes 不一定满足 {@link Comparator} 的约定（比如 {@code x <= y}），所以不用 {@link List#sort}，
+     * 而是只依赖 precedes 的稳定归并排序
+     */
+    public static List<?> sort(List<?> list, FeelFunction<?> precedes) {
+        if (list == null || precedes == null) {
+            return null;
+        }
+        Object[] values = list.toArray();
+        Object[] buffer = new Object[values.length];
+        for (int width = 1; width < values.length; width <<= 1) {
+            for (int low = 0; low < values.length - width; low += width << 1) {
+                merge(values, buffer, low, low + width, Math.min(low + (width << 1), values.length), precedes);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    private static void merge(Object[] values, Object[] buffer, int low, int mid, int high, FeelFunction<?> precedes) {
+        System.arraycopy(values, low, buffer, low, high - low);
+        int i = low;
+        int j = mid;
+        for (int k = low; k < high; k++) {
+            values[k] = i < mid && (j >= high || !strictlyPrecedes(buffer[j], buffer[i], precedes)) ? buffer[i++] : buffer[j++];
+        }
+    }
+
+    /**
+     * a 严格排在 b 前面；precedes 对相等的元素返回 true（比如 {@code x <= y}）时也保持原有顺序
+     */
+    private static boolean strictlyPrecedes(Object a, Object b, FeelFunction<?> precedes) {
+        return precedes.invokeBoolean2(a, b) && !precedes.invokeBoolean2(b, a);
+    }
+
+    private static List<?> sortObjects(List<?> list) {
+        Object first = null;
+        for (Object value : list) {
+            if (value == null || (first != null && !comparable(first, value))) {
+                return null;
+            }
+            first = value;
+        }
+        List<Object> result = new ArrayList<>(list);
+        result.sort(ListFunctions::compare);
+        return result;
+    }
+
+    /**
+     * 单次遍历求最小值，null 元素不参与比较，列表为空时结果为 null
+     */
+    public static Object min(List<?> list) {
+        return extremum(list, 1);
+    }
+
+    public static Object min(Object a, Object b) {
+        return result(better(better(null, a, 1), b, 1));
+    }
+
+    public static Object min(Object a, Object b, Object c) {
+        return result(better(better(better(null, a, 1), b, 1), c, 1));
+    }
+
+    public static Object min(Object... values) {
+        return extremum(Arrays.asList(values), 1);
+    }
+
+    public static Object max(List<?> list) {
+        return extremum(list, -1);
+    }
+
+    public static Object max(Object a, Object b) {
+        return result(better(better(null, a, -1), b, -1));
+    }
+
+    public static Object max(Object a, Object b, Object c) {
+        return result(better(better(better(null, a, -1), b, -1), c, -1));
+    }
+
+    public static Object max(Object... values) {
+        return extremum(Arrays.asList(values), -1);
+    }
+
+    /**
+     * @param sign 1 求最小值，-1 求最大值
+     */
+    private static Object extremum(List<?> list, int sign) {
+        if (list == null) {
+            return null;
+        }
+        if (list instanceof NumberList.OfInt ints) {
+            if (ints.isEmpty()) {
+                return null;
+            }
+            int result = ints.getInt(0);
+            for (int i = 1; i < ints.size(); i++) {
+                int value = ints.getInt(i);
+                result = sign > 0 ? Math.min(result, value) : Math.max(result, value);
+            }
+            return result;
+        }
+        Object result = null;
+        if (list instanceof RandomAccess) {
+            for (int i = 0; i < list.size() && result != INCOMPARABLE; i++) {
+                result = better(result, list.get(i), sign);
+            }
+        } else {
+            for (Object value : list) {
+                result = better(result, value, sign);
+            }
+        }
+        return result(result);
+    }
+
+    private static Object better(Object current, Object value, int sign) {
+        if (current == INCOMPARABLE || value == null) {
+            return current;
+        }
+        if (current == null) {
+            return value;
+        }
+        if (!comparable(current, value)) {
+            return INCOMPARABLE;
+        }
+        return Integer.signum(compare(value, current)) * sign < 0 ? value : current;
+    }
+
+    private static Object result(Object value) {
+        return value == INCOMPARABLE ? null : value;
+    }
+
+    /**
+     * 按 FEEL 相等去重，保留第一次出现的元素和原有顺序
+     */
+    public static List<?> distinctValues(List<?> list) {
+        if (list == null) {
+            return null;
+        }
+        Set<Object> seen = new HashSet<>();
+        List<Object> result = new ArrayList<>();
+        for (Object value : list) {
+            if (seen.add(key(value))) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 合并多个列表并按 FEEL 相等去重，任一列表为 null 时结果为 null
+     */
+    public static List<?> union(List<?>... lists) {
+        Set<Object> seen = new HashSet<>();
+        List<Object> result = new ArrayList<>();
+        for (List<?> list : lists) {
+            if (list == null) {
+                return null;
+            }
+            for (Object value : list) {
+                if (seen.add(key(value))) {
+                    result.add(value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return match 在列表中出现的所有位置，从 1 开始
+     */
+    public static List<Integer> indexOf(List<?> list, Object match) {
+        if (list == null) {
+            return null;
+        }
+        NumberList.OfInt result = new NumberList.OfInt();
+        Object key = key(match);
+        int index = 1;
+        for (Object value : list) {
+            if (Objects.equals(key, key(value))) {
+                result.add(index);
+            }
+            index++;
+        }
+        return result;
+    }
+
+    public static Boolean listContains(List<?> list, Object element) {
+        if (list == null) {
+            return null;
+        }
+        if (element != null && !(element instanceof Number) && !(element instanceof List<?>)) {
+            return list.contains(element);
+        }
+        Object key = key(element);
+        for (Object value : list) {
+            if (Objects.equals(key, key(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static Integer count(List<?> list) {
+        return list == null ? null : list.size();
+    }
+
+    /**
+     * 有 false 时为 false，否则有非布尔值时为 null，空列表为 true
+     */
+    public static Boolean all(List<?> list) {
+        return list == null ? null : allOrAny(list, false);
+    }
+
+    public static Boolean all(Boolean... values) {
+        return allOrAny(Arrays.asList(values), false);
+    }
+
+    /**
+     * 有 true 时为 true，否则有非布尔值时为 null，空列表为 false
+     */
+    public static Boolean any(List<?> list) {
+        return list == null ? null : allOrAny(list, true);
+    }
+
+    public static Boolean any(Boolean... values) {
+        return allOrAny(Arrays.asList(values), true);
+    }
+
+    /**
+     * @param decisive 能直接决定结果的值，all 为 false，any 为 true
+     */
+    private static Boolean allOrAny(List<?> list, boolean decisive) {
+        boolean invalid = false;
+        for (Object value : list) {
+            if (value instanceof Boolean b) {
+                if (b == decisive) {
+                    return decisive;
+                }
+            } else {
+                invalid = true;
+            }
+        }
+        return invalid ? null : !decisive;
+    }
+
+    /**
+     * 融合后的下标访问：found 是循环中找到的第 index 个（从 1 开始）元素，
+     * 只有 count 个元素时和 {@link List#get(int)} 一样抛出越界异常
+     */
+    public static <T> T elementAt(T found, int index, int count) {
+        Objects.checkIndex(index - 1, count);
+        return found;
+    }
+
+    public static List<?> sublist(List<?> list, Integer start) {
+        return list == null ? null : sublist(list, start, list.size());
+    }
+
+    /**
+     * start 从 1 开始，负数表示从末尾开始数；超出范围时结果为 null
+     */
+    public static List<?> sublist(List<?> list, Integer start, Integer length) {
+        if (list == null || start == null || length == null || start == 0 || length < 0) {
+            return null;
+        }
+        int from = start > 0 ? start - 1 : list.size() + start;
+        if (from < 0 || from > list.size()) {
+            return null;
+        }
+        int to = (int) Math.min(list.size(), (long) from + length);
+        return new ArrayList<>(list.subList(from, to));
+    }
+
+    public static List<?> append(List<?> list, Object... items) {
+        if (list == null) {
+            return null;
+        }
+        List<Object> result = new ArrayList<>(list.size() + items.length);
+        result.addAll(list);
+        Collections.addAll(result, items);
+        return result;
+    }
+
+    public static List<?> concatenate(List<?>... lists) {
+        int size = 0;
+        for (List<?> list : lists) {
+            if (list == null) {
+                return null;
+            }
+            size += list.size();
+        }
+        List<Object> result = new ArrayList<>(size);
+        for (List<?> list : lists) {
+            result.addAll(list);
+        }
+        return result;
+    }
+
+    /**
+     * position 从 1 开始，负数表示从末尾开始数
+     */
+    public static List<?> insertBefore(List<?> list, Integer position, Object newItem) {
+        int index = position(list, position);
+        if (index < 0) {
+            return null;
+        }
+        List<Object> result = new ArrayList<>(list.size() + 1);
+        result.addAll(list);
+        result.add(index, newItem);
+        return result;
+    }
+
+    public static List<?> remove(List<?> list, Integer position) {
+        int index = position(list, position);
+        if (index < 0) {
+            return null;
+        }
+        List<Object> result = new ArrayList<>(list);
+        result.remove(index);
+        return result;
+    }
+
+    /**
+     * @return 从 0 开始的下标，位置无效时为 -1
+     */
+    private static int position(List<?> list, Integer position) {
+        if (list == null || position == null || position == 0) {
+            return -1;
+        }
+        int index = position > 0 ? position - 1 : list.size() + position;
+        return index < 0 || index >= list.size() ? -1 : index;
+    }
+
+    public static List<?> reverse(List<?> list) {
+        if (list == null) {
+            return null;
+        }
+        List<Object> result = new ArrayList<>(list);
+        Collections.reverse(result);
+        return result;
+    }
+
+    public static List<?> flatten(List<?> list) {
+        if (list == null) {
+            return null;
+        }
+        List<Object> result = new ArrayList<>(list.size());
+        flatten(list, result);
+        return result;
+    }
+
+    private static void flatten(List<?> list, List<Object> result) {
+        for (Object value : list) {
+            if (value instanceof List<?> nested) {
+                flatten(nested, result);
+            } else {
+                result.add(value);
+            }
+        }
+    }
+
+    static boolean comparable(Object a, Object b) {
+        return a instanceof Number ? b instanceof Number : a instanceof Comparable<?> && a.getClass() == b.getClass();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            if (isIntegral(x) && isIntegral(y)) {
+                return Long.compare(x.longValue(), y.longValue());
+            }
+            if (x instanceof Double && y instanceof Double) {
+                return Double.compare(x.doubleValue(), y.doubleValue());
+            }
+            return DefaultFeelTypeFactory.toBigDecimal(x).compareTo(DefaultFeelTypeFactory.toBigDecimal(y));
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+
+    /**
+     * 用作哈希去重的键：数值相等的数字得到相同的键，列表逐个元素转换
+     */
+    static Object key(Object value) {
+        if (value instanceof Number number) {
+            if (isIntegral(number)) {
+                return number.longValue();
+            }
+            BigDecimal decimal;
+            if (number instanceof Double || number instanceof Float) {
+                double d = number.doubleValue();
+                if (!Double.isFinite(d)) {
+                    return d;
+                }
+                decimal = BigDecimal.valueOf(d);
+            } else {
+                decimal = DefaultFeelTypeFactory.toBigDecimal(number);
+            }
+            decimal = decimal.stripTrailingZeros();
+            if (decimal.scale() <= 0) {
+                try {
+                    return decimal.longValueExact();
+                } catch (ArithmeticException e) {
+                    return decimal;
+                }
+            }
+            return decimal;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> keys = new ArrayList<>(list.size());
+            for (Object element : list) {
+                keys.add(key(element));
+            }
+            return keys;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,584 @@
+package com.muyuanjin.feel.impl;
+
+import com.muyuanjin.feel.impl.infix.NumberCalc;
+import com.muyuanjin.feel.lang.NumberList;
+import com.muyuanjin.feel.lang.type.FNumber;
+import lombok.experimental.UtilityClass;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Period;
+import java.util.*;
+
+/**
+ * 数值函数（表 76）以及列表的统计函数（mean、median、stddev、mode、product）的运行时实现
+ * <p>
+ * 参数或列表元素为 null 时结果为 null。sum、mean、product 按元素类型各有一组实现（Ints、Longs、Doubles、Decimals），
+ * 列表的元素类型在编译时已知时生成的代码直接调用对应的实现
+ *
+ * @author muyuanjin
+ */
+@UtilityClass
+public class NumericFunctions {
+    /**
+     * 按银行家舍入保留 scale 位小数
+     */
+    public static BigDecimal decimal(Number n, Integer scale) {
+        return n == null || scale == null ? null : DefaultFeelTypeFactory.toBigDecimal(n).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    public static Number floor(Number n) {
+        return round(n, RoundingMode.FLOOR);
+    }
+
+    public static Number ceiling(Number n) {
+        return round(n, RoundingMode.CEILING);
+    }
+
+    /**
+     * 结果在 int 范围内时为 Integer，在 long 范围内时为 Long，否则为 BigDecimal；整数原样返回
+     */
+    private static Number round(Number n, RoundingMode mode) {
+        if (n == null || ListFunctions.isIntegral(n)) {
+            return n;
+        }
+        if (n instanceof Double || n instanceof Float) {
+            double d = n.doubleValue();
+            if (!Double.isFinite(d)) {
+                return null;
+            }
+            d = mode == RoundingMode.FLOOR ? Math.floor(d) : Math.ceil(d);
+            // long 的范围是 [-2^63, 2^63)，2^63 本身转换时会被截断
+            if (d >= Long.MIN_VALUE && d < 0x1p63) {
+                return integral((long) d, false);
+            }
+            return new BigDecimal(d);
+        }
+        BigDecimal rounded = DefaultFeelTypeFactory.toBigDecimal(n).setScale(0, mode);
+        return rounded.unscaledValue().bitLength() < Long.SIZE ? integral(rounded.longValue(), false) : rounded;
+    }
+
+    public static Number abs(Number n) {
+        if (n instanceof Integer i) {
+            return abs(i.intValue());
+        }
+        if (n instanceof Long l) {
+            return abs(l.longValue());
+        }
+        if (n instanceof Double || n instanceof Float) {
+            return Math.abs(n.doubleValue());
+        }
+        return n == null ? null : DefaultFeelTypeFactory.toBigDecimal(n).abs();
+    }
+
+    /**
+     * Integer.MIN_VALUE 的绝对值超出 int 范围，结果为 Long
+     */
+    public static Number abs(int n) {
+        return n == Integer.MIN_VALUE ? (Number) (-(long) n) : (Number) Math.abs(n);
+    }
+
+    /**
+     * Long.MIN_VALUE 的绝对值超出 long 范围，结果为 BigDecimal
+     */
+    public static Number abs(long n) {
+        return n == Long.MIN_VALUE ? BigDecimal.valueOf(n).negate() : (Number) Math.abs(n);
+    }
+
+    public static Duration abs(Duration duration) {
+        return duration == null ? null : duration.abs();
+    }
+
+    public static Period abs(Period period) {
+        return period == null ? null : period.isNegative() ? period.negated() : period;
+    }
+
+    /**
+     * 余数的符号与除数相同，除数为 0 时结果为 null
+     */
+    public static Number modulo(Number dividend, Number divisor) {
+        if (dividend == null || divisor == null) {
+            return null;
+        }
+        if (ListFunctions.isIntegral(dividend) && ListFunctions.isIntegral(divisor)) {
+            long b = divisor.longValue();
+            if (b == 0) {
+                return null;
+            }
+            long result = Math.floorMod(dividend.longValue(), b);
+            return dividend instanceof Long || divisor instanceof Long ? (Number) result : (Number) (int) result;
+        }
+        BigDecimal a = DefaultFeelTypeFactory.toBigDecimal(dividend);
+        BigDecimal b = DefaultFeelTypeFactory.toBigDecimal(divisor);
+        if (b.signum() == 0) {
+            return null;
+        }
+        BigDecimal remainder = a.remainder(b, MathContext.DECIMAL128);
+        return remainder.signum() != 0 && remainder.signum() != b.signum() ? remainder.add(b) : remainder;
+    }
+
+    /**
+     * 负数的平方根为 null
+     */
+    public static Number sqrt(Number n) {
+        if (n == null || sign(n) < 0) {
+            return null;
+        }
+        if (n instanceof BigDecimal decimal) {
+            return decimal.sqrt(MathContext.DECIMAL128);
+        }
+        return Math.sqrt(n.doubleValue());
+    }
+
+    /**
+     * 自然对数，非正数为 null
+     */
+    public static Number log(Number n) {
+        return n == null || sign(n) <= 0 ? null : Math.log(n.doubleValue());
+    }
+
+    public static Number exp(Number n) {
+        return n == null ? null : Math.exp(n.doubleValue());
+    }
+
+    public static Boolean odd(Number n) {
+        Integer remainder = parity(n);
+        return remainder == null ? null : remainder != 0;
+    }
+
+    public static Boolean even(Number n) {
+        Integer remainder = parity(n);
+        return remainder == null ? null : remainder == 0;
+    }
+
+    /**
+     * @return 整数除以 2 的余数，不是整数时为 null
+     */
+    private static Integer parity(Number n) {
+        if (n == null) {
+            return null;
+        }
+        if (ListFunctions.isIntegral(n)) {
+            return (int) (n.longValue() & 1);
+        }
+        BigDecimal decimal = DefaultFeelTypeFactory.toBigDecimal(n);
+        if (decimal.signum() != 0 && decimal.stripTrailingZeros().scale() > 0) {
+            return null;
+        }
+        return decimal.remainder(BigDecimal.valueOf(2)).signum() == 0 ? 0 : 1;
+    }
+
+    private static int sign(Number n) {
+        if (ListFunctions.isIntegral(n)) {
+            return Long.signum(n.longValue());
+        }
+        if (n instanceof Double || n instanceof Float) {
+            return (int) Math.signum(n.doubleValue());
+        }
+        return DefaultFeelTypeFactory.toBigDecimal(n).signum();
+    }
+
+    /**
+     * 按元素的实际类型选择下面的某个 mean 实现
+     */
+    public static Number mean(List<? extends Number> list) {
+        FNumber kind = kind(list);
+        return kind == null ? null : switch (kind) {
+            case INTEGER -> meanInts(list);
+            case LONG -> meanLongs(list);
+            case DOUBLE -> meanDoubles(list);
+            default -> meanDecimals(list);
+        };
+    }
+
+    public static Number mean(Number... numbers) {
+        return mean(Arrays.asList(numbers));
+    }
+
+    public static Number meanInts(List<? extends Number> list) {
+        return divide(sumInts(list), list);
+    }
+
+    public static Number meanLongs(List<? extends Number> list) {
+        return divide(sumLongs(list), list);
+    }
+
+    public static Double meanDoubles(List<? extends Number> list) {
+        Double sum = sumDoubles(list);
+        return sum == null || list.isEmpty() ? null : sum / list.size();
+    }
+
+    public static Number meanDecimals(List<? extends Number> list) {
+        return divide(sumDecimals(list), list);
+    }
+
+    private static Number divide(Number sum, List<?> list) {
+        return sum == null || list.isEmpty() ? null : NumberCalc.divide(sum, list.size());
+    }
+
+    /**
+     * 按元素的实际类型选择下面的某个 sum 实现，元素类型在编译时未知的 sum 都经过这里
+     */
+    public static Number sum(List<? extends Number> list) {
+        FNumber kind = kind(list);
+        return kind == null ? null : switch (kind) {
+            case INTEGER -> sumInts(list);
+            case LONG -> sumLongs(list);
+            case DOUBLE -> sumDoubles(list);
+            default -> sumDecimals(list);
+        };
+    }
+
+    public static Number sum(Number... numbers) {
+        return sum(Arrays.asList(numbers));
+    }
+
+    /**
+     * 元素是 int 的列表求和，结果超出 int 范围时为 Long，超出 long 范围时为 BigDecimal
+     */
+    public static Number sumInts(List<? extends Number> list) {
+        if (list instanceof NumberList.OfInt ints) {
+            // int 的个数不会超过 2^31，累加到 long 不会溢出
+            long sum = 0;
+            for (int i = 0, size = ints.size(); i < size; i++) {
+                sum += ints.getInt(i);
+            }
+            return integral(sum, false);
+        }
+        return sumIntegral(list, false);
+    }
+
+    public static Number sumLongs(List<? extends Number> list) {
+        return sumIntegral(list, true);
+    }
+
+    private static Number sumIntegral(List<? extends Number> list, boolean isLong) {
+        if (list == null) {
+            return null;
+        }
+        long sum = 0;
+        try {
+            if (list instanceof NumberList.OfLong longs) {
+                for (int i = 0, size = longs.size(); i < size; i++) {
+                    sum = Math.addExact(sum, longs.getLong(i));
+                }
+                return sum;
+            }
+            for (Number number : list) {
+                if (number == null) {
+                    return null;
+                }
+                sum = Math.addExact(sum, number.longValue());
+            }
+        } catch (ArithmeticException e) {
+            return sumDecimals(list);
+        }
+        return integral(sum, isLong);
+    }
+
+    /**
+     * 元素是 double 的列表求和，用 Neumaier 补偿求和减小舍入误差的累积
+     */
+    public static Double sumDoubles(List<? extends Number> list) {
+        if (list == null) {
+            return null;
+        }
+        DoubleSum sum = new DoubleSum();
+        if (list instanceof NumberList.OfDouble doubles) {
+            for (int i = 0, size = doubles.size(); i < size; i++) {
+                sum.add(doubles.getDouble(i));
+            }
+            return sum.get();
+        }
+        for (Number number : list) {
+            if (number == null) {
+                return null;
+            }
+            sum.add(number.doubleValue());
+        }
+        return sum.get();
+    }
+
+    public static BigDecimal sumDecimals(List<? extends Number> list) {
+        if (list == null) {
+            return null;
+        }
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Number number : list) {
+            if (number == null) {
+                return null;
+            }
+            sum = sum.add(DefaultFeelTypeFactory.toBigDecimal(number), MathContext.DECIMAL128);
+        }
+        return sum;
+    }
+
+    /**
+     * 按元素的实际类型选择下面的某个 product 实现
+     */
+    public static Number product(List<? extends Number> list) {
+        FNumber kind = kind(list);
+        return kind == null ? null : switch (kind) {
+            case INTEGER -> productInts(list);
+            case LONG -> productLongs(list);
+            case DOUBLE -> productDoubles(list);
+            default -> productDecimals(list);
+        };
+    }
+
+    public static Number product(Number... numbers) {
+        return product(Arrays.asList(numbers));
+    }
+
+    /**
+     * 在 long 范围内直接相乘，溢出后改用 BigDecimal
+     */
+    public static Number productInts(List<? extends Number> list) {
+        return productIntegral(list, false);
+    }
+
+    public static Number productLongs(List<? extends Number> list) {
+        return productIntegral(list, true);
+    }
+
+    private static Number productIntegral(List<? extends Number> list, boolean isLong) {
+        if (list == null || list.isEmpty()) {
+            return null;
+        }
+        long product = 1;
+        try {
+            for (Number number : list) {
+                if (number == null) {
+                    return null;
+                }
+                product = Math.multiplyExact(product, number.longValue());
+            }
+        } catch (ArithmeticException e) {
+            return productDecimals(list);
+        }
+        return integral(product, isLong);
+    }
+
+    public static Double productDoubles(List<? extends Number> list) {
+        if (list == null || list.isEmpty()) {
+            return null;
+        }
+        double product = 1;
+        for (Number number : list) {
+            if (number == null) {
+                return null;
+            }
+            product *= number.doubleValue();
+        }
+        return product;
+    }
+
+    public static BigDecimal productDecimals(List<? extends Number> list) {
+        if (list == null || list.isEmpty()) {
+            return null;
+        }
+        BigDecimal product = BigDecimal.ONE;
+        for (Number number : list) {
+            if (number == null) {
+                return null;
+            }
+            product = product.multiply(DefaultFeelTypeFactory.toBigDecimal(number), MathContext.DECIMAL128);
+        }
+        return product;
+    }
+
+    /**
+     * 元素都是 int（short、byte）时为 INTEGER，都是整数时为 LONG，都是 double（float）时为 DOUBLE，否则为 BIG_DECIMAL；
+     * 列表或元素为 null 时为 null
+     */
+    private static FNumber kind(List<? extends Number> list) {
+        if (list == null) {
+            return null;
+        }
+        boolean ints = true;
+        boolean longs = true;
+        boolean doubles = true;
+        for (Number number : list) {
+            if (number == null) {
+                return null;
+            }
+            ints &= number instanceof Integer || number instanceof Short || number instanceof Byte;
+            longs &= ListFunctions.isIntegral(number);
+            doubles &= number instanceof Double || number instanceof Float;
+        }
+        return ints ? FNumber.INTEGER : longs ? FNumber.LONG : doubles ? FNumber.DOUBLE : FNumber.BIG_DECIMAL;
+    }
+
+    /**
+     * 逐个累加的 sum，生成的代码在循环中直接累加时使用，不需要先把元素收集成列表
+     * <p>
+     * kind 是元素在编译时已知的类型，结果与对应的 sumInts、sumLongs、sumDoubles、sumDecimals 一致
+     */
+    public static final class SumAccumulator {
+        private final FNumber kind;
+        private final DoubleSum doubleSum;
+        private long longSum;
+        /**
+         * BIG_DECIMAL 的和，或者整数的和超出 long 范围之后的和
+         */
+        private BigDecimal decimalSum;
+        private boolean hasNull;
+
+        public SumAccumulator(FNumber kind) {
+            if (kind == FNumber.NUMBER) {
+                throw new IllegalArgumentException("Sum element kind must be a concrete number type");
+            }
+            this.kind = kind;
+            this.doubleSum = kind == FNumber.DOUBLE ? new DoubleSum() : null;
+            this.decimalSum = kind == FNumber.BIG_DECIMAL ? BigDecimal.ZERO : null;
+        }
+
+        public void add(Number number) {
+            if (number == null) {
+                hasNull = true;
+                return;
+            }
+            switch (kind) {
+                case INTEGER, LONG -> {
+                    if (decimalSum == null) {
+                        try {
+                            longSum = Math.addExact(longSum, number.longValue());
+                            return;
+                        } catch (ArithmeticException e) {
+                            decimalSum = BigDecimal.valueOf(longSum);
+                        }
+                    }
+                    decimalSum = decimalSum.add(DefaultFeelTypeFactory.toBigDecimal(number), MathContext.DECIMAL128);
+                }
+                case DOUBLE -> doubleSum.add(number.doubleValue());
+                default -> decimalSum = decimalSum.add(DefaultFeelTypeFactory.toBigDecimal(number), MathContext.DECIMAL128);
+            }
+        }
+
+        public Number get() {
+            if (hasNull) {
+                return null;
+            }
+            return switch (kind) {
+                case INTEGER, LONG -> decimalSum != null ? decimalSum : integral(longSum, kind == FNumber.LONG);
+                case DOUBLE -> doubleSum.get();
+                default -> decimalSum;
+            };
+        }
+    }
+
+    private static Number integral(long value, boolean isLong) {
+        return isLong || value != (int) value ? (Number) value : (Number) (int) value;
+    }
+
+    /**
+     * Neumaier 补偿求和，compensation 累积每次相加丢失的低位
+     */
+    private static final class DoubleSum {
+        private double sum;
+        private double compensation;
+
+        void add(double value) {
+            double total = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - total) + value;
+            } else {
+                compensation += (value - total) + sum;
+            }
+            sum = total;
+        }
+
+        double get() {
+            return sum + compensation;
+        }
+    }
+
+    public static Number median(List<? extends Number> list) {
+        List<Number> sorted = sorted(list);
+        if (sorted == null || sorted.isEmpty()) {
+            return null;
+        }
+        int middle = sorted.size() / 2;
+        if (sorted.size() % 2 == 1) {
+            return sorted.get(middle);
+        }
+        return NumberCalc.divide(NumberCalc.add(sorted.get(middle - 1), sorted.get(middle)), 2);
+    }
+
+    public static Number median(Number... numbers) {
+        return median(Arrays.asList(numbers));
+    }
+
+    /**
+     * 样本标准差，少于两个元素时为 null
+     */
+    public static Number stddev(List<? extends Number> list) {
+        if (list == null || list.size() < 2 || hasNull(list)) {
+            return null;
+        }
+        BigDecimal mean = DefaultFeelTypeFactory.toBigDecimal(mean(list));
+        BigDecimal squares = BigDecimal.ZERO;
+        for (Number number : list) {
+            BigDecimal deviation = DefaultFeelTypeFactory.toBigDecimal(number).subtract(mean);
+            squares = squares.add(deviation.multiply(deviation));
+        }
+        return squares.divide(BigDecimal.valueOf(list.size() - 1), MathContext.DECIMAL128).sqrt(MathContext.DECIMAL128);
+    }
+
+    public static Number stddev(Number... numbers) {
+        return stddev(Arrays.asList(numbers));
+    }
+
+    /**
+     * 出现次数最多的值，按升序排列
+     */
+    public static List<Number> mode(List<? extends Number> list) {
+        if (list == null || hasNull(list)) {
+            return null;
+        }
+        Map<Object, Integer> counts = new HashMap<>();
+        Map<Object, Number> values = new HashMap<>();
+        int max = 0;
+        for (Number number : list) {
+            Object key = ListFunctions.key(number);
+            int count = counts.merge(key, 1, Integer::sum);
+            values.putIfAbsent(key, number);
+            max = Math.max(max, count);
+        }
+        List<Number> result = new ArrayList<>();
+        for (var entry : counts.entrySet()) {
+            if (entry.getValue() == max) {
+                result.add(values.get(entry.getKey()));
+            }
+        }
+        result.sort(ListFunctions::compare);
+        return result;
+    }
+
+    public static List<Number> mode(Number... numbers) {
+        return mode(Arrays.asList(numbers));
+    }
+
+    private static List<Number> sorted(List<? extends Number> list) {
+        if (list == null || hasNull(list)) {
+            return null;
+        }
+        List<Number> sorted = new ArrayList<>(list);
+        sorted.sort(ListFunctions::compare);
+        return sorted;
+    }
+
+    /**
+     * List.of 创建的列表不支持 contains(null)
+     */
+    private static boolean hasNull(List<?> list) {
+        for (Object value : list) {
+            if (value == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
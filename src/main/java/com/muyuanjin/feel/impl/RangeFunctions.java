@@ -0,0 +1,161 @@
+package com.muyuanjin.feel.impl;
+
+import com.muyuanjin.feel.lang.FeelRange;
+import lombok.experimental.UtilityClass;
+
+import java.util.function.BiPredicate;
+
+/**
+ * 范围函数（表 78）的运行时实现
+ * <p>
+ * 参数可以是点或范围，按实际类型区分；没有起点或终点的范围视为向负无穷或正无穷延伸。
+ * 参数为 null 或端点之间不能比较时结果为 null
+ *
+ * @author muyuanjin
+ */
+@UtilityClass
+public class RangeFunctions {
+    public static Boolean before(Object a, Object b) {
+        return test(a, b, RangeFunctions::isBefore);
+    }
+
+    public static Boolean after(Object a, Object b) {
+        return test(b, a, RangeFunctions::isBefore);
+    }
+
+    public static Boolean meets(Object a, Object b) {
+        return test(a, b, RangeFunctions::isMeets);
+    }
+
+    public static Boolean metBy(Object a, Object b) {
+        return test(b, a, RangeFunctions::isMeets);
+    }
+
+    public static Boolean overlaps(Object a, Object b) {
+        return test(a, b, RangeFunctions::isOverlaps);
+    }
+
+    public static Boolean overlapsBefore(Object a, Object b) {
+        return test(a, b, RangeFunctions::isOverlapsBefore);
+    }
+
+    public static Boolean overlapsAfter(Object a, Object b) {
+        return test(b, a, RangeFunctions::isOverlapsBefore);
+    }
+
+    public static Boolean finishes(Object a, Object b) {
+        return test(a, b, RangeFunctions::isFinishes);
+    }
+
+    public static Boolean finishedBy(Object a, Object b) {
+        return test(b, a, RangeFunctions::isFinishes);
+    }
+
+    public static Boolean starts(Object a, Object b) {
+        return test(a, b, RangeFunctions::isStarts);
+    }
+
+    public static Boolean startedBy(Object a, Object b) {
+        return test(b, a, RangeFunctions::isStarts);
+    }
+
+    public static Boolean coincides(Object a, Object b) {
+        return test(a, b, RangeFunctions::isCoincides);
+    }
+
+    private static Boolean test(Object a, Object b, BiPredicate<Object, Object> predicate) {
+        if (a == null || b == null) {
+            return null;
+        }
+        try {
+            return predicate.test(a, b);
+        } catch (ClassCastException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBefore(Object a, Object b) {
+        if (a instanceof FeelRange<?> r1) {
+            if (b instanceof FeelRange<?> r2) {
+                int c = compare(r1.end(), true, r2.start(), false);
+                return c < 0 || (c == 0 && (!r1.endInclusive() || !r2.startInclusive()));
+            }
+            int c = compare(r1.end(), true, b, false);
+            return c < 0 || (c == 0 && !r1.endInclusive());
+        }
+        if (b instanceof FeelRange<?> r2) {
+            int c = compare(a, false, r2.start(), false);
+            return c < 0 || (c == 0 && !r2.startInclusive());
+        }
+        return compare(a, false, b, false) < 0;
+    }
+
+    private static boolean isMeets(Object a, Object b) {
+        FeelRange<?> r1 = (FeelRange<?>) a;
+        FeelRange<?> r2 = (FeelRange<?>) b;
+        return r1.endInclusive() && r2.startInclusive() && compare(r1.end(), true, r2.start(), false) == 0;
+    }
+
+    private static boolean isOverlaps(Object a, Object b) {
+        FeelRange<?> r1 = (FeelRange<?>) a;
+        FeelRange<?> r2 = (FeelRange<?>) b;
+        int endStart = compare(r1.end(), true, r2.start(), false);
+        int startEnd = compare(r1.start(), false, r2.end(), true);
+        return (endStart > 0 || (endStart == 0 && r1.endInclusive() && r2.startInclusive()))
+               && (startEnd < 0 || (startEnd == 0 && r1.startInclusive() && r2.endInclusive()));
+    }
+
+    private static boolean isOverlapsBefore(Object a, Object b) {
+        FeelRange<?> r1 = (FeelRange<?>) a;
+        FeelRange<?> r2 = (FeelRange<?>) b;
+        int starts = compare(r1.start(), false, r2.start(), false);
+        int endStart = compare(r1.end(), true, r2.start(), false);
+        int ends = compare(r1.end(), true, r2.end(), true);
+        return (starts < 0 || (starts == 0 && r1.startInclusive() && !r2.startInclusive()))
+               && (endStart > 0 || (endStart == 0 && r1.endInclusive() && r2.startInclusive()))
+               && (ends < 0 || (ends == 0 && (!r1.endInclusive() || r2.endInclusive())));
+    }
+
+    private static boolean isFinishes(Object a, Object b) {
+        FeelRange<?> r2 = (FeelRange<?>) b;
+        if (!(a instanceof FeelRange<?> r1)) {
+            return r2.endInclusive() && compare(a, false, r2.end(), true) == 0;
+        }
+        int starts = compare(r1.start(), false, r2.start(), false);
+        return r1.endInclusive() == r2.endInclusive() && compare(r1.end(), true, r2.end(), true) == 0
+               && (starts > 0 || (starts == 0 && (!r1.startInclusive() || r2.startInclusive())));
+    }
+
+    private static boolean isStarts(Object a, Object b) {
+        FeelRange<?> r2 = (FeelRange<?>) b;
+        if (!(a instanceof FeelRange<?> r1)) {
+            return r2.startInclusive() && compare(a, false, r2.start(), false) == 0;
+        }
+        int ends = compare(r1.end(), true, r2.end(), true);
+        return r1.startInclusive() == r2.startInclusive() && compare(r1.start(), false, r2.start(), false) == 0
+               && (ends < 0 || (ends == 0 && (!r1.endInclusive() || r2.endInclusive())));
+    }
+
+    private static boolean isCoincides(Object a, Object b) {
+        if (a instanceof FeelRange<?> r1 && b instanceof FeelRange<?> r2) {
+            return r1.startInclusive() == r2.startInclusive() && r1.endInclusive() == r2.endInclusive()
+                   && compare(r1.start(), false, r2.start(), false) == 0 && compare(r1.end(), true, r2.end(), true) == 0;
+        }
+        return compare(a, false, b, false) == 0;
+    }
+
+    /**
+     * 比较两个端点，null 的起点为负无穷，null 的终点为正无穷
+     *
+     * @param aEnd a 是否是终点
+     * @param bEnd b 是否是终点
+     */
+    private static int compare(Object a, boolean aEnd, Object b, boolean bEnd) {
+        if (a == null || b == null) {
+            int x = a == null ? (aEnd ? 1 : -1) : 0;
+            int y = b == null ? (bEnd ? 1 : -1) : 0;
+            return Integer.compare(x, y);
+        }
+        return ListFunctions.compare(a, b);
+    }
+}
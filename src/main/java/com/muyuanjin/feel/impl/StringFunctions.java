@@ -0,0 +1,152 @@
+package com.muyuanjin.feel.impl;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 字符串函数（表 74）的运行时实现
+ * <p>
+ * 位置和长度按 Unicode 码点计算，位置从 1 开始，负数表示从末尾开始数
+ *
+ * @author muyuanjin
+ */
+@UtilityClass
+public class StringFunctions {
+    private static final int MAX_CACHED_PATTERNS = 256;
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    public static String substring(String string, Integer startPosition) {
+        return substring(string, startPosition, Integer.MAX_VALUE);
+    }
+
+    public static String substring(String string, Integer startPosition, Integer length) {
+        if (string == null || startPosition == null || length == null || startPosition == 0) {
+            return null;
+        }
+        int count = string.codePointCount(0, string.length());
+        int from = startPosition > 0 ? startPosition - 1 : Math.max(0, count + startPosition);
+        if (from >= count || length <= 0) {
+            return "";
+        }
+        int to = (int) Math.min(count, (long) from + length);
+        if (count == string.length()) {
+            return string.substring(from, to);
+        }
+        int begin = string.offsetByCodePoints(0, from);
+        return string.substring(begin, string.offsetByCodePoints(begin, to - from));
+    }
+
+    public static Integer stringLength(String string) {
+        return string == null ? null : string.codePointCount(0, string.length());
+    }
+
+    public static String upperCase(String string) {
+        return string == null ? null : string.toUpperCase(Locale.ROOT);
+    }
+
+    public static String lowerCase(String string) {
+        return string == null ? null : string.toLowerCase(Locale.ROOT);
+    }
+
+    public static String substringBefore(String string, String match) {
+        if (string == null || match == null) {
+            return null;
+        }
+        int index = string.indexOf(match);
+        return index < 0 ? "" : string.substring(0, index);
+    }
+
+    public static String substringAfter(String string, String match) {
+        if (string == null || match == null) {
+            return null;
+        }
+        int index = string.indexOf(match);
+        return index < 0 ? "" : string.substring(index + match.length());
+    }
+
+    public static String replace(String input, String pattern, String replacement) {
+        return replace(input, pattern, replacement, null);
+    }
+
+    public static String replace(String input, String pattern, String replacement, String flags) {
+        if (input == null || pattern == null || replacement == null) {
+            return null;
+        }
+        return pattern(pattern, flags).matcher(input).replaceAll(replacement);
+    }
+
+    public static Boolean contains(String string, String match) {
+        return string == null || match == null ? null : string.contains(match);
+    }
+
+    public static Boolean startsWith(String string, String match) {
+        return string == null || match == null ? null : string.startsWith(match);
+    }
+
+    public static Boolean endsWith(String string, String match) {
+        return string == null || match == null ? null : string.endsWith(match);
+    }
+
+    public static Boolean matches(String input, String pattern) {
+        return matches(input, pattern, null);
+    }
+
+    /**
+     * 与 XPath 的 fn:matches 相同，只要有一部分匹配即可
+     */
+    public static Boolean matches(String input, String pattern, String flags) {
+        if (input == null || pattern == null) {
+            return null;
+        }
+        return pattern(pattern, flags).matcher(input).find();
+    }
+
+    public static List<String> split(String string, String delimiter) {
+        if (string == null || delimiter == null) {
+            return null;
+        }
+        return Arrays.asList(pattern(delimiter, null).split(string, -1));
+    }
+
+    /**
+     * 编译正则表达式，结果按表达式和标志缓存
+     *
+     * @param flags s、m、i、x、q 的组合，含义与 XPath 相同
+     */
+    public static Pattern pattern(String regex, String flags) {
+        String key = flags == null || flags.isEmpty() ? regex : flags + '/' + regex;
+        Pattern pattern = PATTERNS.get(key);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex, flags(flags));
+            if (PATTERNS.size() >= MAX_CACHED_PATTERNS) {
+                PATTERNS.clear();
+            }
+            PATTERNS.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    public static int flags(String flags) {
+        int result = 0;
+        if (flags == null) {
+            return result;
+        }
+        for (int i = 0; i < flags.length(); i++) {
+            result |= switch (flags.charAt(i)) {
+                case 's' -> Pattern.DOTALL;
+                case 'm' -> Pattern.MULTILINE;
+                case 'i' -> Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                case 'x' -> Pattern.COMMENTS;
+                case 'q' -> Pattern.LITERAL;
+                default -> throw new IllegalArgumentException("Unsupported regular expression flag: " + flags.charAt(i));
+            };
+        }
+        return result;
+    }
+}
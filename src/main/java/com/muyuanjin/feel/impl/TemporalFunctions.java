@@ -0,0 +1,53 @@
+package com.muyuanjin.feel.impl;
+
+import lombok.experimental.UtilityClass;
+
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+/**
+ * is 函数（表 77）和时间函数（表 79）的运行时实现
+ *
+ * @author muyuanjin
+ */
+@UtilityClass
+public class TemporalFunctions {
+    /**
+     * 类型和值都相同，与 = 不同的是 date 和 date and time 不会互相转换
+     */
+    public static Boolean is(Object value1, Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == value2;
+        }
+        if (value1 instanceof Number a && value2 instanceof Number b) {
+            return ListFunctions.compare(a, b) == 0;
+        }
+        return value1.getClass() == value2.getClass() && value1.equals(value2);
+    }
+
+    public static Integer dayOfYear(TemporalAccessor date) {
+        return date == null ? null : date.get(ChronoField.DAY_OF_YEAR);
+    }
+
+    /**
+     * @return 1 表示星期一，7 表示星期日
+     */
+    public static Integer dayOfWeek(TemporalAccessor date) {
+        return date == null ? null : date.get(ChronoField.DAY_OF_WEEK);
+    }
+
+    public static String monthOfYear(TemporalAccessor date) {
+        return date == null ? null : Month.of(date.get(ChronoField.MONTH_OF_YEAR)).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+    }
+
+    /**
+     * ISO 8601 的周数
+     */
+    public static Integer weekOfYear(TemporalAccessor date) {
+        return date == null ? null : date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+    }
+}
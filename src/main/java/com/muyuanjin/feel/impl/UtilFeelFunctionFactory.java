@@ -1,5 +1,6 @@
 package com.muyuanjin.feel.impl;
 
+import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.IntegerLiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
@@ -17,6 +18,9 @@ import com.muyuanjin.feel.translate.CodeGens;
 import com.muyuanjin.feel.translate.Context;
 import com.muyuanjin.feel.translate.JavaExpr;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
@@ -30,12 +34,13 @@ public class UtilFeelFunctionFactory implements FeelFunctionFactory {
     private static final Map<String, List<MethodFun>> functions;
     private static final Map<String, Set<FFunction>> functionTypes;
 
-    public static FeelFunction<?> fun(String fun, int index) {
+    @SuppressWarnings("unchecked")
+    public static <R> FeelFunction<R> fun(String fun, int index) {
         List<MethodFun> methods = functions.get(fun);
         if (methods == null) {
             throw new IllegalArgumentException("No such function: " + fun);
         }
-        return Objects.requireNonNull(methods.get(index), "No such function: " + fun + " at index " + index).fun;
+        return (FeelFunction<R>) Objects.requireNonNull(methods.get(index), "No such function: " + fun + " at index " + index).fun;
     }
 
     static {
@@ -70,9 +75,12 @@ public class UtilFeelFunctionFactory implements FeelFunctionFactory {
             MethodFun methodFun = methods.get(i);
             String index = Integer.toString(i);
             if (methodFun.fun.type().equals(function)) {
-                return JavaExpr.of(node, () -> manager.getStaticMethod(UtilFeelFunctionFactory.class, "fun")
-                                .addArgument(CodeGens.stringLiteral(fun))
-                                .addArgument(new IntegerLiteralExpr(index)), function.getJavaType(), true)
+                // 作为值使用时只在类初始化时查找一次，保存到生成类的静态字段
+                return JavaExpr.of(node, () -> manager.addStaticField(new VariableDeclarator(manager.getType(function.getJavaType()),
+                                        fun.replace('.', '_'), manager.getStaticMethod(UtilFeelFunctionFactory.class, "fun")
+                                        .addArgument(CodeGens.stringLiteral(fun))
+                                        .addArgument(new IntegerLiteralExpr(index))),
+                                UtilFeelFunctionFactory.class, fun + "#" + index), function.getJavaType(), true)
                         .inLineFun(methodFun.inLineFun);
             }
         }
@@ -113,7 +121,7 @@ public class UtilFeelFunctionFactory implements FeelFunctionFactory {
                 }
                 type = FFunction.of(returnType, names, types);
             }
-            FeelFunction<?> fun = new FeelFunction.Default<>(type, (FunctionEx<Object[], Object>) args -> method.invoke(null, args));
+            FeelFunction<?> fun = new FeelFunction.Default<>(type, invoker(method));
             BiFunction<ClassManager, JavaExpr[], Expression> inLineFun = (manager, args) -> {
                 MethodCallExpr staticMethod = manager.getStaticMethod(clazz, method.getName());
                 for (JavaExpr arg : args) {
@@ -126,6 +134,20 @@ public class UtilFeelFunctionFactory implements FeelFunctionFactory {
         return methods.entrySet().stream().collect(HashMap::new, (map, entry) -> map.put(entry.getKey(), new ArrayList<>(entry.getValue())), HashMap::putAll);
     }
 
+    /**
+     * 参数数组按位置展开后直接调用方法，无法访问时退化为反射
+     */
+    static FunctionEx<Object[], Object> invoker(Method method) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method).asFixedArity()
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return args -> (Object) handle.invokeExact(args);
+        } catch (IllegalAccessException e) {
+            return args -> method.invoke(null, args);
+        }
+    }
+
     record MethodFun(FeelFunction<?> fun,
                      BiFunction<ClassManager, JavaExpr[], Expression> inLineFun) {
         @Override
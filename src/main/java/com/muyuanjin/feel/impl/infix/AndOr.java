@@ -79,7 +79,7 @@ public class AndOr implements DefaultFeelInfixOps.InfixOp {
         } else {
             leftConExpr = !isAnd ? leftConExpr : new UnaryExpr(leftConExpr, UnaryExpr.Operator.LOGICAL_COMPLEMENT);
         }
-        if (!(rightType instanceof FBoolean || right.nullable())) {
+        if (!(rightType instanceof FBoolean) || right.nullable()) {
             rightConExpr = new MethodCallExpr(trueOrFalse, "equals").addArgument(rightConExpr);
             rightElseExpr = new MethodCallExpr(manager.getStaticField(Boolean.class, "TRUE"), "equals").addArgument(rightElseExpr);
         } else {
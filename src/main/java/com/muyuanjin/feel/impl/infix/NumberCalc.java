@@ -7,11 +7,13 @@ import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.muyuanjin.feel.FeelTypeFactory;
 import com.muyuanjin.feel.exception.FeelLangException;
 import com.muyuanjin.feel.impl.DefaultFeelInfixOps;
+import com.muyuanjin.feel.impl.DefaultFeelTypeFactory;
 import com.muyuanjin.feel.lang.FType;
 import com.muyuanjin.feel.lang.ast.ASTNode;
 import com.muyuanjin.feel.lang.ast.InfixOpNode;
 import com.muyuanjin.feel.lang.type.FNumber;
 import com.muyuanjin.feel.translate.ClassManager;
+import com.muyuanjin.feel.translate.CompilerTask;
 import com.muyuanjin.feel.translate.Context;
 import com.muyuanjin.feel.translate.JavaExpr;
 import jakarta.annotation.Nullable;
@@ -56,6 +58,22 @@ public class NumberCalc implements DefaultFeelInfixOps.InfixOp {
 
         if (resultType instanceof FNumber) {
             if (resultJavaType == BigDecimal.class || resultJavaType == Number.class || op == InfixOpNode.Op.DIV) {
+                if (op != InfixOpNode.Op.POW && CompilerTask.instance(context).speculativeArithmetic()
+                    && leftType instanceof FNumber && rightType instanceof FNumber && !isDouble(left) && !isDouble(right)) {
+                    // 整数在 long 范围内先行计算，结果仍是同样的 BigDecimal
+                    String method = switch (op) {
+                        case ADD -> "add";
+                        case SUB -> "subtract";
+                        case MUL -> "multiply";
+                        case DIV -> "divide";
+                        default -> throw new FeelLangException(n, "Cannot compile infix op node for operator: " + op);
+                    };
+                    if (isPrimitiveLong(left) && isPrimitiveLong(right)) {
+                        method += "Exact";
+                    }
+                    return JavaExpr.of(n, manager.getStaticMethod(NumberCalc.class, method)
+                            .addArgument(left.expr()).addArgument(right.expr()), BigDecimal.class, constant);
+                }
                 Expression leftValue = numberValue.apply(left, FNumber.BIG_DECIMAL);
                 if (leftValue == null) {
                     return JavaExpr.ofNull(n);
@@ -73,7 +91,6 @@ public class NumberCalc implements DefaultFeelInfixOps.InfixOp {
                 }
                 switch (op) {
                     case ADD -> {
-                        //TODO constant 优化 如果左右都是 NumberNode 或者 NegationNode-NumberNode 直接化简
                         return JavaExpr.of(n, new MethodCallExpr(leftValue, "add").addArgument(rightValue), BigDecimal.class, constant);
                     }
                     case SUB -> {
@@ -118,4 +135,102 @@ public class NumberCalc implements DefaultFeelInfixOps.InfixOp {
         //TODO
         return null;
     }
+
+    /**
+     * 浮点数按 FEEL 的十进制语义计算时没有可以先行的精确算法，仍然走 BigDecimal
+     */
+    private static boolean isDouble(JavaExpr expr) {
+        Type javaType = expr.javaType();
+        return expr.feelType() == FNumber.DOUBLE || javaType == double.class || javaType == Double.class
+               || javaType == float.class || javaType == Float.class;
+    }
+
+    private static boolean isPrimitiveLong(JavaExpr expr) {
+        Type javaType = expr.javaType();
+        return javaType == int.class || javaType == long.class || javaType == short.class || javaType == byte.class;
+    }
+
+    //以下方法由生成的代码调用，结果与直接使用 BigDecimal 计算完全一致
+
+    public static BigDecimal addExact(long a, long b) {
+        try {
+            return BigDecimal.valueOf(Math.addExact(a, b));
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(a).add(BigDecimal.valueOf(b));
+        }
+    }
+
+    public static BigDecimal subtractExact(long a, long b) {
+        try {
+            return BigDecimal.valueOf(Math.subtractExact(a, b));
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(a).subtract(BigDecimal.valueOf(b));
+        }
+    }
+
+    public static BigDecimal multiplyExact(long a, long b) {
+        try {
+            return BigDecimal.valueOf(Math.multiplyExact(a, b));
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(a).multiply(BigDecimal.valueOf(b));
+        }
+    }
+
+    /**
+     * 能整除时直接得到商，除不尽（以及除数为 0）时交给 BigDecimal
+     */
+    public static BigDecimal divideExact(long a, long b) {
+        if (b != 0 && a % b == 0 && (a != Long.MIN_VALUE || b != -1)) {
+            return BigDecimal.valueOf(a / b);
+        }
+        return BigDecimal.valueOf(a).divide(BigDecimal.valueOf(b), MathContext.DECIMAL128);
+    }
+
+    public static BigDecimal add(Number a, Number b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (isLong(a) && isLong(b)) {
+            return addExact(a.longValue(), b.longValue());
+        }
+        return DefaultFeelTypeFactory.toBigDecimal(a).add(DefaultFeelTypeFactory.toBigDecimal(b));
+    }
+
+    public static BigDecimal subtract(Number a, Number b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (isLong(a) && isLong(b)) {
+            return subtractExact(a.longValue(), b.longValue());
+        }
+        return DefaultFeelTypeFactory.toBigDecimal(a).subtract(DefaultFeelTypeFactory.toBigDecimal(b));
+    }
+
+    public static BigDecimal multiply(Number a, Number b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (isLong(a) && isLong(b)) {
+            return multiplyExact(a.longValue(), b.longValue());
+        }
+        return DefaultFeelTypeFactory.toBigDecimal(a).multiply(DefaultFeelTypeFactory.toBigDecimal(b));
+    }
+
+    public static BigDecimal divide(Number a, Number b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (isLong(a) && isLong(b)) {
+            return divideExact(a.longValue(), b.longValue());
+        }
+        return DefaultFeelTypeFactory.toBigDecimal(a).divide(DefaultFeelTypeFactory.toBigDecimal(b), MathContext.DECIMAL128);
+    }
+
+    /**
+     * 没有小数部分且一定在 long 范围内的数
+     */
+    private static boolean isLong(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte
+               || number instanceof BigDecimal decimal && decimal.scale() == 0 && decimal.precision() <= 18;
+    }
 }
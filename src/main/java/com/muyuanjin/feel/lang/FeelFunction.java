@@ -2,7 +2,11 @@ package com.muyuanjin.feel.lang;
 
 import com.muyuanjin.feel.lang.type.FFunction;
 
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * @author muyuanjin
@@ -12,6 +16,43 @@ public interface FeelFunction<R> {
 
     R invoke(Object... args);
 
+    /*
+     * 参数个数固定的调用，调用方在编译期知道函数签名时使用，避免创建参数数组；
+     * 默认实现退化为 invoke(Object...)，Of* 实现直接调用
+     */
+
+    default R invoke0() {
+        return invoke();
+    }
+
+    default R invoke1(Object arg0) {
+        return invoke(arg0);
+    }
+
+    default R invoke2(Object arg0, Object arg1) {
+        return invoke(arg0, arg1);
+    }
+
+    default R invoke3(Object arg0, Object arg1, Object arg2) {
+        return invoke(arg0, arg1, arg2);
+    }
+
+    /**
+     * 作为条件使用的结果，null 视为 false；只用于 null 和 false 等价的场合，
+     * 普通的函数调用使用 {@link #invoke1(Object)} 保留 null
+     */
+    default boolean invokeBoolean1(Object arg0) {
+        return Boolean.TRUE.equals(invoke1(arg0));
+    }
+
+    /**
+     * 作为条件使用的结果，null 视为 false，比如 sort 的比较函数；
+     * 普通的函数调用使用 {@link #invoke2(Object, Object)} 保留 null
+     */
+    default boolean invokeBoolean2(Object arg0, Object arg1) {
+        return Boolean.TRUE.equals(invoke2(arg0, arg1));
+    }
+
     record Default<R>(FFunction type, Function<Object[], R> fun) implements FeelFunction<R> {
         @Override
         public R invoke(Object... args) {
@@ -25,4 +66,127 @@ public interface FeelFunction<R> {
                    '}';
         }
     }
-}
\ No newline at end of file
+
+    record Of0<R>(FFunction type, Supplier<R> fun) implements FeelFunction<R> {
+        @Override
+        public R invoke(Object... args) {
+            return fun.get();
+        }
+
+        @Override
+        public R invoke0() {
+            return fun.get();
+        }
+
+        @Override
+        public String toString() {
+            return "FeelFunction.Of0{type=" + type + '}';
+        }
+    }
+
+    record Of1<R>(FFunction type, Function<Object, R> fun) implements FeelFunction<R> {
+        @Override
+        public R invoke(Object... args) {
+            return fun.apply(args[0]);
+        }
+
+        @Override
+        public R invoke1(Object arg0) {
+            return fun.apply(arg0);
+        }
+
+        @Override
+        public String toString() {
+            return "FeelFunction.Of1{type=" + type + '}';
+        }
+    }
+
+    record Of2<R>(FFunction type, BiFunction<Object, Object, R> fun) implements FeelFunction<R> {
+        @Override
+        public R invoke(Object... args) {
+            return fun.apply(args[0], args[1]);
+        }
+
+        @Override
+        public R invoke2(Object arg0, Object arg1) {
+            return fun.apply(arg0, arg1);
+        }
+
+        @Override
+        public String toString() {
+            return "FeelFunction.Of2{type=" + type + '}';
+        }
+    }
+
+    record Of3<R>(FFunction type, Fun3<R> fun) implements FeelFunction<R> {
+        @Override
+        public R invoke(Object... args) {
+            return fun.apply(args[0], args[1], args[2]);
+        }
+
+        @Override
+        public R invoke3(Object arg0, Object arg1, Object arg2) {
+            return fun.apply(arg0, arg1, arg2);
+        }
+
+        @Override
+        public String toString() {
+            return "FeelFunction.Of3{type=" + type + '}';
+        }
+    }
+
+    /**
+     * 返回 boolean 的单参数函数，invokeBoolean1 不需要装箱
+     */
+    record OfBoolean1(FFunction type, Predicate<Object> fun) implements FeelFunction<Boolean> {
+        @Override
+        public Boolean invoke(Object... args) {
+            return fun.test(args[0]);
+        }
+
+        @Override
+        public Boolean invoke1(Object arg0) {
+            return fun.test(arg0);
+        }
+
+        @Override
+        public boolean invokeBoolean1(Object arg0) {
+            return fun.test(arg0);
+        }
+
+        @Override
+        public String toString() {
+            return "FeelFunction.OfBoolean1{type=" + type + '}';
+        }
+    }
+
+    /**
+     * 返回 boolean 的双参数函数，invokeBoolean2 不需要装箱
+     */
+    record OfBoolean2(FFunction type, BiPredicate<Object, Object> fun) implements FeelFunction<Boolean> {
+        @Override
+        public Boolean invoke(Object... args) {
+            return fun.test(args[0], args[1]);
+        }
+
+        @Override
+        public Boolean invoke2(Object arg0, Object arg1) {
+            return fun.test(arg0, arg1);
+        }
+
+        @Override
+        public boolean invokeBoolean2(Object arg0, Object arg1) {
+            return fun.test(arg0, arg1);
+        }
+
+        @Override
+        public String toString() {
+            return "FeelFunction.OfBoolean2{type=" + type + '}';
+        }
+    }
+
+    @FunctionalInterface
+    interface Fun3<R> {
+        R apply(Object arg0, Object arg1, Object arg2);
+    }
+}
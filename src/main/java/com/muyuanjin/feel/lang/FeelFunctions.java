@@ -75,7 +75,7 @@ public enum FeelFunctions {
     insert_before("insert before", of(FList.of(A), FList.of(A), INTEGER, A)),
     remove("remove", of(FList.of(A), FList.of(A), INTEGER)),
     reverse("reverse", of(FList.of(A), FList.of(A))),
-    index_of("index of", of(INTEGER, FList.of(A), A)),
+    index_of("index of", of(FList.of(INTEGER), FList.of(A), A)),
     union("union", of(FList.of(A), FList.ofVars(FList.of(A)))),
     distinct_values("distinct values", of(FList.of(A), FList.of(A))),
     flatten("flatten", of(FList.of(ANY), FList.of(ANY))),
@@ -88,8 +88,8 @@ public enum FeelFunctions {
     //Table 76: Semantics of numeric functions
     //表 76：数值函数
     decimal("decimal", of(NUMBER, NUMBER, INTEGER)),
-    floor("floor", of(INTEGER, NUMBER)),
-    ceiling("ceiling", of(INTEGER, NUMBER)),
+    floor("floor", of(NUMBER, NUMBER)),
+    ceiling("ceiling", of(NUMBER, NUMBER)),
     abs("abs", of(NUMBER, NUMBER), of(DAY_TIME_DURATION, DAY_TIME_DURATION), of(YEAR_MONTH_DURATION, YEAR_MONTH_DURATION)),
     modulo("modulo", of(NUMBER, NUMBER, NUMBER)),
     sqrt("sqrt", of(NUMBER, NUMBER)),
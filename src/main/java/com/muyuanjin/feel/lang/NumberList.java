@@ -0,0 +1,264 @@
+package com.muyuanjin.feel.lang;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * 元素为 int、long 或 double 的列表，底层是基本类型数组
+ * <p>
+ * 生成的 for、filter 代码通过 {@code add(int)} 等方法直接添加基本类型，只有通过 {@link #get(int)} 读取时才装箱；
+ * 和 {@link java.util.ArrayList} 一样支持按下标插入和删除
+ *
+ * @author muyuanjin
+ */
+public abstract sealed class NumberList<T extends Number> extends AbstractList<T> implements RandomAccess
+        permits NumberList.OfInt, NumberList.OfLong, NumberList.OfDouble {
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    protected int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 闭区间 [start, end] 中整数的个数，作为结果列表的初始容量，超出数组上限时取上限
+     */
+    public static int capacity(long start, long end) {
+        if (end < start) {
+            return 0;
+        }
+        long count = end - start + 1;
+        return count <= 0 || count > MAX_CAPACITY ? MAX_CAPACITY : (int) count;
+    }
+
+    static int grow(int length) {
+        if (length >= MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required list length too large");
+        }
+        return (int) Math.min(MAX_CAPACITY, Math.max(DEFAULT_CAPACITY, length + (length >> 1) + 1L));
+    }
+
+    public static final class OfInt extends NumberList<Integer> {
+        private int[] elements;
+
+        public OfInt() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public OfInt(int capacity) {
+            this.elements = new int[capacity];
+        }
+
+        /**
+         * 直接使用给定的数组作为底层存储，不复制
+         */
+        public OfInt(int[] elements) {
+            this.elements = elements;
+            this.size = elements.length;
+        }
+
+        public boolean add(int value) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, grow(size));
+            }
+            elements[size++] = value;
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public boolean add(Integer value) {
+            return add(value.intValue());
+        }
+
+        public int getInt(int index) {
+            Objects.checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public Integer get(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        public Integer set(int index, Integer value) {
+            int old = getInt(index);
+            elements[index] = value;
+            return old;
+        }
+
+        @Override
+        public void add(int index, Integer value) {
+            Objects.checkIndex(index, size + 1);
+            int element = value;
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, grow(size));
+            }
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = element;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public Integer remove(int index) {
+            int old = getInt(index);
+            System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+            size--;
+            modCount++;
+            return old;
+        }
+    }
+
+    public static final class OfLong extends NumberList<Long> {
+        private long[] elements;
+
+        public OfLong() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public OfLong(int capacity) {
+            this.elements = new long[capacity];
+        }
+
+        /**
+         * 直接使用给定的数组作为底层存储，不复制
+         */
+        public OfLong(long[] elements) {
+            this.elements = elements;
+            this.size = elements.length;
+        }
+
+        public boolean add(long value) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, grow(size));
+            }
+            elements[size++] = value;
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public boolean add(Long value) {
+            return add(value.longValue());
+        }
+
+        public long getLong(int index) {
+            Objects.checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public Long get(int index) {
+            return getLong(index);
+        }
+
+        @Override
+        public Long set(int index, Long value) {
+            long old = getLong(index);
+            elements[index] = value;
+            return old;
+        }
+
+        @Override
+        public void add(int index, Long value) {
+            Objects.checkIndex(index, size + 1);
+            long element = value;
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, grow(size));
+            }
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = element;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public Long remove(int index) {
+            long old = getLong(index);
+            System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+            size--;
+            modCount++;
+            return old;
+        }
+    }
+
+    public static final class OfDouble extends NumberList<Double> {
+        private double[] elements;
+
+        public OfDouble() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public OfDouble(int capacity) {
+            this.elements = new double[capacity];
+        }
+
+        /**
+         * 直接使用给定的数组作为底层存储，不复制
+         */
+        public OfDouble(double[] elements) {
+            this.elements = elements;
+            this.size = elements.length;
+        }
+
+        public boolean add(double value) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, grow(size));
+            }
+            elements[size++] = value;
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public boolean add(Double value) {
+            return add(value.doubleValue());
+        }
+
+        public double getDouble(int index) {
+            Objects.checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public Double get(int index) {
+            return getDouble(index);
+        }
+
+        @Override
+        public Double set(int index, Double value) {
+            double old = getDouble(index);
+            elements[index] = value;
+            return old;
+        }
+
+        @Override
+        public void add(int index, Double value) {
+            Objects.checkIndex(index, size + 1);
+            double element = value;
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, grow(size));
+            }
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = element;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public Double remove(int index) {
+            double old = getDouble(index);
+            System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+            size--;
+            modCount++;
+            return old;
+        }
+    }
+}
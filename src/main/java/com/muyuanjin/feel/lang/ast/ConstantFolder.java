@@ -0,0 +1,516 @@
+package com.muyuanjin.feel.lang.ast;
+
+import com.muyuanjin.feel.lang.FType;
+import com.muyuanjin.feel.lang.FTypes;
+import com.muyuanjin.feel.lang.type.FBoolean;
+import com.muyuanjin.feel.lang.type.FNumber;
+import com.muyuanjin.feel.parser.ParserUtil;
+import jakarta.annotation.Nullable;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * 常量折叠和代数化简，在 AST 构建之后、编译或解释之前执行，直接修改传入的树
+ * <p>
+ * 数值按编译器为字面量选择的 java 类型（int、long、double、BigDecimal）计算，只有折叠后的字面量仍会编译为同一种类型且值相同时才替换，
+ * int/long 溢出、除数为 0、负零等与生成代码结果可能不同的情况保持原样，交给编译器处理
+ *
+ * @author muyuanjin
+ */
+public final class ConstantFolder {
+    private static final BigDecimal INT_MIN = BigDecimal.valueOf(Integer.MIN_VALUE);
+    private static final BigDecimal INT_MAX = BigDecimal.valueOf(Integer.MAX_VALUE);
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private ConstantFolder() {}
+
+    /**
+     * @return 折叠后的根节点，可能是新的节点
+     */
+    public static ASTNode fold(ASTNode node) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof ContextNode context) {
+            foldEntries(context);
+        } else {
+            rewrite(node, ConstantFolder::fold);
+        }
+        ASTNode folded = simplify(node);
+        return folded == null ? node : folded;
+    }
+
+    /**
+     * 按顺序折叠上下文的条目，折叠为字面量的条目代入后续条目中对它的引用
+     */
+    private static void foldEntries(ContextNode context) {
+        List<String> keys = new ArrayList<>(context.entries.keySet());
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            ASTNode value = fold(context.entries.get(key));
+            context.entries.put(key, value);
+            if (!isConstant(value)) {
+                continue;
+            }
+            for (int j = i + 1; j < keys.size(); j++) {
+                String next = keys.get(j);
+                context.entries.put(next, substitute(context.entries.get(next), key, value));
+            }
+        }
+    }
+
+    private static @Nullable ASTNode simplify(ASTNode node) {
+        if (node instanceof NegationNode negation) {
+            return negate(negation);
+        } else if (node instanceof InfixOpNode infix) {
+            return infix(infix);
+        } else if (node instanceof IfNode ifNode) {
+            ASTNode branch;
+            if (ifNode.condition instanceof BooleanNode condition) {
+                branch = condition.value ? ifNode.then : ifNode.otherwise;
+            } else if (ifNode.condition instanceof NullNode) {
+                branch = ifNode.otherwise;
+            } else {
+                return null;
+            }
+            // 分支的类型与 if 不同时，生成代码中结果变量的类型会变化，保持原样
+            return Objects.equals(branch.getType(), ifNode.getType()) ? branch : null;
+        } else if (node instanceof FunInvocationNode invocation) {
+            return not(invocation);
+        } else if (node instanceof PathNode path && path.left instanceof ContextNode context) {
+            ASTNode value = context.entries.get(path.name);
+            return isConstant(value) ? copy(value, path.text) : null;
+        }
+        return null;
+    }
+
+    private static @Nullable ASTNode negate(NegationNode negation) {
+        if (!(negation.value instanceof NumberNode number)) {
+            return null;
+        }
+        FNumber kind = kindOf(number);
+        BigDecimal value = number.getValue();
+        if (kind == FNumber.DOUBLE && value.signum() == 0) {
+            // -0.0
+            return null;
+        }
+        return number(value.negate(), kind);
+    }
+
+    private static @Nullable ASTNode infix(InfixOpNode n) {
+        ASTNode left = n.left, right = n.right;
+        InfixOpNode.Op op = n.op;
+        if (op.isAndOr()) {
+            return andOr(n, left, right);
+        }
+        if (left instanceof NumberNode l && right instanceof NumberNode r) {
+            return op.isCalc() ? calculate(n, l, r) : compareNumber(n, l, r);
+        }
+        if (left instanceof StringNode l && right instanceof StringNode r) {
+            if (op == InfixOpNode.Op.ADD) {
+                return string(l.value + r.value, n.text);
+            }
+            return op.isCompare() ? bool(compare(op, l.value.compareTo(r.value), l.value.equals(r.value)), n.text) : null;
+        }
+        if (left instanceof BooleanNode l && right instanceof BooleanNode r && op.isEqNe()) {
+            return bool((l.value == r.value) == (op == InfixOpNode.Op.EQ), n.text);
+        }
+        if (left instanceof DateTimeNode l && right instanceof DateTimeNode r && l.type == r.type && op.isCompare()) {
+            return compareTemporal(n, l, r);
+        }
+        return null;
+    }
+
+    /**
+     * 一侧为布尔字面量时按三值逻辑化简，另一侧只有静态类型是布尔时才能原样保留
+     */
+    private static @Nullable ASTNode andOr(InfixOpNode n, ASTNode left, ASTNode right) {
+        boolean isAnd = n.op == InfixOpNode.Op.AND;
+        if (left instanceof BooleanNode l && right instanceof BooleanNode r) {
+            return bool(isAnd ? l.value && r.value : l.value || r.value, n.text);
+        }
+        BooleanNode literal = left instanceof BooleanNode l ? l : right instanceof BooleanNode r ? r : null;
+        if (literal == null) {
+            return null;
+        }
+        ASTNode other = literal == left ? right : left;
+        if (literal.value != isAnd) {
+            // x and false -> false, x or true -> true
+            return bool(literal.value, n.text);
+        }
+        // x and true -> x, x or false -> x
+        return other.getType() instanceof FBoolean && !(other instanceof NullNode) ? other : null;
+    }
+
+    /**
+     * not(not(x)) -> x，not(true) -> false
+     */
+    private static @Nullable ASTNode not(FunInvocationNode n) {
+        if (!isNot(n)) {
+            return null;
+        }
+        ASTNode param = n.params.get(0);
+        if (param instanceof BooleanNode literal) {
+            return bool(!literal.value, n.text);
+        }
+        if (param instanceof FunInvocationNode inner && isNot(inner)) {
+            ASTNode value = inner.params.get(0);
+            return value.getType() instanceof FBoolean ? value : null;
+        }
+        return null;
+    }
+
+    private static boolean isNot(FunInvocationNode n) {
+        return n.function instanceof NameExprNode name && "not".equals(name.name) && n.params != null && n.params.size() == 1;
+    }
+
+    private static @Nullable ASTNode calculate(InfixOpNode n, NumberNode left, NumberNode right) {
+        InfixOpNode.Op op = n.op;
+        if (op == InfixOpNode.Op.POW) {
+            return null;
+        }
+        FNumber leftKind = kindOf(left), rightKind = kindOf(right);
+        FType resultType = op.calculate(leftKind, rightKind);
+        if (!(resultType instanceof FNumber result)) {
+            return null;
+        }
+        Type javaType = result.getJavaType();
+        BigDecimal l = left.getValue(), r = right.getValue();
+        // 与 NumberCalc 一致：结果为 BigDecimal 或者除法时按 BigDecimal 计算，否则按结果的原始类型计算
+        if (javaType == BigDecimal.class || javaType == Number.class || op == InfixOpNode.Op.DIV) {
+            BigDecimal a = toBigDecimal(l, leftKind), b = toBigDecimal(r, rightKind);
+            BigDecimal value = switch (op) {
+                case ADD -> a.add(b);
+                case SUB -> a.subtract(b);
+                case MUL -> a.multiply(b);
+                case DIV -> b.signum() == 0 ? null : a.divide(b, MathContext.DECIMAL128);
+                default -> null;
+            };
+            return value == null ? null : number(value, FNumber.BIG_DECIMAL);
+        }
+        if (leftKind == FNumber.BIG_DECIMAL || rightKind == FNumber.BIG_DECIMAL) {
+            return null;
+        }
+        if (result == FNumber.INTEGER && (leftKind != FNumber.INTEGER || rightKind != FNumber.INTEGER)) {
+            // long 字面量参与 int 运算时生成的代码不会转换类型
+            return null;
+        }
+        try {
+            if (result == FNumber.INTEGER || result == FNumber.LONG) {
+                long a = l.longValueExact(), b = r.longValueExact();
+                long value = result == FNumber.INTEGER ? switch (op) {
+                    case ADD -> Math.addExact((int) a, (int) b);
+                    case SUB -> Math.subtractExact((int) a, (int) b);
+                    default -> Math.multiplyExact((int) a, (int) b);
+                } : switch (op) {
+                    case ADD -> Math.addExact(a, b);
+                    case SUB -> Math.subtractExact(a, b);
+                    default -> Math.multiplyExact(a, b);
+                };
+                return number(BigDecimal.valueOf(value), result);
+            }
+        } catch (ArithmeticException e) {
+            // 溢出，生成的代码会按 java 的规则回绕
+            return null;
+        }
+        if (result == FNumber.DOUBLE) {
+            double a = l.doubleValue(), b = r.doubleValue();
+            double value = switch (op) {
+                case ADD -> a + b;
+                case SUB -> a - b;
+                default -> a * b;
+            };
+            if (!Double.isFinite(value) || value == 0 && 1 / value < 0) {
+                return null;
+            }
+            return number(new BigDecimal(value), FNumber.DOUBLE);
+        }
+        return null;
+    }
+
+    /**
+     * 与 Compare、EqNe 一致：两侧都是 BigDecimal 时用 compareTo，其余情况按 java 原始类型比较
+     */
+    private static @Nullable ASTNode compareNumber(InfixOpNode n, NumberNode left, NumberNode right) {
+        if (!n.op.isCompare()) {
+            return null;
+        }
+        FNumber leftKind = kindOf(left), rightKind = kindOf(right);
+        BigDecimal l = left.getValue(), r = right.getValue();
+        int compare;
+        if (leftKind == FNumber.BIG_DECIMAL && rightKind == FNumber.BIG_DECIMAL) {
+            compare = l.compareTo(r);
+        } else if ((leftKind == FNumber.INTEGER || leftKind == FNumber.LONG) && (rightKind == FNumber.INTEGER || rightKind == FNumber.LONG)) {
+            compare = Long.compare(l.longValue(), r.longValue());
+        } else {
+            double a = l.doubleValue(), b = r.doubleValue();
+            compare = a < b ? -1 : a > b ? 1 : 0;
+        }
+        return bool(compare(n.op, compare, compare == 0), n.text);
+    }
+
+    private static @Nullable ASTNode compareTemporal(InfixOpNode n, DateTimeNode left, DateTimeNode right) {
+        try {
+            if (left.type == FTypes.DATE) {
+                LocalDate l = ParserUtil.parseDate(left.literal), r = ParserUtil.parseDate(right.literal);
+                return bool(compare(n.op, l.compareTo(r), l.equals(r)), n.text);
+            } else if (left.type == FTypes.DAY_TIME_DURATION) {
+                Duration l = ParserUtil.parseDuration(left.literal), r = ParserUtil.parseDuration(right.literal);
+                return bool(compare(n.op, l.compareTo(r), l.equals(r)), n.text);
+            } else if (left.type == FTypes.YEAR_MONTH_DURATION) {
+                // 大小按总月数比较，相等按 Period.equals（P1Y 不等于 P12M）
+                Period l = ParserUtil.parsePeriod(left.literal), r = ParserUtil.parsePeriod(right.literal);
+                return bool(compare(n.op, Long.compare(l.toTotalMonths(), r.toTotalMonths()), l.equals(r)), n.text);
+            }
+        } catch (RuntimeException e) {
+            // 非法的字面量留给编译器报错
+        }
+        return null;
+    }
+
+    private static boolean compare(InfixOpNode.Op op, int compare, boolean equals) {
+        return switch (op) {
+            case LT -> compare < 0;
+            case LE -> compare <= 0;
+            case GT -> compare > 0;
+            case GE -> compare >= 0;
+            case EQ -> equals;
+            case NE -> !equals;
+            default -> throw new IllegalArgumentException("Not a compare operator: " + op);
+        };
+    }
+
+    /**
+     * 与 ASTCompilerVisitor 编译 NumberNode 时选择的 java 类型一致
+     */
+    private static FNumber kindOf(NumberNode n) {
+        BigDecimal value = n.getValue();
+        if (n.type == FNumber.INTEGER) {
+            if (value.compareTo(INT_MIN) >= 0 && value.compareTo(INT_MAX) <= 0) {
+                return FNumber.INTEGER;
+            }
+            if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+                return FNumber.LONG;
+            }
+        } else if (ParserUtil.canExactlyBeDouble(value)) {
+            return FNumber.DOUBLE;
+        }
+        return FNumber.BIG_DECIMAL;
+    }
+
+    /**
+     * 原始类型转换为 BigDecimal 时生成的代码使用 BigDecimal.valueOf
+     */
+    private static BigDecimal toBigDecimal(BigDecimal value, FNumber kind) {
+        return switch (kind) {
+            case INTEGER, LONG -> BigDecimal.valueOf(value.longValue());
+            case DOUBLE -> BigDecimal.valueOf(value.doubleValue());
+            default -> value;
+        };
+    }
+
+    /**
+     * @return 编译后类型为 kind 的数值字面量，做不到时返回 null
+     */
+    private static @Nullable NumberNode number(BigDecimal value, FNumber kind) {
+        String literal;
+        FType type;
+        if (kind == FNumber.INTEGER || kind == FNumber.LONG) {
+            literal = value.toBigIntegerExact().toString();
+            type = FNumber.INTEGER;
+        } else if (kind == FNumber.DOUBLE) {
+            double d = value.doubleValue();
+            literal = Double.toString(d);
+            if (new BigDecimal(literal).compareTo(value) != 0) {
+                literal = value.toString();
+                if (literal.indexOf('.') < 0 && literal.indexOf('E') < 0) {
+                    literal += ".0";
+                }
+            }
+            type = FNumber.DOUBLE;
+        } else {
+            literal = value.toString();
+            type = FNumber.BIG_DECIMAL;
+        }
+        NumberNode node = new NumberNode(type, literal, value);
+        return kindOf(node) == kind ? node : null;
+    }
+
+    private static BooleanNode bool(boolean value, String text) {
+        BooleanNode node = new BooleanNode();
+        node.type = FTypes.BOOLEAN;
+        node.text = text;
+        node.value = value;
+        return node;
+    }
+
+    private static StringNode string(String value, String text) {
+        StringNode node = new StringNode();
+        node.type = FTypes.STRING;
+        node.text = text;
+        node.value = value;
+        return node;
+    }
+
+    private static boolean isConstant(@Nullable ASTNode node) {
+        return node instanceof NumberNode || node instanceof StringNode || node instanceof BooleanNode || node instanceof DateTimeNode;
+    }
+
+    private static ASTNode copy(ASTNode literal, String text) {
+        if (literal instanceof NumberNode number) {
+            return new NumberNode(number.type, number.text, number.getValue());
+        } else if (literal instanceof StringNode string) {
+            return string(string.value, text);
+        } else if (literal instanceof BooleanNode bool) {
+            return bool(bool.value, text);
+        } else if (literal instanceof DateTimeNode dateTime) {
+            DateTimeNode node = new DateTimeNode();
+            node.type = dateTime.type;
+            node.text = dateTime.text;
+            node.literal = dateTime.literal;
+            return node;
+        }
+        throw new IllegalArgumentException("Not a literal: " + literal);
+    }
+
+    /**
+     * 把 node 中对 name 的引用替换为字面量，遇到重新绑定 name 的作用域时停止
+     */
+    private static ASTNode substitute(ASTNode node, String name, ASTNode literal) {
+        if (node instanceof NameExprNode ref) {
+            return name.equals(ref.name) ? copy(literal, ref.text) : node;
+        }
+        if (node instanceof ContextNode context) {
+            for (Map.Entry<String, ASTNode> entry : context.entries.entrySet()) {
+                entry.setValue(substitute(entry.getValue(), name, literal));
+                if (name.equals(entry.getKey())) {
+                    break;
+                }
+            }
+        } else if (node instanceof ForNode forNode) {
+            if (substitute(forNode.iterations, name, literal)) {
+                forNode.result = substitute(forNode.result, name, literal);
+            }
+        } else if (node instanceof QuantifiedNode quantified) {
+            if (substitute(quantified.iterations, name, literal)) {
+                quantified.judge = substitute(quantified.judge, name, literal);
+            }
+        } else if (node instanceof FunDefinitionNode fun) {
+            if (!fun.params.containsKey(name)) {
+                fun.body = substitute(fun.body, name, literal);
+            }
+        } else if (node instanceof FilterNode filter) {
+            // 过滤条件中的名称可能是元素的成员
+            filter.target = substitute(filter.target, name, literal);
+        } else {
+            rewrite(node, child -> substitute(child, name, literal));
+        }
+        return node;
+    }
+
+    /**
+     * @return 迭代变量没有重新绑定 name 时返回 true
+     */
+    private static boolean substitute(List<Iteration> iterations, String name, ASTNode literal) {
+        for (Iteration iteration : iterations) {
+            iteration.start = substitute(iteration.start, name, literal);
+            if (iteration.end != null) {
+                iteration.end = substitute(iteration.end, name, literal);
+            }
+            if (name.equals(iteration.name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 用 f 的结果替换 node 的每个子节点
+     */
+    private static void rewrite(ASTNode node, UnaryOperator<ASTNode> f) {
+        if (node instanceof InfixOpNode n) {
+            n.left = f.apply(n.left);
+            n.right = f.apply(n.right);
+        } else if (node instanceof NegationNode n) {
+            n.value = f.apply(n.value);
+        } else if (node instanceof IfNode n) {
+            n.condition = f.apply(n.condition);
+            n.then = f.apply(n.then);
+            n.otherwise = f.apply(n.otherwise);
+        } else if (node instanceof PathNode n) {
+            n.left = f.apply(n.left);
+        } else if (node instanceof FunInvocationNode n) {
+            n.function = f.apply(n.function);
+            if (n.params != null) {
+                n.params = map(n.params, f);
+            }
+        } else if (node instanceof ListNode n) {
+            if (n.elements != null) {
+                n.elements = map(n.elements, f);
+            }
+        } else if (node instanceof ContextNode n) {
+            n.entries.replaceAll((key, value) -> f.apply(value));
+        } else if (node instanceof FilterNode n) {
+            n.target = f.apply(n.target);
+            n.filter = f.apply(n.filter);
+        } else if (node instanceof ForNode n) {
+            rewrite(n.iterations, f);
+            n.result = f.apply(n.result);
+        } else if (node instanceof QuantifiedNode n) {
+            rewrite(n.iterations, f);
+            n.judge = f.apply(n.judge);
+        } else if (node instanceof FunDefinitionNode n) {
+            if (n.body != null) {
+                n.body = f.apply(n.body);
+            }
+        } else if (node instanceof BetweenNode n) {
+            n.value = f.apply(n.value);
+            n.start = f.apply(n.start);
+            n.end = f.apply(n.end);
+        } else if (node instanceof InNode n) {
+            n.value = f.apply(n.value);
+            n.target = f.apply(n.target);
+        } else if (node instanceof InstanceOfNode n) {
+            n.value = f.apply(n.value);
+        } else if (node instanceof RangeNode n) {
+            if (n.start != null) {
+                n.start = f.apply(n.start);
+            }
+            if (n.end != null) {
+                n.end = f.apply(n.end);
+            }
+        } else if (node instanceof UnaryTestsNode n) {
+            if (n.positiveUnaryTests != null) {
+                rewrite(n.positiveUnaryTests, f);
+            }
+        }
+    }
+
+    private static void rewrite(List<Iteration> iterations, UnaryOperator<ASTNode> f) {
+        for (Iteration iteration : iterations) {
+            iteration.start = f.apply(iteration.start);
+            if (iteration.end != null) {
+                iteration.end = f.apply(iteration.end);
+            }
+        }
+    }
+
+    private static List<ASTNode> map(List<ASTNode> nodes, UnaryOperator<ASTNode> f) {
+        List<ASTNode> result = new ArrayList<>(nodes.size());
+        for (ASTNode node : nodes) {
+            result.add(f.apply(node));
+        }
+        return result;
+    }
+}
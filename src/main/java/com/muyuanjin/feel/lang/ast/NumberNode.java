@@ -1,5 +1,6 @@
 package com.muyuanjin.feel.lang.ast;
 
+import com.muyuanjin.feel.lang.FType;
 import com.muyuanjin.feel.lang.FTypes;
 import com.muyuanjin.feel.parser.ParserUtil;
 import com.muyuanjin.feel.parser.antlr4.FEELParser;
@@ -27,6 +28,15 @@ public class NumberNode extends BaseASTNode implements AstNodeLiteral {
         }
     }
 
+    /**
+     * 常量折叠的结果，text 必须是合法的 java 数值字面量
+     */
+    NumberNode(FType type, String text, BigDecimal value) {
+        this.type = type;
+        this.text = text;
+        this.value = value;
+    }
+
     @Override
     public <T> T accept(@NotNull Visitor<T> v) {
         return v.visit(this);
@@ -0,0 +1,149 @@
+package com.muyuanjin.feel.parser;
+
+import com.muyuanjin.common.util.LazyLog;
+import com.muyuanjin.compiler.util.Throws;
+import com.muyuanjin.feel.lang.FeelRange;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.time.*;
+import java.time.chrono.ChronoPeriod;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 静态类型未知（ANY）时读取成员的内联缓存，生成的代码为每个访问点创建一个实例
+ * <p>
+ * 按接收者的类缓存读取函数，最多缓存 {@link #MAX_POLYMORPHIC} 种类型，超过后退化为全局按类和成员名查找（megamorphic）。
+ * POJO 的读方法通过 {@link LambdaMetafactory} 生成实现类，失败时依次退化为 {@link MethodHandle} 和反射，
+ * 结果的转换与 {@link ParserUtil#accessMember(Object, String)} 一致，后者读取 POJO 时也使用这里的全局缓存
+ *
+ * @author muyuanjin
+ */
+public final class MemberAccessor {
+    private static final LazyLog log = LazyLog.of(MemberAccessor.class);
+    private static final int MAX_POLYMORPHIC = 4;
+    private static final Entry[] EMPTY = new Entry[0];
+    private static final ClassValue<Map<String, Function<Object, Object>>> GETTERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Function<Object, Object>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final String property;
+    /**
+     * 只会整体替换，读到的总是完整的数组
+     */
+    private volatile Entry[] entries = EMPTY;
+    private volatile boolean megamorphic;
+
+    public MemberAccessor(String property) {
+        this.property = property;
+    }
+
+    public Object get(Object current) {
+        if (current == null) {
+            return null;
+        }
+        Class<?> type = current.getClass();
+        if (!megamorphic) {
+            Entry[] cached = entries;
+            for (Entry entry : cached) {
+                if (entry.type == type) {
+                    return entry.getter.apply(current);
+                }
+            }
+            Function<Object, Object> getter = getter(type, property);
+            if (cached.length < MAX_POLYMORPHIC) {
+                Entry[] updated = new Entry[cached.length + 1];
+                System.arraycopy(cached, 0, updated, 0, cached.length);
+                updated[cached.length] = new Entry(type, getter);
+                entries = updated;
+            } else {
+                megamorphic = true;
+                entries = EMPTY;
+            }
+            return getter.apply(current);
+        }
+        return getter(type, property).apply(current);
+    }
+
+    /**
+     * @return 类型 type 的成员 property 的读取函数，全局共享
+     */
+    public static Function<Object, Object> getter(Class<?> type, String property) {
+        Map<String, Function<Object, Object>> getters = GETTERS.get(type);
+        Function<Object, Object> getter = getters.get(property);
+        if (getter == null) {
+            getter = getters.computeIfAbsent(property, p -> createGetter(type, p));
+        }
+        return getter;
+    }
+
+    private static Function<Object, Object> createGetter(Class<?> type, String property) {
+        if (Map.class.isAssignableFrom(type)) {
+            return current -> ((Map<?, ?>) current).get(property);
+        }
+        if (ChronoPeriod.class.isAssignableFrom(type) || Duration.class.isAssignableFrom(type)
+            || TemporalAccessor.class.isAssignableFrom(type) || FeelRange.class.isAssignableFrom(type)) {
+            return current -> ParserUtil.accessMember(current, property);
+        }
+        Method method = ParserUtil.PROPERTY_READ.get(type).get(property);
+        if (method == null) {
+            return current -> null;
+        }
+        try {
+            return lambdaGetter(method);
+        } catch (Throwable e) {
+            log.debug("can not spin getter for {}, fall back to method handle", method, e);
+        }
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+            return current -> {
+                try {
+                    return convert(handle.invokeExact(current));
+                } catch (Throwable e) {
+                    throw Throws.sneakyThrows(e);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            log.debug("can not access {}, fall back to reflection", method, e);
+        }
+        return current -> {
+            try {
+                return convert(method.invoke(current));
+            } catch (ReflectiveOperationException e) {
+                throw Throws.sneakyThrows(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> lambdaGetter(Method method) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+        MethodHandle handle = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class), handle, handle.type().wrap());
+        Function<Object, Object> raw = (Function<Object, Object>) site.getTarget().invoke();
+        return current -> convert(raw.apply(current));
+    }
+
+    private static Object convert(Object value) {
+        if (value instanceof Character c) {
+            return c.toString();
+        } else if (value instanceof Date date) {
+            return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDateTime();
+        }
+        return value;
+    }
+
+    private record Entry(Class<?> type, Function<Object, Object> getter) {}
+}
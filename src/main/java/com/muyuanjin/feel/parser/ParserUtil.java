@@ -674,16 +674,6 @@ public class ParserUtil {
                 default -> null;
             };
         }
-        Method method = PROPERTY_READ.get(current.getClass()).get(property);
-        if (method != null) {
-            Object invoke = method.invoke(current);
-            if (invoke instanceof Character c) {
-                invoke = c.toString();
-            } else if (invoke instanceof Date date) {
-                invoke = Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDateTime();
-            }
-            return invoke;
-        }
-        return null;
+        return MemberAccessor.getter(current.getClass(), property).apply(current);
     }
 }
\ No newline at end of file
@@ -15,10 +15,14 @@ import com.muyuanjin.common.util.TypeUtil;
 import com.muyuanjin.feel.FeelTypeFactory;
 import com.muyuanjin.feel.exception.FeelException;
 import com.muyuanjin.feel.exception.FeelLangException;
+import com.muyuanjin.feel.impl.ListFunctions;
+import com.muyuanjin.feel.impl.NumericFunctions;
 import com.muyuanjin.feel.lang.FType;
 import com.muyuanjin.feel.lang.FTypes;
 import com.muyuanjin.feel.lang.FeelFunction;
+import com.muyuanjin.feel.lang.FeelFunctions;
 import com.muyuanjin.feel.lang.FeelRange;
+import com.muyuanjin.feel.lang.NumberList;
 import com.muyuanjin.feel.lang.ast.*;
 import com.muyuanjin.feel.lang.type.*;
 import com.muyuanjin.feel.parser.ParserUtil;
@@ -41,6 +45,17 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
     private final Context context;
 
     private final Map<Object, Integer> countMap = new HashMap<>();
+    /**
+     * 公共子表达式消除：结构在整棵树中出现的次数、已计算节点的键、已保存到局部变量的结果，以及代码块的外层代码块
+     */
+    private final Map<String, Integer> shapeCounts = new HashMap<>();
+    private final Map<ASTNode, String> cseKeys = new IdentityHashMap<>();
+    private final Map<String, List<CommonExpr>> cseLocals = new HashMap<>();
+    private final Map<BlockStmt, BlockStmt> blockParents = new IdentityHashMap<>();
+    /**
+     * 下一个要编译的 for 或 filter 节点的结果不收集成列表，而是交给调用方在循环中直接消费
+     */
+    private Fusion fusion;
     private int feelFunCount = 0;
     private boolean started = false;
 
@@ -80,7 +95,8 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         boolean oldStarted = started;
         if (!oldStarted) {
             this.started = true;
-            this.manager.nextMethod(task.methodName(), Map.of(task.rootInputParam(), task.rootInputJavaType()));
+            this.manager.nextMethod(task.methodName(), Map.of(task.rootInputParam(), task.rootInputParamType()));
+            countShapes(n);
         }
         ASTNode old = manager.node();
         manager.node(n);
@@ -159,6 +175,13 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
 
     @Override
     public JavaExpr visit(FilterNode n) {
+        // 固定的正数下标只需要找到第几个元素，不需要整个列表
+        if (n.filter instanceof NumberNode number && canFuse(n.target) && number.getValue().signum() > 0
+            && number.getValue().stripTrailingZeros().scale() <= 0 && number.getValue().compareTo(INT_MAX) <= 0) {
+            int index = number.getValue().intValue();
+            return fuse(n.target, loop -> fusedIndex(n, loop, index));
+        }
+        Sink sink = takeSink(n);
         scope.pushScope();
         boolean isContext = false;
         JavaExpr target = visit(n.target);
@@ -189,17 +212,12 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
 
         Expression expr = target.expr();
         if (n.filter.getType() instanceof FBoolean) {
-            String varName = nextVarName("filter_");
-            var varType = manager.getType(n.type.getJavaType());
-            var declarator = new VariableDeclarator(varType, varName);
-            declarator.setInitializer(new ObjectCreationExpr().setType(manager.getClassType(ArrayList.class).setTypeArguments()));
-            NameExpr filterResult = declarator.getNameAsExpression();
             // For 循环
             Statement forStmt = createForStmt(target, null, elementType, name);
             BlockStmt forBody = getOrSetForBody(forStmt);
 
             BlockStmt oldBlock = manager.getCurrentBlock();
-            manager.setCurrentBlock(forBody);
+            enterBlock(forBody, oldBlock);
             NameExpr itemExpr = new NameExpr(name);
             if (isContext) {
                 scope.addVarListener((memberName, javaExpr) -> {
@@ -223,11 +241,23 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
             // 如果 filter expr 的结果是 true 则添加到结果列表
             IfStmt ifStmt = new IfStmt();
             ifStmt.setCondition(filter.expr());
-            ifStmt.setThenStmt(new BlockStmt().addStatement(new ExpressionStmt(new MethodCallExpr(filterResult, "add").addArgument(itemExpr))));
+            BlockStmt thenBlock = new BlockStmt();
+            ifStmt.setThenStmt(thenBlock);
             forBody.addStatement(ifStmt);
             manager.setCurrentBlock(oldBlock);
+            if (sink != null) {
+                blockParents.put(thenBlock, forBody);
+                JavaExpr element = JavaExpr.of(n, itemExpr, elementType.getJavaType()).feelType(elementType);
+                return sink.accept(new Loop(forStmt, thenBlock, element, constant, 1));
+            }
             varNameMarks.forEach(this::resetVarName);
             resetVarName(item, marted);
+            String varName = nextVarName("filter_");
+            var varType = manager.getType(n.type.getJavaType());
+            var declarator = new VariableDeclarator(varType, varName);
+            declarator.setInitializer(newResultList(n.type, elementType.getJavaType(), null));
+            NameExpr filterResult = declarator.getNameAsExpression();
+            thenBlock.addStatement(new ExpressionStmt(new MethodCallExpr(filterResult, "add").addArgument(itemExpr)));
             if (constant) {
                 NameExpr staticField = manager.addStaticField(new VariableDeclarator(varType, varName));
                 BlockStmt initBlock = new BlockStmt();
@@ -255,7 +285,6 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
                 } else if (filter.node() instanceof NegationNode negationNode && negationNode.value instanceof NumberNode node) {
                     value = node.getValue().negate();
                 }
-                //TODO 还有 InfixOp 也可以计算出常量
             }
             // 单列表
             if (elementType.equals(type)) {
@@ -423,7 +452,7 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         // then
         BlockStmt thenBlock = new BlockStmt();
         ifStmt.setThenStmt(thenBlock);
-        manager.setCurrentBlock(thenBlock);
+        enterBlock(thenBlock, oldBlock);
         JavaExpr thenExpr = visit(n.then);
         constant &= thenExpr.constant();
         thenBlock.addStatement(new ExpressionStmt(new AssignExpr(result, thenExpr.expr(), AssignExpr.Operator.ASSIGN)));
@@ -431,7 +460,7 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         // else
         BlockStmt elseBlock = new BlockStmt();
         ifStmt.setElseStmt(elseBlock);
-        manager.setCurrentBlock(elseBlock);
+        enterBlock(elseBlock, oldBlock);
         JavaExpr elseExpr = visit(n.otherwise);
         constant &= elseExpr.constant();
         elseBlock.addStatement(new ExpressionStmt(new AssignExpr(result, elseExpr.expr(), AssignExpr.Operator.ASSIGN)));
@@ -531,11 +560,14 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         if (n.iterations == null || n.iterations.isEmpty()) {
             return JavaExpr.ofNull(n);
         }
+        Sink sink = takeSink(n);
         scope.pushScope();
 
         Statement first = null;
         boolean constant = true;
         BlockStmt lastBlock = null;
+        BlockStmt oldBlock = manager.getCurrentBlock();
+        Expression capacity = null;
         int marted = markVarName("it");
         for (Iteration iteration : n.iterations) {
             SimpleName name = new SimpleName(nextVarName("it"));
@@ -545,6 +577,13 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
             constant &= end == null || end.constant();
             FType type = end == null ? start.feelType() : start.feelType().minSuper(end.feelType());
             var elementType = FType.getElementType(start.feelType(), end == null ? null : end.feelType());
+            if (n.iterations.size() == 1 && (end == null ? start.feelType() instanceof FList
+                    : elementType == FNumber.INTEGER || elementType == FNumber.LONG)) {
+                // 来源先保存到局部变量，才能在循环前取得迭代次数
+                start = sourceVar(start);
+                end = end == null ? null : sourceVar(end);
+                capacity = iterationCount(start, end);
+            }
             Statement forStmt = createForStmt(start, end, elementType, name);
             scope.put(iteration.name, JavaExpr.of(n, new NameExpr(name), elementType.getJavaType()).feelType(elementType));
             if (lastBlock == null) {
@@ -552,14 +591,18 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
             } else {
                 lastBlock.addStatement(forStmt);
             }
+            // 后续迭代的来源可能引用前面的迭代变量，在前一层循环体中编译
+            BlockStmt outer = manager.getCurrentBlock();
             lastBlock = getOrSetForBody(forStmt);
+            enterBlock(lastBlock, outer);
+        }
+        // 融合时调用方可能继续在循环体内生成代码，迭代变量名不能复用
+        if (sink == null) {
+            resetVarName("it", marted);
         }
-        resetVarName("it", marted);
         if (first == null) {
             throw new FeelLangException(n, "No iteration found");// should not happen, just for idea warning
         }
-        BlockStmt oldBlock = manager.getCurrentBlock();
-        manager.setCurrentBlock(lastBlock);
 
         boolean[] constantBox = new boolean[]{constant};
         // “it” 不能是常量，但也不能让它影响filter语句的常量性（其实应该是对外部的引用性，需要重构）
@@ -568,11 +611,14 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         constant = constantBox[0];
         manager.setCurrentBlock(oldBlock);
         scope.popScope();
+        if (sink != null) {
+            return sink.accept(new Loop(first, lastBlock, forReturn, constant, n.iterations.size()));
+        }
 
         String varName = nextVarName("forResult");
         var varType = manager.getType(n.type.getJavaType());
         var resultVar = new VariableDeclarator(varType, varName);
-        resultVar.setInitializer(new ObjectCreationExpr().setType(manager.getClassType(ArrayList.class).setTypeArguments()));
+        resultVar.setInitializer(newResultList(n.type, forReturn.javaType(), capacity));
         NameExpr result = resultVar.getNameAsExpression();
         lastBlock.addStatement(new MethodCallExpr(result, "add").addArgument(forReturn.expr()));
 
@@ -601,31 +647,53 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
 
         Statement first = null;
         boolean constant = true;
+        int depth = 0;
         BlockStmt lastBlock = null;
+        BlockStmt oldBlock = manager.getCurrentBlock();
         int marted = markVarName("it");
         for (Iteration iteration : n.iterations) {
-            SimpleName name = new SimpleName(nextVarName("it"));
-            JavaExpr start = visit(iteration.start);
-            constant &= start.constant();
-            JavaExpr end = iteration.end == null ? null : visit(iteration.end);
-            constant &= end == null || end.constant();
-            FType type = end == null ? start.feelType() : start.feelType().minSuper(end.feelType());
-            var elementType = FType.getElementType(start.feelType(), end == null ? null : end.feelType());
-            Statement forStmt = createForStmt(start, end, elementType, name);
-            scope.put(iteration.name, JavaExpr.of(n, new NameExpr(name), elementType.getJavaType()).feelType(elementType));
+            Statement forStmt;
+            BlockStmt forBody;
+            if (iteration.end == null && canFuse(iteration.start)) {
+                // 迭代来源是 for 或 filter 时直接在它的循环体中判断，不生成中间列表
+                Loop[] box = new Loop[1];
+                fuse(iteration.start, loop -> (box[0] = loop).element());
+                Loop loop = box[0];
+                constant &= loop.constant();
+                depth += loop.depth();
+                JavaExpr element = elementOf(loop);
+                scope.put(iteration.name, JavaExpr.of(n, element.expr(), element.javaType()).feelType(element.feelType()).nullable(element.nullable()));
+                forStmt = loop.statement();
+                forBody = loop.body();
+            } else {
+                SimpleName name = new SimpleName(nextVarName("it"));
+                JavaExpr start = visit(iteration.start);
+                constant &= start.constant();
+                JavaExpr end = iteration.end == null ? null : visit(iteration.end);
+                constant &= end == null || end.constant();
+                var elementType = FType.getElementType(start.feelType(), end == null ? null : end.feelType());
+                forStmt = createForStmt(start, end, elementType, name);
+                depth++;
+                scope.put(iteration.name, JavaExpr.of(n, new NameExpr(name), elementType.getJavaType()).feelType(elementType));
+                forBody = getOrSetForBody(forStmt);
+            }
             if (lastBlock == null) {
-                first = n.iterations.size() > 1 ? new LabeledStmt("outer", forStmt) : forStmt;
+                first = forStmt;
             } else {
                 lastBlock.addStatement(forStmt);
             }
-            lastBlock = getOrSetForBody(forStmt);
+            // 后续迭代的来源可能引用前面的迭代变量，在前一层循环体中编译
+            BlockStmt outer = manager.getCurrentBlock();
+            lastBlock = forBody;
+            enterBlock(lastBlock, outer);
         }
         resetVarName("it", marted);
         if (first == null) {
             throw new FeelLangException(n, "No iteration found");// should not happen, just for idea warning
         }
-        BlockStmt oldBlock = manager.getCurrentBlock();
-        manager.setCurrentBlock(lastBlock);
+        if (depth > 1) {
+            first = new LabeledStmt("outer", first);
+        }
 
         boolean[] constantBox = new boolean[]{constant};
         // “it” 不能是常量，但也不能让它影响filter语句的常量性（其实应该是对外部的引用性，需要重构）
@@ -648,9 +716,9 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         ifStmt.setThenStmt(thenBlock);
         if (n.every) {
             ifStmt.setElseStmt(new BlockStmt().addStatement(new ExpressionStmt(new AssignExpr(result, new BooleanLiteralExpr(false),
-                    AssignExpr.Operator.ASSIGN))).addStatement(new BreakStmt(n.iterations.size() > 1 ? new SimpleName("outer") : null)));
+                    AssignExpr.Operator.ASSIGN))).addStatement(new BreakStmt(depth > 1 ? new SimpleName("outer") : null)));
         } else {
-            thenBlock.addStatement(new BreakStmt(n.iterations.size() > 1 ? new SimpleName("outer") : null));
+            thenBlock.addStatement(new BreakStmt(depth > 1 ? new SimpleName("outer") : null));
         }
         lastBlock.addStatement(ifStmt);
         if (!constant) {
@@ -715,6 +783,246 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         throw new FeelLangException(manager.node(), "forStmt is not ForEachStmt or ForStmt");
     }
 
+    private JavaExpr sourceVar(JavaExpr source) {
+        if (source.constant() || source.isSimple()) {
+            return source;
+        }
+        var declarator = new VariableDeclarator(manager.getType(source.javaType()), nextVarName("source"), source.expr());
+        manager.addLocalField(declarator);
+        return source.copy().expr(declarator.getNameAsExpression());
+    }
+
+    /**
+     * @return 单层迭代的次数（列表的大小或整数区间的长度），来源不是简单表达式时返回 null
+     */
+    @Nullable
+    private Expression iterationCount(JavaExpr start, @Nullable JavaExpr end) {
+        if (!start.isSimple() || end != null && !end.isSimple()) {
+            return null;
+        }
+        if (end == null) {
+            Expression list = start.expr();
+            if (list instanceof CastExpr || list instanceof ConditionalExpr) {
+                list = new EnclosedExpr(list);
+            }
+            return new MethodCallExpr(list, "size");
+        }
+        return manager.getStaticMethod(NumberList.class, "capacity").addArgument(start.expr()).addArgument(end.expr());
+    }
+
+    /**
+     * for、filter 的结果列表，元素是 int、long、double 时使用基本类型数组实现的列表
+     */
+    private ObjectCreationExpr newResultList(FType listType, Type elementJavaType, @Nullable Expression capacity) {
+        FType elementType = FType.getElementType(listType);
+        ObjectCreationExpr list;
+        if (elementType == FNumber.INTEGER && elementJavaType == int.class) {
+            list = new ObjectCreationExpr().setType(manager.getClassType(NumberList.OfInt.class));
+        } else if (elementType == FNumber.LONG && elementJavaType == long.class) {
+            list = new ObjectCreationExpr().setType(manager.getClassType(NumberList.OfLong.class));
+        } else if (elementType == FNumber.DOUBLE && elementJavaType == double.class) {
+            list = new ObjectCreationExpr().setType(manager.getClassType(NumberList.OfDouble.class));
+        } else {
+            list = new ObjectCreationExpr().setType(manager.getClassType(ArrayList.class).setTypeArguments());
+        }
+        if (capacity != null) {
+            list.addArgument(capacity);
+        }
+        return list;
+    }
+
+    private static boolean canFuse(ASTNode n) {
+        return n instanceof ForNode forNode && forNode.iterations != null && !forNode.iterations.isEmpty()
+               || n instanceof FilterNode filterNode && filterNode.filter.getType() instanceof FBoolean;
+    }
+
+    private JavaExpr fuse(ASTNode source, Sink sink) {
+        fusion = new Fusion(source, sink);
+        try {
+            return visit(source);
+        } finally {
+            fusion = null;
+        }
+    }
+
+    @Nullable
+    private Sink takeSink(ASTNode n) {
+        Fusion current = fusion;
+        if (current == null || current.source() != n) {
+            return null;
+        }
+        fusion = null;
+        return current.sink();
+    }
+
+    /**
+     * 结果直接作为唯一参数传给 count、sum、min、max、any、all 时，在循环中累加并尽早跳出，不生成中间列表
+     */
+    @Nullable
+    private JavaExpr fusedCall(FunInvocationNode n) {
+        if (!(n.function instanceof NameExprNode name) || n.params.size() != 1 || !canFuse(n.params.get(0))
+            || !(name.getType() instanceof FFunction function) || function.hasVarargs()
+            || scope.isLocal(name.text) || task.inputTypes().containsKey(name.text)) {
+            return null;
+        }
+        FeelFunctions builtin = FeelFunctions.from(name.text);
+        if (builtin == null) {
+            return null;
+        }
+        ASTNode source = n.params.get(0);
+        FType elementType = FType.getElementType(source.getType());
+        return switch (builtin) {
+            case count -> fuse(source, loop -> {
+                var count = new VariableDeclarator(PrimitiveType.intType(), nextVarName("count"), new IntegerLiteralExpr("0"));
+                loop.body().addStatement(new UnaryExpr(count.getNameAsExpression(), UnaryExpr.Operator.PREFIX_INCREMENT));
+                return emitFused(n, loop, null, List.of(count), count.getNameAsExpression(), int.class);
+            });
+            // 元素类型未知时需要先看过所有元素才能决定求和方式，不融合，交给 NumericFunctions.sum 按实际类型分派
+            case sum -> elementType instanceof FNumber number && number != FNumber.NUMBER ? fuse(source, loop -> {
+                var sum = new VariableDeclarator(manager.getClassType(NumericFunctions.SumAccumulator.class), nextVarName("sum"),
+                        new ObjectCreationExpr().setType(manager.getClassType(NumericFunctions.SumAccumulator.class))
+                                .addArgument(manager.getStaticField(FNumber.class, number.name())));
+                loop.body().addStatement(new MethodCallExpr(sum.getNameAsExpression(), "add").addArgument(loop.element().expr()));
+                return emitFused(n, loop, null, List.of(sum), new MethodCallExpr(sum.getNameAsExpression(), "get"), Number.class);
+            }) : null;
+            case min, max -> elementType instanceof FNumber || elementType instanceof FString
+                    ? fuse(source, loop -> fusedExtremum(n, loop, builtin == FeelFunctions.min)) : null;
+            case any, all -> elementType instanceof FBoolean || elementType instanceof FAny
+                    ? fuse(source, loop -> fusedAnyAll(n, loop, builtin == FeelFunctions.any)) : null;
+            default -> null;
+        };
+    }
+
+    private JavaExpr fusedExtremum(ASTNode n, Loop loop, boolean isMin) {
+        JavaExpr element = elementOf(loop);
+        Type type = TypeUtil.primitiveToWrapper(element.javaType());
+        var extremum = new VariableDeclarator(manager.getType(type), nextVarName(isMin ? "min" : "max"), new NullLiteralExpr());
+        NameExpr extremumExpr = extremum.getNameAsExpression();
+        JavaExpr current = JavaExpr.of(n, extremumExpr, type).feelType(element.feelType());
+        JavaExpr better = typeFactory.infixOp(n, element, current, isMin ? InfixOpNode.Op.LT : InfixOpNode.Op.GT, context);
+        if (better == null) {
+            throw new FeelLangException(n, "Cannot compare " + element.feelType() + " in " + (isMin ? "min" : "max"));
+        }
+        // 空元素不参与比较
+        Expression condition = new BinaryExpr(new BinaryExpr(extremumExpr, new NullLiteralExpr(), BinaryExpr.Operator.EQUALS),
+                getIfCondition(better), BinaryExpr.Operator.OR);
+        if (element.nullable()) {
+            condition = new BinaryExpr(new BinaryExpr(element.expr(), new NullLiteralExpr(), BinaryExpr.Operator.NOT_EQUALS),
+                    new EnclosedExpr(condition), BinaryExpr.Operator.AND);
+        }
+        loop.body().addStatement(new IfStmt(condition, new BlockStmt().addStatement(
+                new AssignExpr(extremumExpr, element.expr(), AssignExpr.Operator.ASSIGN)), null));
+        return emitFused(n, loop, null, List.of(extremum), extremumExpr, type).feelType(element.feelType());
+    }
+
+    /**
+     * any 遇到 true、all 遇到 false 立即跳出；元素不是布尔值时结果为 null，除非之后遇到能决定结果的元素
+     */
+    private JavaExpr fusedAnyAll(ASTNode n, Loop loop, boolean isAny) {
+        JavaExpr element = elementOf(loop);
+        SimpleName label = loop.depth() > 1 ? new SimpleName(nextVarName("fused")) : null;
+        boolean primitive = element.javaType() == boolean.class;
+        var result = new VariableDeclarator(primitive ? PrimitiveType.booleanType() : manager.getClassType(Boolean.class),
+                nextVarName(isAny ? "any" : "all"), new BooleanLiteralExpr(!isAny));
+        NameExpr resultExpr = result.getNameAsExpression();
+        Expression decided;
+        if (primitive) {
+            decided = isAny ? element.expr() : new UnaryExpr(element.expr(), UnaryExpr.Operator.LOGICAL_COMPLEMENT);
+        } else {
+            decided = new MethodCallExpr(manager.getStaticField(Boolean.class, isAny ? "TRUE" : "FALSE"), "equals").addArgument(element.expr());
+        }
+        IfStmt ifStmt = new IfStmt(decided, new BlockStmt()
+                .addStatement(new AssignExpr(resultExpr, new BooleanLiteralExpr(isAny), AssignExpr.Operator.ASSIGN))
+                .addStatement(new BreakStmt(label)), null);
+        if (!primitive) {
+            ifStmt.setElseStmt(new IfStmt(new UnaryExpr(new EnclosedExpr(new InstanceOfExpr(element.expr(), manager.getClassType(Boolean.class))),
+                    UnaryExpr.Operator.LOGICAL_COMPLEMENT),
+                    new BlockStmt().addStatement(new AssignExpr(resultExpr, new NullLiteralExpr(), AssignExpr.Operator.ASSIGN)), null));
+        }
+        loop.body().addStatement(ifStmt);
+        return emitFused(n, loop, label, List.of(result), resultExpr, primitive ? boolean.class : Boolean.class);
+    }
+
+    /**
+     * 取第 index 个（从 1 开始）元素，找到后立即跳出，元素不足时和普通的下标访问一样抛出越界异常
+     * <p>
+     * 常量循环在静态初始化块中执行，越界检查推迟到求值时，避免类初始化失败
+     */
+    private JavaExpr fusedIndex(FilterNode n, Loop loop, int index) {
+        JavaExpr element = loop.element();
+        SimpleName label = loop.depth() > 1 ? new SimpleName(nextVarName("fused")) : null;
+        Type type = element.javaType() == void.class ? Object.class : TypeUtil.primitiveToWrapper(element.javaType());
+        var found = new VariableDeclarator(manager.getType(type), nextVarName("found"), new NullLiteralExpr());
+        var position = new VariableDeclarator(PrimitiveType.intType(), nextVarName("position"), new IntegerLiteralExpr("0"));
+        NameExpr foundExpr = found.getNameAsExpression();
+        loop.body().addStatement(new IfStmt(new BinaryExpr(new UnaryExpr(position.getNameAsExpression(), UnaryExpr.Operator.PREFIX_INCREMENT),
+                new IntegerLiteralExpr(Integer.toString(index)), BinaryExpr.Operator.EQUALS), new BlockStmt()
+                .addStatement(new AssignExpr(foundExpr, element.expr(), AssignExpr.Operator.ASSIGN))
+                .addStatement(new BreakStmt(label)), null));
+        FType elementType = FType.getElementType(n.target.getType());
+        if (!loop.constant()) {
+            MethodCallExpr checked = manager.getStaticMethod(ListFunctions.class, "elementAt")
+                    .addArgument(foundExpr).addArgument(new IntegerLiteralExpr(Integer.toString(index))).addArgument(position.getNameAsExpression());
+            return emitFused(n, loop, label, List.of(found, position), checked, type).feelType(elementType);
+        }
+        NameExpr foundField = manager.addStaticField(new VariableDeclarator(manager.getType(type), nextVarName("fused")));
+        NameExpr countField = manager.addStaticField(new VariableDeclarator(PrimitiveType.intType(), nextVarName("fusedCount")));
+        BlockStmt initBlockStmt = new BlockStmt()
+                .addStatement(new VariableDeclarationExpr(found))
+                .addStatement(new VariableDeclarationExpr(position))
+                .addStatement(label == null ? loop.statement() : new LabeledStmt(label, loop.statement()))
+                .addStatement(new AssignExpr(foundField, foundExpr, AssignExpr.Operator.ASSIGN))
+                .addStatement(new AssignExpr(countField, position.getNameAsExpression(), AssignExpr.Operator.ASSIGN));
+        manager.addStaticFieldInit(countField, initBlockStmt);
+        MethodCallExpr checked = manager.getStaticMethod(ListFunctions.class, "elementAt")
+                .addArgument(foundField).addArgument(new IntegerLiteralExpr(Integer.toString(index))).addArgument(countField);
+        return JavaExpr.of(n, checked, type, false).feelType(elementType);
+    }
+
+    /**
+     * 循环体中的元素不是简单表达式时先保存到局部变量，避免重复计算
+     */
+    private JavaExpr elementOf(Loop loop) {
+        JavaExpr element = loop.element();
+        if (element.isSimple()) {
+            return element;
+        }
+        var declarator = new VariableDeclarator(manager.getType(element.javaType()), nextVarName("element"), element.expr());
+        loop.body().addStatement(new VariableDeclarationExpr(declarator));
+        return element.copy().expr(declarator.getNameAsExpression());
+    }
+
+    /**
+     * 把累加变量和融合后的循环加入当前代码块，循环是常量时整体放到静态初始化块中
+     */
+    private JavaExpr emitFused(ASTNode n, Loop loop, @Nullable SimpleName label, List<VariableDeclarator> vars, Expression result, Type type) {
+        Statement statement = label == null ? loop.statement() : new LabeledStmt(label, loop.statement());
+        if (!loop.constant()) {
+            vars.forEach(manager::addLocalField);
+            manager.addStatement(statement);
+            return JavaExpr.of(n, result, type, false);
+        }
+        NameExpr staticField = manager.addStaticField(new VariableDeclarator(manager.getType(type), nextVarName("fused")));
+        BlockStmt initBlockStmt = new BlockStmt();
+        vars.forEach(declarator -> initBlockStmt.addStatement(new VariableDeclarationExpr(declarator)));
+        initBlockStmt.addStatement(statement);
+        initBlockStmt.addStatement(new ExpressionStmt(new AssignExpr(staticField, result, AssignExpr.Operator.ASSIGN)));
+        manager.addStaticFieldInit(staticField, initBlockStmt);
+        return JavaExpr.ofCon(n, staticField, type);
+    }
+
+    /**
+     * 融合后的循环：循环语句、产生元素的代码块、元素以及嵌套的层数（多层时跳出需要标签）
+     */
+    private record Loop(Statement statement, BlockStmt body, JavaExpr element, boolean constant, int depth) {}
+
+    @FunctionalInterface
+    private interface Sink {
+        JavaExpr accept(Loop loop);
+    }
+
+    private record Fusion(ASTNode source, Sink sink) {}
+
 
     @Override
     public JavaExpr visit(NegationNode n) {
@@ -797,10 +1105,16 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
             JavaExpr apply = inLinePath.apply(manager, n.name);
             return apply.node(n).javaType(n.type.getJavaType()).constant(typedExpr.constant());
         }
+        String leftKey = cseKey(n.left, typedExpr);
+        String key = leftKey == null ? null : leftKey + "." + n.name;
+        JavaExpr reused = reuse(n, key);
+        if (reused != null) {
+            return reused;
+        }
 
         JavaExpr expr = this.typeFactory.getMember(n, typedExpr, n.name, context);
         if (expr != null) {
-            return expr;
+            return hoist(n, key, expr);
         }
         return JavaExpr.ofCon(n, new NullLiteralExpr(), void.class);
     }
@@ -1068,13 +1382,34 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
                     funField.setName(manager.nextName("fun_"));
                     funField.setType(manager.getType(n.type.getJavaType()));
                     var creationExpr = new ObjectCreationExpr();
-                    creationExpr.setType(manager.getClassType(FeelFunction.Default.class).setTypeArguments());
+                    // 参数个数不超过 3 时使用固定参数个数的实现，调用时不需要创建参数数组
+                    int paramCount = n.params.size();
+                    boolean fixedArity = !isNoLambda() && paramCount <= 3;
+                    boolean predicate = fixedArity && paramCount >= 1 && paramCount <= 2 && bodyResult.javaType() == boolean.class
+                                        && n.type instanceof FFunction type && type.getReturnType() instanceof FBoolean;
+                    Class<?> functionClass = !fixedArity ? FeelFunction.Default.class : predicate
+                            ? (paramCount == 1 ? FeelFunction.OfBoolean1.class : FeelFunction.OfBoolean2.class)
+                            : switch (paramCount) {
+                        case 0 -> FeelFunction.Of0.class;
+                        case 1 -> FeelFunction.Of1.class;
+                        case 2 -> FeelFunction.Of2.class;
+                        default -> FeelFunction.Of3.class;
+                    };
+                    ClassOrInterfaceType functionType = manager.getClassType(functionClass);
+                    creationExpr.setType(predicate ? functionType : functionType.setTypeArguments());
                     creationExpr.addArgument(manager.addStaticFType(n.type));
 
                     Expression function;
                     if (!isNoLambda()) {
                         LambdaExpr lambdaExpr = new LambdaExpr();
-                        lambdaExpr.addParameter(new UnknownType(), "args");
+                        if (!fixedArity) {
+                            lambdaExpr.addParameter(new UnknownType(), "args");
+                        } else {
+                            for (int i = 0; i < paramCount; i++) {
+                                lambdaExpr.addParameter(new UnknownType(), "arg" + i);
+                            }
+                            lambdaExpr.setEnclosingParameters(true);
+                        }
                         MethodCallExpr methodCallExpr = new MethodCallExpr(method.getName().getIdentifier());
                         NameExpr args = new NameExpr("args");
                         if (hasOuterVar) {
@@ -1088,7 +1423,8 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
                         }
                         int index = 0;
                         for (FType value : n.params.values()) {
-                            Expression accessExpr = new ArrayAccessExpr(args, new IntegerLiteralExpr(Integer.toString(index++)));
+                            Expression accessExpr = fixedArity ? new NameExpr("arg" + index++)
+                                    : new ArrayAccessExpr(args, new IntegerLiteralExpr(Integer.toString(index++)));
                             if (!(value instanceof FAny)) {
                                 accessExpr = new CastExpr(manager.getType(value.getJavaType()), accessExpr);
                             }
@@ -1163,6 +1499,10 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
 
     @Override
     public JavaExpr visit(FunInvocationNode n) {
+        JavaExpr fused = fusedCall(n);
+        if (fused != null) {
+            return fused;
+        }
         boolean allConstant = true;
         JavaExpr fun = visit(n.function);
         var inLineFun = fun.inLineFun();
@@ -1172,6 +1512,10 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         FFunction type = (FFunction) fun.feelType();
 
         Type resultType = type.getReturnType().getJavaType();
+        if (!inLine && resultType == boolean.class) {
+            // 不能确定被调用的函数不会返回 null，保留 null 以维持三值逻辑，比如 not(f(x))
+            resultType = Boolean.class;
+        }
         var resultAstType = manager.getType(resultType);
 
         Expression invoke;
@@ -1183,6 +1527,13 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         }
         if (inLine) {
             invoke = inLineFun.apply(manager, params);
+        } else if (params.length <= 3 && (type.getParamCount() == 0 || !type.hasVarargs())) {
+            // 签名已知且参数个数固定，使用不需要参数数组的调用
+            MethodCallExpr methodCallExpr = new MethodCallExpr(fun.expr(), "invoke" + params.length);
+            for (JavaExpr param : params) {
+                methodCallExpr.addArgument(param.expr());
+            }
+            invoke = methodCallExpr;
         } else {
             MethodCallExpr methodCallExpr = new MethodCallExpr(fun.expr(), "invoke");
             if (params.length == 1 && params[0].javaType() instanceof Class<?> clazz && (clazz.isArray() || clazz == void.class)) {
@@ -1248,9 +1599,21 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         JavaExpr left = visit(n.left);
         FType leftType = left.feelType();
         InfixOpNode.Op op = n.op;
+        if (op.isAndOr() && !left.constant()) {
+            return shortCircuit(n, left);
+        }
         JavaExpr right = visit(n.right);
         FType rightType = right.feelType();
-
+        String key = null;
+        if (isArithmetic(op)) {
+            String leftKey = cseKey(n.left, left);
+            String rightKey = cseKey(n.right, right);
+            key = leftKey == null || rightKey == null ? null : "(" + leftKey + op.symbol + rightKey + ")";
+            JavaExpr reused = reuse(n, key);
+            if (reused != null) {
+                return reused;
+            }
+        }
 
         Expression leftEx = left.expr();
         if (!left.isSimple()) {
@@ -1277,7 +1640,57 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
             return JavaExpr.ofCon(n, new NullLiteralExpr(), void.class);
         }
 
-        return typedExpr;
+        return hoist(n, key, typedExpr);
+    }
+
+    /**
+     * and/or 的右侧编译到单独的代码块中，左侧已经决定结果（and 左侧为 false，or 左侧为 true）时不再执行，
+     * 右侧只是简单表达式时保持原来的写法
+     */
+    private JavaExpr shortCircuit(InfixOpNode n, JavaExpr left) {
+        boolean isAnd = n.op == InfixOpNode.Op.AND;
+        if (!left.isSimple()) {
+            var leftVar = new VariableDeclarator(manager.getType(left.javaType()), nextVarName("left"), left.expr());
+            manager.addLocalField(leftVar);
+            left.expr(leftVar.getNameAsExpression());
+        }
+        BlockStmt oldBlock = manager.getCurrentBlock();
+        BlockStmt rightBlock = new BlockStmt();
+        enterBlock(rightBlock, oldBlock);
+        JavaExpr right = visit(n.right);
+        boolean lazy = !rightBlock.getStatements().isEmpty() || !right.isSimple();
+        if (lazy) {
+            if (!right.isSimple()) {
+                var rightVar = new VariableDeclarator(manager.getType(right.javaType()), nextVarName("right"), right.expr());
+                manager.addLocalField(rightVar);
+                right.expr(rightVar.getNameAsExpression());
+            }
+        } else {
+            manager.setCurrentBlock(oldBlock);
+        }
+        JavaExpr result = typeFactory.infixOp(n, left, right, n.op, context);
+        manager.setCurrentBlock(oldBlock);
+        if (result == null) {
+            return JavaExpr.ofCon(n, new NullLiteralExpr(), void.class);
+        }
+        if (!lazy || result.constant()) {
+            return result;
+        }
+        Type javaType = result.javaType();
+        var resultVar = new VariableDeclarator(manager.getType(javaType), nextVarName(isAnd ? "and" : "or"));
+        NameExpr resultExpr = resultVar.getNameAsExpression();
+        rightBlock.addStatement(new AssignExpr(resultExpr, result.expr(), AssignExpr.Operator.ASSIGN));
+
+        Expression decided;
+        if (left.javaType() == boolean.class) {
+            decided = isAnd ? new UnaryExpr(left.expr(), UnaryExpr.Operator.LOGICAL_COMPLEMENT) : left.expr();
+        } else {
+            decided = new MethodCallExpr(manager.getStaticField(Boolean.class, isAnd ? "FALSE" : "TRUE"), "equals").addArgument(left.expr());
+        }
+        BlockStmt decidedBlock = new BlockStmt().addStatement(new AssignExpr(resultExpr, new BooleanLiteralExpr(!isAnd), AssignExpr.Operator.ASSIGN));
+        manager.addLocalField(resultVar);
+        manager.addStatement(new IfStmt(decided, decidedBlock, rightBlock));
+        return JavaExpr.of(n, resultExpr, javaType).nullable(result.nullable());
     }
 
     @Override
@@ -1353,6 +1766,108 @@ public class ASTCompilerVisitor implements Visitor.Default<JavaExpr> {
         }
     }
 
+    private void enterBlock(BlockStmt block, BlockStmt outer) {
+        blockParents.putIfAbsent(block, outer);
+        manager.setCurrentBlock(block);
+    }
+
+    private static boolean isArithmetic(InfixOpNode.Op op) {
+        return op == InfixOpNode.Op.ADD || op == InfixOpNode.Op.SUB || op == InfixOpNode.Op.MUL
+               || op == InfixOpNode.Op.DIV || op == InfixOpNode.Op.POW;
+    }
+
+    /**
+     * 预先统计可以消除的子表达式的结构，只有出现多次的才值得保存到局部变量
+     */
+    private void countShapes(ASTNode n) {
+        if (n instanceof PathNode || n instanceof InfixOpNode) {
+            String shape = shapeOf(n);
+            if (shape != null) {
+                shapeCounts.merge(shape, 1, Integer::sum);
+            }
+        }
+        for (ASTNode child : n.getChildren()) {
+            countShapes(child);
+        }
+    }
+
+    /**
+     * @return 由名称、字面量、路径和算术运算组成的子表达式的结构，不区分名称所在的作用域；其他子表达式返回 null
+     */
+    private static String shapeOf(ASTNode n) {
+        if (n instanceof NameExprNode node) {
+            return node.text;
+        }
+        if (n instanceof NumberNode || n instanceof StringNode) {
+            return n.getText();
+        }
+        if (n instanceof PathNode node) {
+            String left = shapeOf(node.left);
+            return left == null ? null : left + "." + node.name;
+        }
+        if (n instanceof InfixOpNode node && isArithmetic(node.op)) {
+            String left = shapeOf(node.left);
+            String right = left == null ? null : shapeOf(node.right);
+            return right == null ? null : "(" + left + node.op.symbol + right + ")";
+        }
+        return null;
+    }
+
+    /**
+     * 已编译子表达式的键，与 {@link #shapeOf} 不同，名称按解析结果区分：
+     * 输入变量按名称，局部变量（迭代变量、上下文条目、函数参数）按生成的表达式
+     */
+    @Nullable
+    private String cseKey(ASTNode node, JavaExpr expr) {
+        if (node instanceof NameExprNode nameNode) {
+            return scope.isLocal(nameNode.text) ? "#" + expr.expr() : "$" + nameNode.text;
+        }
+        if ((node instanceof NumberNode || node instanceof StringNode) && expr.constant()) {
+            return node.getText();
+        }
+        return cseKeys.get(node);
+    }
+
+    /**
+     * @return 当前代码块或其外层代码块中已经保存了相同子表达式结果的局部变量，没有时返回 null
+     */
+    @Nullable
+    private JavaExpr reuse(ASTNode n, @Nullable String key) {
+        if (key == null) {
+            return null;
+        }
+        cseKeys.put(n, key);
+        List<CommonExpr> locals = cseLocals.get(key);
+        if (locals == null) {
+            return null;
+        }
+        for (CommonExpr local : locals) {
+            for (BlockStmt block = manager.getCurrentBlock(); block != null; block = blockParents.get(block)) {
+                if (block == local.block()) {
+                    return local.value().copy().node(n);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 子表达式在整棵树中出现多次时，将结果保存到当前代码块的局部变量中，后续相同的子表达式直接读取该变量
+     */
+    private JavaExpr hoist(ASTNode n, @Nullable String key, JavaExpr result) {
+        if (key == null || result.constant() || result.javaType() == void.class
+            || shapeCounts.getOrDefault(shapeOf(n), 0) < 2 || result.isSimple()) {
+            return result;
+        }
+        var declarator = new VariableDeclarator(manager.getType(result.javaType()), nextVarName("cse"), result.expr());
+        manager.addLocalField(declarator);
+        JavaExpr value = result.copy().expr(declarator.getNameAsExpression());
+        cseLocals.computeIfAbsent(key, k -> new ArrayList<>()).add(new CommonExpr(value, manager.getCurrentBlock()));
+        return value.copy();
+    }
+
+    private record CommonExpr(JavaExpr value, BlockStmt block) {}
+
     private String nextVarName(String prefix) {
         int compute = countMap.compute(prefix, (k, v) -> v == null ? 0 : v + 1);
         return compute == 0 ? prefix : (prefix + compute);
@@ -0,0 +1,623 @@
+package com.muyuanjin.feel.translate;
+
+import com.muyuanjin.feel.exception.FeelLangException;
+import com.muyuanjin.feel.lang.FType;
+import com.muyuanjin.feel.lang.FTypes;
+import com.muyuanjin.feel.lang.FeelRange;
+import com.muyuanjin.feel.lang.ast.*;
+import com.muyuanjin.feel.lang.type.FContext;
+import com.muyuanjin.feel.lang.type.FList;
+import com.muyuanjin.feel.lang.type.FNumber;
+import com.muyuanjin.feel.lang.type.FRange;
+import com.muyuanjin.feel.parser.ParserUtil;
+import jakarta.annotation.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAmount;
+import java.util.*;
+
+/**
+ * 直接遍历带类型的 AST 求值，不生成代码也不调用 javac，用于只执行少数几次的表达式
+ * <p>
+ * 语义与 {@link ASTCompilerVisitor} 生成的代码保持一致，静态类型为 int / long / double 的四则运算按原始类型计算，
+ * 其余数值在内部使用 BigDecimal 计算，根节点的结果再按静态类型转换为 int / long / double。函数调用、函数定义、单值测试以及对范围的过滤不支持解释执行，
+ * 见 {@link #supports(ASTNode)}
+ *
+ * @author muyuanjin
+ */
+public final class ASTInterpreter implements Visitor.Default<Object> {
+    private static final Object UNDEFINED = new Object();
+
+    private final @Nullable Object input;
+    private final Deque<Map<String, Object>> scopes = new ArrayDeque<>();
+
+    private ASTInterpreter(@Nullable Object input) {
+        this.input = input;
+    }
+
+    public static Object evaluate(ASTNode node, @Nullable Object input) {
+        return coerce(node.getType(), new ASTInterpreter(input).visit(node));
+    }
+
+    /**
+     * 判断整棵树是否都可以解释执行，不支持时调用方应直接编译
+     */
+    public static boolean supports(ASTNode node) {
+        if (node instanceof FunInvocationNode || node instanceof FunDefinitionNode || node instanceof UnaryTestsNode) {
+            return false;
+        }
+        if (node instanceof FilterNode filterNode && filterNode.target.getType() instanceof FRange) {
+            return false;
+        }
+        List<Iteration> iterations = node instanceof ForNode forNode ? forNode.iterations :
+                node instanceof QuantifiedNode quantifiedNode ? quantifiedNode.iterations : List.of();
+        for (Iteration iteration : iterations) {
+            FType startType = iteration.start.getType();
+            if (iteration.end != null ? !(startType instanceof FNumber) || !supports(iteration.end) :
+                    startType instanceof FRange range && !(range.getElementType() instanceof FNumber)) {
+                return false;
+            }
+            if (!supports(iteration.start)) {
+                return false;
+            }
+        }
+        for (ASTNode child : node.getChildren()) {
+            if (!supports(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Object visit(NumberNode n) {
+        return n.getValue();
+    }
+
+    @Override
+    public Object visit(StringNode n) {
+        return n.value;
+    }
+
+    @Override
+    public Object visit(BooleanNode n) {
+        return n.value;
+    }
+
+    @Override
+    public Object visit(NullNode n) {
+        return null;
+    }
+
+    @Override
+    public Object visit(DateTimeNode n) {
+        if (n.type == FTypes.DATE) {
+            return ParserUtil.parseDate(n.literal);
+        } else if (n.type == FTypes.TIME) {
+            return ParserUtil.parseTime(n.literal);
+        } else if (n.type == FTypes.DATE_TIME) {
+            return ParserUtil.parseDateTime(n.literal);
+        } else if (n.type == FTypes.DAY_TIME_DURATION) {
+            return ParserUtil.parseDuration(n.literal);
+        } else if (n.type == FTypes.YEAR_MONTH_DURATION) {
+            return ParserUtil.parsePeriod(n.literal);
+        }
+        throw new FeelLangException(n, "Cannot interpret date time node for type: " + n.type);
+    }
+
+    @Override
+    public Object visit(NameExprNode n) {
+        for (Map<String, Object> scope : scopes) {
+            Object value = scope.getOrDefault(n.name, UNDEFINED);
+            if (value != UNDEFINED) {
+                return value;
+            }
+        }
+        return ParserUtil.accessMember(input, n.name);
+    }
+
+    @Override
+    public Object visit(PathNode n) {
+        Object left = visit(n.left);
+        if (left instanceof List<?> list) {
+            List<Object> result = new ArrayList<>(list.size());
+            for (Object item : list) {
+                result.add(ParserUtil.accessMember(item, n.name));
+            }
+            return result;
+        }
+        return ParserUtil.accessMember(left, n.name);
+    }
+
+    @Override
+    public Object visit(ListNode n) {
+        List<Object> result = new ArrayList<>(n.elements.size());
+        for (ASTNode element : n.elements) {
+            result.add(visit(element));
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(ContextNode n) {
+        // 前面的条目对后面的条目可见
+        Map<String, Object> result = new LinkedHashMap<>();
+        scopes.push(result);
+        try {
+            for (Map.Entry<String, ASTNode> entry : n.entries.entrySet()) {
+                result.put(entry.getKey(), visit(entry.getValue()));
+            }
+        } finally {
+            scopes.pop();
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(RangeNode n) {
+        return new FeelRange.Default<>((FRange) n.getType(),
+                n.start == null ? null : visit(n.start),
+                n.end == null ? null : visit(n.end));
+    }
+
+    @Override
+    public Object visit(IfNode n) {
+        Object condition = visit(n.condition);
+        return condition != null && !Boolean.FALSE.equals(condition) ? visit(n.then) : visit(n.otherwise);
+    }
+
+    @Override
+    public Object visit(NegationNode n) {
+        Object value = visit(n.value);
+        if (value instanceof Number number) {
+            return toDecimal(number).negate();
+        } else if (value instanceof Duration duration) {
+            return duration.negated();
+        } else if (value instanceof Period period) {
+            return period.negated();
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(InstanceOfNode n) {
+        return n.type.isInstance(coerce(n.value.getType(), visit(n.value)));
+    }
+
+    @Override
+    public Object visit(BetweenNode n) {
+        Object value = visit(n.value);
+        Integer start = compare(value, visit(n.start));
+        Integer end = compare(value, visit(n.end));
+        return start != null && end != null && start >= 0 && end <= 0;
+    }
+
+    @Override
+    public Object visit(InNode n) {
+        return in(visit(n.value), visit(n.target));
+    }
+
+    @Override
+    public Object visit(InfixOpNode n) {
+        Object left = visit(n.left);
+        InfixOpNode.Op op = n.op;
+        if (op.isAndOr()) {
+            // 三值逻辑：and 中有 false 即为 false，or 中有 true 即为 true，其余情况为 null
+            Object right = visit(n.right);
+            Boolean decisive = op == InfixOpNode.Op.AND ? Boolean.FALSE : Boolean.TRUE;
+            if (decisive.equals(left) || decisive.equals(right)) {
+                return decisive;
+            }
+            return left instanceof Boolean && right instanceof Boolean ? !decisive : null;
+        }
+        Object right = visit(n.right);
+        if (op.isEqNe()) {
+            boolean equals = left == null || right == null ? left == right : feelEquals(left, right);
+            return (op == InfixOpNode.Op.EQ) == equals;
+        }
+        if (op.isCompare()) {
+            Integer compare = compare(left, right);
+            if (compare == null) {
+                return null;
+            }
+            return switch (op) {
+                case LT -> compare < 0;
+                case LE -> compare <= 0;
+                case GT -> compare > 0;
+                case GE -> compare >= 0;
+                default -> throw new FeelLangException(n, "Unexpected compare operator: " + op);
+            };
+        }
+        return calculate(op, left, right, n.getType());
+    }
+
+    @Override
+    public Object visit(FilterNode n) {
+        Object target = visit(n.target);
+        if (n.filter.getType() instanceof FNumber) {
+            Object index = visit(n.filter);
+            if (!(index instanceof Number number)) {
+                return null;
+            }
+            int i = number.intValue();
+            if (!(target instanceof List<?> list)) {
+                return Math.abs(i) == 1 ? target : null;
+            }
+            int position = i > 0 ? i - 1 : list.size() + i;
+            return i == 0 || position < 0 || position >= list.size() ? null : list.get(position);
+        }
+        FType elementType = FType.getElementType(n.target.getType());
+        List<Object> result = new ArrayList<>();
+        for (Object item : asList(target)) {
+            Map<String, Object> scope = new HashMap<>();
+            if (item instanceof Map<?, ?> map) {
+                map.forEach((k, v) -> scope.put(String.valueOf(k), v));
+            } else if (elementType instanceof FContext && item != null) {
+                for (String member : elementType.getMembers().keySet()) {
+                    scope.put(member, ParserUtil.accessMember(item, member));
+                }
+            }
+            scope.put(n.itemName, item);
+            scopes.push(scope);
+            try {
+                if (Boolean.TRUE.equals(visit(n.filter))) {
+                    result.add(item);
+                }
+            } finally {
+                scopes.pop();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(ForNode n) {
+        List<Object> result = new ArrayList<>();
+        Map<String, Object> scope = new HashMap<>();
+        scopes.push(scope);
+        try {
+            iterate(n.iterations, 0, scope, () -> {
+                result.add(visit(n.result));
+                return true;
+            });
+        } finally {
+            scopes.pop();
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(QuantifiedNode n) {
+        boolean[] result = new boolean[1];
+        Map<String, Object> scope = new HashMap<>();
+        scopes.push(scope);
+        try {
+            iterate(n.iterations, 0, scope, () -> {
+                boolean judge = Boolean.TRUE.equals(visit(n.judge));
+                if (n.every) {
+                    result[0] = judge;
+                    return judge;
+                }
+                result[0] |= judge;
+                return !judge;
+            });
+        } finally {
+            scopes.pop();
+        }
+        return result[0];
+    }
+
+    @Override
+    public Object visit(FunInvocationNode n) {
+        throw new FeelLangException(n, "Function invocation is not supported by interpreter");
+    }
+
+    @Override
+    public Object visit(FunDefinitionNode n) {
+        throw new FeelLangException(n, "Function definition is not supported by interpreter");
+    }
+
+    @Override
+    public Object visit(UnaryTestsNode n) {
+        throw new FeelLangException(n, "Unary tests is not supported by interpreter");
+    }
+
+    private interface Body {
+        /**
+         * @return 是否继续迭代
+         */
+        boolean next();
+    }
+
+    /**
+     * 多个迭代上下文按笛卡尔积展开，后面的迭代可以引用前面的迭代变量
+     */
+    private boolean iterate(List<Iteration> iterations, int depth, Map<String, Object> scope, Body body) {
+        if (depth == iterations.size()) {
+            return body.next();
+        }
+        Iteration iteration = iterations.get(depth);
+        Object start = visit(iteration.start);
+        if (iteration.end != null) {
+            Object end = visit(iteration.end);
+            if (!(start instanceof Number from) || !(end instanceof Number to)) {
+                return true;
+            }
+            return iterateNumbers(iterations, depth, scope, body, toDecimal(from), toDecimal(to), true);
+        }
+        if (start instanceof FeelRange<?> range) {
+            if (!(range.start() instanceof Number from) || !(range.end() instanceof Number to)) {
+                return true;
+            }
+            BigDecimal first = range.startInclusive() ? toDecimal(from) : toDecimal(from).add(BigDecimal.ONE);
+            return iterateNumbers(iterations, depth, scope, body, first, toDecimal(to), range.endInclusive());
+        }
+        for (Object item : asList(start)) {
+            scope.put(iteration.name, item);
+            if (!iterate(iterations, depth + 1, scope, body)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean iterateNumbers(List<Iteration> iterations, int depth, Map<String, Object> scope, Body body,
+                                   BigDecimal from, BigDecimal to, boolean endInclusive) {
+        String name = iterations.get(depth).name;
+        for (BigDecimal i = from; endInclusive ? i.compareTo(to) <= 0 : i.compareTo(to) < 0; i = i.add(BigDecimal.ONE)) {
+            scope.put(name, i);
+            if (!iterate(iterations, depth + 1, scope, body)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<?> asList(Object value) {
+        return value instanceof List<?> list ? list : Collections.singletonList(value);
+    }
+
+    private static Object in(Object value, Object target) {
+        if (target instanceof List<?> list) {
+            for (Object element : list) {
+                if (Boolean.TRUE.equals(in(value, element))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (target instanceof FeelRange<?> range) {
+            Integer start = range.start() == null ? Integer.valueOf(1) : compare(value, range.start());
+            Integer end = range.end() == null ? Integer.valueOf(-1) : compare(value, range.end());
+            if (start == null || end == null) {
+                return null;
+            }
+            return (range.startInclusive() ? start >= 0 : start > 0) && (range.endInclusive() ? end <= 0 : end < 0);
+        }
+        return value == null || target == null ? value == target : feelEquals(value, target);
+    }
+
+    private static boolean feelEquals(Object left, Object right) {
+        if (left instanceof Number l && right instanceof Number r) {
+            return toDecimal(l).compareTo(toDecimal(r)) == 0;
+        }
+        if (left instanceof List<?> l && right instanceof List<?> r) {
+            if (l.size() != r.size()) {
+                return false;
+            }
+            for (int i = 0; i < l.size(); i++) {
+                Object a = l.get(i);
+                Object b = r.get(i);
+                if (a == null || b == null ? a != b : !feelEquals(a, b)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return left.equals(right);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static @Nullable Integer compare(Object left, Object right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        if (left instanceof Number l && right instanceof Number r) {
+            return toDecimal(l).compareTo(toDecimal(r));
+        }
+        if (left instanceof Period l && right instanceof Period r) {
+            return Long.compare(l.toTotalMonths(), r.toTotalMonths());
+        }
+        if (left.getClass() == right.getClass() && left instanceof Comparable comparable) {
+            return comparable.compareTo(right);
+        }
+        return null;
+    }
+
+    private static Object calculate(InfixOpNode.Op op, Object left, Object right, FType resultType) {
+        if (left == null || right == null) {
+            return null;
+        }
+        if (left instanceof Number l && right instanceof Number r) {
+            if (resultType instanceof FNumber result && op != InfixOpNode.Op.DIV
+                && (result == FNumber.INTEGER || result == FNumber.LONG || result == FNumber.DOUBLE)) {
+                return calculatePrimitive(op, l, r, result);
+            }
+            BigDecimal a = toDecimal(l);
+            BigDecimal b = toDecimal(r);
+            return switch (op) {
+                case ADD -> a.add(b);
+                case SUB -> a.subtract(b);
+                case MUL -> a.multiply(b);
+                // 与生成的代码一致，除数为 0 时抛出 ArithmeticException
+                case DIV -> a.divide(b, MathContext.DECIMAL128);
+                case POW -> pow(a, b);
+                default -> null;
+            };
+        }
+        if (op == InfixOpNode.Op.ADD && (left instanceof String || right instanceof String)) {
+            return String.valueOf(left) + right;
+        }
+        return calculateTemporal(op, left, right);
+    }
+
+    /**
+     * 与 NumberCalc 一致：结果为 int / long / double 时按 java 的原始类型计算，整数溢出回绕，浮点数保留舍入误差
+     */
+    private static Object calculatePrimitive(InfixOpNode.Op op, Number left, Number right, FNumber result) {
+        if (op == InfixOpNode.Op.POW) {
+            return Math.pow(left.doubleValue(), right.doubleValue());
+        }
+        return switch (result) {
+            case INTEGER -> {
+                int a = left.intValue(), b = right.intValue();
+                yield switch (op) {
+                    case ADD -> a + b;
+                    case SUB -> a - b;
+                    default -> a * b;
+                };
+            }
+            case LONG -> {
+                long a = left.longValue(), b = right.longValue();
+                yield switch (op) {
+                    case ADD -> a + b;
+                    case SUB -> a - b;
+                    default -> a * b;
+                };
+            }
+            default -> {
+                double a = left.doubleValue(), b = right.doubleValue();
+                yield switch (op) {
+                    case ADD -> a + b;
+                    case SUB -> a - b;
+                    default -> a * b;
+                };
+            }
+        };
+    }
+
+    private static @Nullable BigDecimal pow(BigDecimal base, BigDecimal exponent) {
+        if (exponent.stripTrailingZeros().scale() <= 0 && exponent.abs().compareTo(BigDecimal.valueOf(999999999)) <= 0) {
+            if (base.signum() == 0 && exponent.signum() < 0) {
+                return null;
+            }
+            return base.pow(exponent.intValue(), MathContext.DECIMAL128);
+        }
+        double pow = Math.pow(base.doubleValue(), exponent.doubleValue());
+        return Double.isFinite(pow) ? BigDecimal.valueOf(pow) : null;
+    }
+
+    private static @Nullable Object calculateTemporal(InfixOpNode.Op op, Object left, Object right) {
+        switch (op) {
+            case ADD -> {
+                if (left instanceof Duration l && right instanceof Duration r) {
+                    return l.plus(r);
+                } else if (left instanceof Period l && right instanceof Period r) {
+                    return l.plus(r).normalized();
+                } else if (left instanceof Temporal l && right instanceof TemporalAmount r) {
+                    return l.plus(r);
+                } else if (left instanceof TemporalAmount l && right instanceof Temporal r) {
+                    return r.plus(l);
+                }
+            }
+            case SUB -> {
+                if (left instanceof Duration l && right instanceof Duration r) {
+                    return l.minus(r);
+                } else if (left instanceof Period l && right instanceof Period r) {
+                    return l.minus(r).normalized();
+                } else if (left instanceof Temporal l && right instanceof TemporalAmount r) {
+                    return l.minus(r);
+                } else if (left instanceof LocalDate l && right instanceof LocalDate r) {
+                    return Duration.ofDays(ChronoUnit.DAYS.between(r, l));
+                } else if (left instanceof Temporal l && right instanceof Temporal r && l.getClass() == r.getClass()) {
+                    return Duration.between(r, l);
+                }
+            }
+            case MUL -> {
+                if (left instanceof Number l && right instanceof TemporalAmount r) {
+                    return calculateTemporal(op, r, l);
+                } else if (left instanceof Duration l && right instanceof Number r) {
+                    return Duration.ofNanos(toDecimal(r).multiply(BigDecimal.valueOf(l.toNanos())).longValue());
+                } else if (left instanceof Period l && right instanceof Number r) {
+                    return Period.ofMonths(toDecimal(r).multiply(BigDecimal.valueOf(l.toTotalMonths())).intValue()).normalized();
+                }
+            }
+            case DIV -> {
+                if (left instanceof Duration l && right instanceof Duration r) {
+                    return r.isZero() ? null : BigDecimal.valueOf(l.toNanos()).divide(BigDecimal.valueOf(r.toNanos()), MathContext.DECIMAL128);
+                } else if (left instanceof Period l && right instanceof Period r) {
+                    return r.toTotalMonths() == 0 ? null :
+                            BigDecimal.valueOf(l.toTotalMonths()).divide(BigDecimal.valueOf(r.toTotalMonths()), MathContext.DECIMAL128);
+                } else if (left instanceof Duration l && right instanceof Number r) {
+                    BigDecimal divisor = toDecimal(r);
+                    return divisor.signum() == 0 ? null :
+                            Duration.ofNanos(BigDecimal.valueOf(l.toNanos()).divide(divisor, MathContext.DECIMAL128).longValue());
+                } else if (left instanceof Period l && right instanceof Number r) {
+                    BigDecimal divisor = toDecimal(r);
+                    return divisor.signum() == 0 ? null :
+                            Period.ofMonths(BigDecimal.valueOf(l.toTotalMonths()).divide(divisor, MathContext.DECIMAL128).intValue()).normalized();
+                }
+            }
+            default -> {
+            }
+        }
+        return null;
+    }
+
+    private static BigDecimal toDecimal(Number number) {
+        if (number instanceof BigDecimal decimal) {
+            return decimal;
+        } else if (number instanceof BigInteger integer) {
+            return new BigDecimal(integer);
+        } else if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    /**
+     * 按静态类型把内部的 BigDecimal 转换为生成代码中对应的 java 类型，列表的元素和上下文的值按元素类型和成员类型递归转换
+     */
+    private static Object coerce(FType type, Object value) {
+        if (value instanceof List<?> list && type instanceof FList fList) {
+            if (!needsCoerce(fList.getElementType())) {
+                return value;
+            }
+            List<Object> result = new ArrayList<>(list.size());
+            for (Object element : list) {
+                result.add(coerce(fList.getElementType(), element));
+            }
+            return result;
+        }
+        if (value instanceof Map<?, ?> map && type instanceof FContext context) {
+            Map<String, FType> members = context.getMembers();
+            Map<Object, Object> result = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                FType memberType = entry.getKey() instanceof String key ? members.get(key) : null;
+                result.put(entry.getKey(), memberType == null ? entry.getValue() : coerce(memberType, entry.getValue()));
+            }
+            return result;
+        }
+        if (!(value instanceof Number number) || !(type instanceof FNumber fNumber)) {
+            return value;
+        }
+        return switch (fNumber) {
+            case INTEGER -> number.intValue();
+            case LONG -> number.longValue();
+            case DOUBLE -> number.doubleValue();
+            case BIG_DECIMAL -> toDecimal(number);
+            default -> value;
+        };
+    }
+
+    private static boolean needsCoerce(FType type) {
+        return type instanceof FNumber || type instanceof FList || type instanceof FContext;
+    }
+}
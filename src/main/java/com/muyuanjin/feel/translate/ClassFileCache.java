@@ -0,0 +1,169 @@
+package com.muyuanjin.feel.translate;
+
+import com.muyuanjin.common.util.DigestUtil;
+import com.muyuanjin.common.util.LazyLog;
+import com.muyuanjin.common.util.MapUtil;
+import com.muyuanjin.compiler.util.Throws;
+import jakarta.annotation.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * 编译结果的磁盘缓存，保存生成类的字节码，JVM 重启后直接定义类，跳过代码生成和 javac
+ * <p>
+ * 每个条目一个文件，文件头记录 {@link #VERSION}，版本不一致的条目视为失效并删除
+ *
+ * @author muyuanjin
+ */
+public final class ClassFileCache {
+    private static final LazyLog log = LazyLog.of(ClassFileCache.class);
+    private static final String PACKAGE = "com/muyuanjin/feel/";
+    /**
+     * 本库全部字节码的摘要加上 Java 的版本，代码生成或生成代码调用的运行时方法有任何变化都会使旧的条目失效
+     */
+    public static final String VERSION = codegenVersion() + ":" + Runtime.version().feature();
+    private static final int MAGIC = 0xFEE1CAFE;
+    private static final String SUFFIX = ".feelc";
+
+    private final Path directory;
+
+    public ClassFileCache(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot create class file cache directory: " + directory, e);
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public static String key(String... parts) {
+        return DigestUtil.sha256Hex(String.join("\u0000", parts));
+    }
+
+    /**
+     * 从磁盘加载类，不存在或已失效时返回 null
+     */
+    public @Nullable Class<?> load(String key) {
+        Path file = directory.resolve(key + SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() == MAGIC && VERSION.equals(in.readUTF())) {
+                String mainClass = in.readUTF();
+                int count = in.readInt();
+                Map<String, byte[]> classes = MapUtil.newHashMap(count);
+                for (int i = 0; i < count; i++) {
+                    String name = in.readUTF();
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    classes.put(name, bytes);
+                }
+                return MemoryJavac.loader(classes).loadClass(mainClass);
+            }
+        } catch (IOException | ClassNotFoundException | LinkageError e) {
+            log.warn("invalid class file cache: {}", file, e);
+        }
+        // 版本不一致或文件损坏
+        delete(file);
+        return null;
+    }
+
+    /**
+     * 编译源码并写入磁盘缓存，当前环境没有可用的 javac 或编译失败时返回 null，由调用方回退到默认的编译方式
+     */
+    public @Nullable Class<?> compile(String key, String className, String source) {
+        Map<String, byte[]> classes = MemoryJavac.compile(Map.of(className, source));
+        if (classes == null || !classes.containsKey(className)) {
+            return null;
+        }
+        store(key, className, classes);
+        try {
+            return MemoryJavac.loader(classes).loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw Throws.sneakyThrows(e);
+        }
+    }
+
+    public void store(String key, String mainClass, Map<String, byte[]> classes) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(VERSION);
+                out.writeUTF(mainClass);
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(temp, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("cannot write class file cache: {}", key, e);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    /**
+     * 按名称排序后依次摘要 com/muyuanjin/feel 下的 class 文件；无法读取自身的字节码时（例如嵌套的 jar）
+     * 使用随机值，缓存只在当前进程内有效
+     */
+    private static String codegenVersion() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Path location = Path.of(ClassFileCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isDirectory(location)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(location.resolve(PACKAGE))) {
+                    files = walk.filter(file -> file.toString().endsWith(".class")).sorted().toList();
+                }
+                for (Path file : files) {
+                    digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(file));
+                }
+            } else {
+                try (JarFile jar = new JarFile(location.toFile())) {
+                    List<JarEntry> entries = jar.stream()
+                            .filter(entry -> entry.getName().startsWith(PACKAGE) && entry.getName().endsWith(".class"))
+                            .sorted(Comparator.comparing(JarEntry::getName)).toList();
+                    for (JarEntry entry : entries) {
+                        digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            digest.update(in.readAllBytes());
+                        }
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (Exception e) {
+            log.warn("cannot digest feel runtime classes, class file cache will only be valid in this process", e);
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("cannot delete class file cache: {}", file, e);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import lombok.Data;
 import lombok.experimental.Accessors;
 
 import java.lang.reflect.Type;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -32,6 +33,10 @@ public class CompilerTask {
     private String rootInputParam = "input";
     private FType rootInputType = FContext.ANY;
     private Type rootInputJavaType = FContext.ANY.getJavaType();
+    /**
+     * 非 null 时生成的方法以 Object[] 作为根输入，变量按在该列表中的下标读取，见 {@link #slotInput()}
+     */
+    private List<String> inputSlots;
 
     private String unaryTestInputParam = "testInput";
     private FType unaryTestInputType = FAny.ANY;
@@ -40,6 +45,11 @@ public class CompilerTask {
     private boolean noLambda = false;
     private boolean allFinal = false;
     private boolean castGenerics = false;
+    /**
+     * 需要 BigDecimal 结果的整数四则运算先用 long 精确计算，只在溢出或除不尽时才使用 BigDecimal
+     */
+    private boolean speculativeArithmetic = true;
+    private Backend backend = Backend.JAVAC;
 
     private FeelTypeFactory typeFactory;
     private FeelFunctionFactory functionFactory;
@@ -81,6 +91,24 @@ public class CompilerTask {
         return this;
     }
 
+    /**
+     * 按根输入 Map 声明的成员生成槽位布局，只支持 Map 输入
+     */
+    public CompilerTask slotInput() {
+        if (!(rootInputType instanceof FContext ctx) || ctx.getJavaType() instanceof Class<?>) {
+            throw new IllegalArgumentException("Slot layout only supports Map input, but got: " + rootInputJavaType);
+        }
+        this.inputSlots = List.copyOf(ctx.getMembers().keySet());
+        return this;
+    }
+
+    /**
+     * 生成的方法中根输入参数的 java 类型
+     */
+    public Type rootInputParamType() {
+        return inputSlots == null ? rootInputJavaType : Object[].class;
+    }
+
     public CompilerTask unaryTestInput(Object inputObjOrInputJavaType) {
         FType fType;
         if (inputObjOrInputJavaType instanceof Type type) {
@@ -106,15 +134,29 @@ public class CompilerTask {
         copy.rootInputParam = rootInputParam;
         copy.rootInputType = rootInputType;
         copy.rootInputJavaType = rootInputJavaType;
+        copy.inputSlots = inputSlots;
         copy.unaryTestInputParam = unaryTestInputParam;
         copy.unaryTestInputType = unaryTestInputType;
         copy.unaryTestInputJavaType = unaryTestInputJavaType;
         copy.noLambda = noLambda;
         copy.allFinal = allFinal;
         copy.castGenerics = castGenerics;
+        copy.speculativeArithmetic = speculativeArithmetic;
+        copy.backend = backend;
         return copy;
     }
 
+    public enum Backend {
+        /**
+         * 生成源码后交给 javac 编译
+         */
+        JAVAC,
+        /**
+         * 使用 janino 在进程内直接生成字节码，不启动 javac；janino 不支持的代码回退到 javac
+         */
+        JANINO
+    }
+
     private static final Context.Key<CompilerTask> taskKey = new Context.Key<>();
 
     public static CompilerTask instance(Context context) {
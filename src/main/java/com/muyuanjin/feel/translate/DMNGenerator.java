@@ -6,21 +6,23 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.stmt.BlockStmt;
-import com.github.javaparser.ast.stmt.IfStmt;
-import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.*;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.PrimitiveType;
 import com.github.javaparser.ast.type.Type;
 import com.muyuanjin.feel.dmn.*;
+import com.muyuanjin.feel.dmn.impl.HitPolicies;
+import com.muyuanjin.feel.dmn.impl.RuleIndex;
+import com.muyuanjin.feel.impl.DefaultFeelTypeFactory;
 import com.muyuanjin.feel.lang.FType;
-import com.muyuanjin.feel.lang.ast.ASTNode;
-import com.muyuanjin.feel.lang.type.FAny;
-import com.muyuanjin.feel.lang.type.FContext;
+import com.muyuanjin.feel.lang.ast.*;
+import com.muyuanjin.feel.lang.type.*;
 import com.muyuanjin.feel.util.FeelUtil;
 import jakarta.validation.constraints.NotNull;
 import jakarta.annotation.Nullable;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.util.*;
 
 /**
@@ -32,6 +34,16 @@ public class DMNGenerator {
     private final ClassManager manager;
     private final Context context;
     private final Type inputType;
+    /**
+     * 规则数量不少于该值时为 evaluate 建立规则索引
+     */
+    private static final int INDEX_MIN_RULES = 16;
+    private static final int STRING_CHUNK_SIZE = 16 * 1024;
+    private @Nullable RuleIndex.Builder indexBuilder;
+    /**
+     * 单输出决策表中每条规则输出表达式的类型，用于选择聚合时的累加方式
+     */
+    private final List<FType> ruleOutputTypes = new ArrayList<>();
 
     private DMNGenerator(Context context) {
         context.put(dmnGeneratorKey, this);
@@ -129,19 +141,170 @@ public class DMNGenerator {
         for (int i = 0; i < definition.outputs().size(); i++) {
             outPutMethods.add(new OutPutMethod(i, definition.outputs().get(i)));
         }
+        // 每个输入表达式只在 evaluate 中求值一次，结果以局部变量传给各个规则的测试方法
+        List<Expression> inputValues = new ArrayList<>(inputMethods.size());
+        for (InputMethod inputMethod : inputMethods) {
+            inputValues.add(inputMethod.hasGetInput() ? new NameExpr("in" + inputMethod.index) : new NullLiteralExpr());
+        }
+
+        HitPolicyMethod hitPolicy = new HitPolicyMethod(definition, outPutMethods, rules.size());
+        indexBuilder = rules.size() >= INDEX_MIN_RULES ? new RuleIndex.Builder(rules.size(), inputMethods.size()) : null;
+        List<IfStmt> ruleStmts = new ArrayList<>(rules.size());
         for (int i = 0; i < rules.size(); i++) {
             DecisionRule decisionRule = rules.get(i);
             List<String> inputEntry = decisionRule.inputEntry();
             List<String> outputEntry = decisionRule.outputEntry();
-            //TODO hitPolicy
             IfStmt ifStmt = new IfStmt();
-            ifStmt.setCondition(getTestRule(i, inputMethods, inputEntry).addArgument(rootInput));
-            BlockStmt thenBlock = new BlockStmt();
-            ifStmt.setThenStmt(thenBlock);
-            thenBlock.addStatement(new ReturnStmt(getOutputRule(i, outPutMethods, outputEntry).addArgument(rootInput)));
-            body.addStatement(ifStmt);
+            MethodCallExpr testRule = getTestRule(i, inputMethods, inputEntry);
+            for (int j = 0; j < inputMethods.size(); j++) {
+                if (inputMethods.get(j).hasGetInput()) {
+                    testRule.addArgument(inputValues.get(j).clone());
+                }
+            }
+            ifStmt.setCondition(testRule.addArgument(rootInput));
+            ifStmt.setThenStmt(hitPolicy.onHit(i, getOutputRule(i, outPutMethods, outputEntry).addArgument(rootInput)));
+            ruleStmts.add(ifStmt);
+        }
+        MethodCallExpr defaultOutput = getDefaultOutputRule(outPutMethods).addArgument(rootInput);
+
+        Expression invalidInput = null;
+        for (int i = 0; i < inputMethods.size(); i++) {
+            InputMethod inputMethod = inputMethods.get(i);
+            if (inputMethod.hasGetInput()) {
+                var value = new VariableDeclarator(manager.getType(inputMethod.getInputReturnType.getJavaType()), "in" + i, inputMethod.getInput(rootInput));
+                body.addStatement(new VariableDeclarationExpr(value));
+            }
+            if (inputMethod.hasCheckInputValues()) {
+                // 输入值校验与规则无关，不通过时任何规则都不会命中
+                Expression invalid = new UnaryExpr(inputMethod.checkInputValues(inputValues.get(i).clone(), rootInput), UnaryExpr.Operator.LOGICAL_COMPLEMENT);
+                invalidInput = invalidInput == null ? invalid : new BinaryExpr(invalidInput, invalid, BinaryExpr.Operator.OR);
+            }
+        }
+        if (invalidInput != null) {
+            body.addStatement(new IfStmt(invalidInput, new BlockStmt().addStatement(new ReturnStmt(defaultOutput.clone())), null));
         }
-        body.addStatement(new ReturnStmt(getDefaultOutputRule(outPutMethods).addArgument(rootInput)));
+        hitPolicy.prologue().forEach(body::addStatement);
+        if (indexBuilder != null && !indexBuilder.isEmpty()) {
+            appendIndexedRules(body, inputValues, ruleStmts, indexBuilder);
+        } else {
+            ruleStmts.forEach(body::addStatement);
+        }
+        indexBuilder = null;
+        hitPolicy.epilogue().forEach(body::addStatement);
+        body.addStatement(new ReturnStmt(defaultOutput));
+    }
+
+    /**
+     * 通过规则索引找出候选规则，只测试候选规则，顺序与线性扫描一致
+     * <pre>{@code
+     *  BitSet candidates = RULE_INDEX.candidates(new Object[]{in0, null, in2});
+     *  for (int rule = candidates.nextSetBit(0); rule >= 0; rule = candidates.nextSetBit(rule + 1)) {
+     *      switch (rule) {
+     *          case 0:
+     *              if (testRule0(in0, in1, in2, input)) {
+     *                  return outputRule0(input);
+     *              }
+     *              break;
+     *          ...
+     *      }
+     *  }
+     * }</pre>
+     */
+    private void appendIndexedRules(BlockStmt body, List<Expression> inputValues, List<IfStmt> ruleStmts, RuleIndex.Builder index) {
+        String indexFieldName = "RULE_INDEX";
+        ClassOrInterfaceType indexType = manager.getClassType(RuleIndex.class);
+        manager.getConstants().put(indexFieldName, CodeGens.staticField(indexType, indexFieldName,
+                manager.getStaticMethod(RuleIndex.class, "decode").addArgument(encodedLiteral(index.encode()))));
+
+        NodeList<Expression> values = new NodeList<>();
+        for (int i = 0; i < inputValues.size(); i++) {
+            values.add(index.isIndexed(i) ? inputValues.get(i).clone() : new NullLiteralExpr());
+        }
+        var candidates = new VariableDeclarator(manager.getClassType(BitSet.class), "candidates",
+                new MethodCallExpr(new NameExpr(indexFieldName), "candidates")
+                        .addArgument(new ArrayCreationExpr(manager.getClassType(Object.class), NodeList.nodeList(new ArrayCreationLevel()),
+                                new ArrayInitializerExpr(values))));
+        body.addStatement(new VariableDeclarationExpr(candidates));
+
+        NameExpr rule = new NameExpr("rule");
+        NameExpr candidatesExpr = candidates.getNameAsExpression();
+        NodeList<SwitchEntry> entries = new NodeList<>();
+        for (int i = 0; i < ruleStmts.size(); i++) {
+            entries.add(new SwitchEntry(NodeList.nodeList(new IntegerLiteralExpr(Integer.toString(i))), SwitchEntry.Type.STATEMENT_GROUP,
+                    NodeList.nodeList(ruleStmts.get(i), new BreakStmt())));
+        }
+        ForStmt forStmt = new ForStmt();
+        forStmt.setInitialization(NodeList.nodeList(new VariableDeclarationExpr(new VariableDeclarator(PrimitiveType.intType(), rule.getName(),
+                new MethodCallExpr(candidatesExpr, "nextSetBit").addArgument(new IntegerLiteralExpr("0"))))));
+        forStmt.setCompare(new BinaryExpr(rule, new IntegerLiteralExpr("0"), BinaryExpr.Operator.GREATER_EQUALS));
+        forStmt.setUpdate(NodeList.nodeList(new AssignExpr(rule, new MethodCallExpr(candidatesExpr, "nextSetBit")
+                .addArgument(new BinaryExpr(rule, new IntegerLiteralExpr("1"), BinaryExpr.Operator.PLUS)), AssignExpr.Operator.ASSIGN)));
+        forStmt.setBody(new BlockStmt().addStatement(new SwitchStmt(rule, entries)));
+        body.addStatement(forStmt);
+    }
+
+    /**
+     * 单个字符串常量在 class 文件中有长度限制，较长时拆分后在运行时拼接（避免 javac 常量折叠）
+     */
+    private Expression encodedLiteral(String value) {
+        if (value.length() <= STRING_CHUNK_SIZE) {
+            return CodeGens.stringLiteral(value);
+        }
+        MethodCallExpr join = manager.getStaticMethod(String.class, "join").addArgument(new StringLiteralExpr(""));
+        for (int start = 0; start < value.length(); ) {
+            int end = Math.min(start + STRING_CHUNK_SIZE, value.length());
+            if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                end--;
+            }
+            join.addArgument(CodeGens.stringLiteral(value.substring(start, end)));
+            start = end;
+        }
+        return join;
+    }
+
+    /**
+     * 分析单元格的单值测试，可以建立索引时记录到 {@link #indexBuilder}：
+     * 与输入类型一致的字符串或数值字面量（可以是多个，逗号分隔），以及端点都是数值字面量的单个区间
+     */
+    private void indexRule(int ruleIndex, int inputIndex, ASTNode astNode, FType testInputType) {
+        RuleIndex.Builder index = this.indexBuilder;
+        if (index == null || !(astNode instanceof UnaryTestsNode unaryTests) || unaryTests.blank || unaryTests.not || unaryTests.positiveUnaryTests == null) {
+            return;
+        }
+        List<ASTNode> elements = unaryTests.positiveUnaryTests.elements;
+        if (elements.isEmpty()) {
+            return;
+        }
+        if (elements.size() == 1 && elements.get(0) instanceof RangeNode range) {
+            if (testInputType instanceof FNumber && range.getType() instanceof FRange rangeType) {
+                BigDecimal start = range.start == null ? null : numberLiteral(range.start);
+                BigDecimal end = range.end == null ? null : numberLiteral(range.end);
+                if ((range.start == null || start != null) && (range.end == null || end != null)) {
+                    index.range(inputIndex, ruleIndex, start, Boolean.TRUE.equals(rangeType.getStart()), end, Boolean.TRUE.equals(rangeType.getEnd()));
+                }
+            }
+            return;
+        }
+        List<Object> keys = new ArrayList<>(elements.size());
+        for (ASTNode element : elements) {
+            if (testInputType instanceof FString && element instanceof StringNode string) {
+                keys.add(string.value);
+            } else if (testInputType instanceof FNumber && numberLiteral(element) instanceof BigDecimal number) {
+                keys.add(number);
+            } else {
+                return;
+            }
+        }
+        index.equal(inputIndex, ruleIndex, keys);
+    }
+
+    private static @Nullable BigDecimal numberLiteral(ASTNode node) {
+        if (node instanceof NumberNode number) {
+            return number.getValue();
+        } else if (node instanceof NegationNode negation && negation.value instanceof NumberNode number) {
+            return number.getValue().negate();
+        }
+        return null;
     }
 
     private MethodCallExpr getOutputRule(int ruleIndex, List<OutPutMethod> outPutMethods, List<String> outputEntry) {
@@ -193,6 +356,9 @@ public class DMNGenerator {
                 ASTNode astNode = FeelUtil.parseExpr2AST(rule, task.inputTypes());
                 ASTCompilerVisitor.instance(context).visit(astNode);
                 outVar = new VariableDeclarator(manager.getType(astNode.getType().getJavaType()), outVarName.getName());
+                if (outPutSize == 1) {
+                    ruleOutputTypes.add(astNode.getType());
+                }
                 outVar.setInitializer(new MethodCallExpr(null, ruleMethodName).addArgument(input));
             }
             body.addStatement(new VariableDeclarationExpr(outVar));
@@ -239,42 +405,28 @@ public class DMNGenerator {
         testRule.setModifiers(Modifier.Keyword.PRIVATE, Modifier.Keyword.STATIC);
         testRule.setType(PrimitiveType.booleanType());
         NameExpr input = new NameExpr("input");
-        testRule.addParameter(new Parameter(inputType, input.getName()));
         BlockStmt body = new BlockStmt();
         testRule.setBody(body);
+        Expression condition = null;
         for (int i = 0; i < inputMethods.size(); i++) {
             InputMethod inputMethod = inputMethods.get(i);
             String rule = ruleEntry.get(i);
 
+            // 输入值已在 evaluate 中求值并校验过，这里只测试规则本身
             Expression obj;
             if (inputMethod.hasGetInput()) {
-                var objVar = new VariableDeclarator(manager.getType(inputMethod.getInputReturnType.getJavaType()), "obj" + i);
-                objVar.setInitializer(inputMethod.getInput(input));
-                body.addStatement(new VariableDeclarationExpr(objVar));
-                obj = objVar.getNameAsExpression();
+                var objParam = new Parameter(manager.getType(inputMethod.getInputReturnType.getJavaType()), "obj" + i);
+                testRule.addParameter(objParam);
+                obj = new NameExpr(objParam.getName());
             } else {
                 obj = new NullLiteralExpr();
             }
             MethodCallExpr testRuleIndex = getTestRuleIndex(ruleIndex, i, rule, inputMethod.getInputReturnType, task.inputTypes())
                     .addArgument(obj).addArgument(input);
-            if (i != inputMethods.size() - 1) {
-                IfStmt ifStmt = new IfStmt();
-                Expression condition = new UnaryExpr(testRuleIndex, UnaryExpr.Operator.LOGICAL_COMPLEMENT);
-                if (inputMethod.hasCheckInputValues()) {
-                    condition = new BinaryExpr(new UnaryExpr(inputMethod.checkInputValues(obj, input), UnaryExpr.Operator.LOGICAL_COMPLEMENT)
-                            , condition, BinaryExpr.Operator.OR);
-                }
-                ifStmt.setCondition(condition);
-                ifStmt.setThenStmt(new BlockStmt().addStatement(new ReturnStmt(new BooleanLiteralExpr(false))));
-                body.addStatement(ifStmt);
-            } else {
-                if (inputMethod.hasCheckInputValues()) {
-                    body.addStatement(new ReturnStmt(new BinaryExpr(testRuleIndex, inputMethod.checkInputValues(obj, input), BinaryExpr.Operator.AND)));
-                } else {
-                    body.addStatement(new ReturnStmt(testRuleIndex));
-                }
-            }
+            condition = condition == null ? testRuleIndex : new BinaryExpr(condition, testRuleIndex, BinaryExpr.Operator.AND);
         }
+        testRule.addParameter(new Parameter(inputType, input.getName()));
+        body.addStatement(new ReturnStmt(condition));
         return new MethodCallExpr(null, testRule.getName());
     }
 
@@ -282,6 +434,7 @@ public class DMNGenerator {
         SimpleName methodName = new SimpleName("testRule" + ruleIndex + "Index" + inputIndex);
         CompilerTask.instance(context).asFeelExpr(false).methodName(methodName.getIdentifier());
         ASTNode astNode = FeelUtil.parseUT2AST(ruleExpression, testInputType, objInputTypes);
+        indexRule(ruleIndex, inputIndex, astNode, testInputType);
         ASTCompilerVisitor.instance(context).visit(astNode);
         return new MethodCallExpr(null, methodName);
     }
@@ -357,8 +510,354 @@ public class DMNGenerator {
     }
 
 
+    /**
+     * 按 {@link HitPolicy} 生成规则命中后的处理代码，没有指定命中策略时与 FIRST 一致
+     * <ul>
+     *     <li>UNIQUE、ANY 在发现冲突时立即返回错误</li>
+     *     <li>PRIORITY、OUTPUT ORDER 按 outputValues 中的顺序确定优先级，没有 outputValues 时分别退化为 FIRST、RULE ORDER</li>
+     *     <li>COLLECT、RULE ORDER、OUTPUT ORDER 把输出收集到按规则数量预分配的数组中</li>
+     *     <li>聚合在命中时直接累加，整数和浮点数输出使用原始类型的累加器</li>
+     * </ul>
+     * 没有任何规则命中时返回默认输出
+     */
+    class HitPolicyMethod {
+        private final HitPolicy hitPolicy;
+        private final @Nullable Aggregation aggregation;
+        private final int ruleCount;
+        private final @Nullable String priorityMethodName;
+        /**
+         * 聚合时命中代码依赖所有规则的输出类型，先记录下来，在 {@link #prologue()} 中补全
+         */
+        private final List<BlockStmt> hitBlocks = new ArrayList<>();
+        private final NameExpr out = new NameExpr("out");
+        private final NameExpr hit = new NameExpr("hit");
+        private final NameExpr hits = new NameExpr("hits");
+        private final NameExpr hitCount = new NameExpr("hitCount");
+        private final NameExpr acc = new NameExpr("acc");
+        /**
+         * COLLECT SUM 按 long 累加时，溢出前的部分转入这个 BigDecimal
+         */
+        private final NameExpr accOverflow = new NameExpr("accOverflow");
+        private @Nullable FNumber accKind;
+
+        HitPolicyMethod(DecisionTableDefinition definition, List<OutPutMethod> outPutMethods, int ruleCount) {
+            HitPolicy hitPolicy = definition.hitPolicy() == null ? HitPolicy.FIRST : definition.hitPolicy();
+            this.aggregation = definition.aggregation();
+            this.ruleCount = ruleCount;
+            String priorityMethodName = null;
+            if (hitPolicy == HitPolicy.PRIORITY || hitPolicy == HitPolicy.OUTPUT_ORDER) {
+                priorityMethodName = appendOutputPriority(outPutMethods);
+                if (priorityMethodName == null) {
+                    hitPolicy = hitPolicy == HitPolicy.PRIORITY ? HitPolicy.FIRST : HitPolicy.RULE_ORDER;
+                }
+            }
+            this.hitPolicy = hitPolicy;
+            this.priorityMethodName = priorityMethodName;
+        }
+
+        BlockStmt onHit(int ruleIndex, MethodCallExpr output) {
+            BlockStmt block = new BlockStmt();
+            switch (hitPolicy) {
+                case FIRST -> block.addStatement(new ReturnStmt(output));
+                case UNIQUE -> {
+                    NameExpr hitRule = new NameExpr("hitRule");
+                    block.addStatement(new IfStmt(new BinaryExpr(hitRule, new IntegerLiteralExpr("0"), BinaryExpr.Operator.GREATER_EQUALS),
+                            new BlockStmt().addStatement(new ReturnStmt(error(new BinaryExpr(new BinaryExpr(new StringLiteralExpr("UNIQUE hit policy violated: rule "), hitRule, BinaryExpr.Operator.PLUS),
+                                    new StringLiteralExpr(" and rule " + ruleIndex + " both match"), BinaryExpr.Operator.PLUS)))), null));
+                    block.addStatement(new AssignExpr(hit, output, AssignExpr.Operator.ASSIGN));
+                    block.addStatement(new AssignExpr(hitRule, new IntegerLiteralExpr(Integer.toString(ruleIndex)), AssignExpr.Operator.ASSIGN));
+                }
+                case ANY -> {
+                    addOutput(block, output);
+                    block.addStatement(new IfStmt(new BinaryExpr(hit, new NullLiteralExpr(), BinaryExpr.Operator.EQUALS),
+                            new BlockStmt().addStatement(new AssignExpr(hit, out, AssignExpr.Operator.ASSIGN)),
+                            new IfStmt(new UnaryExpr(manager.getStaticMethod(Objects.class, "equals").addArgument(value(hit)).addArgument(value(out)), UnaryExpr.Operator.LOGICAL_COMPLEMENT),
+                                    new BlockStmt().addStatement(new ReturnStmt(error(new StringLiteralExpr("ANY hit policy violated: output of rule " + ruleIndex + " differs from previous matches")))), null)));
+                }
+                case PRIORITY -> {
+                    addOutput(block, output);
+                    NameExpr priority = new NameExpr("priority");
+                    NameExpr hitPriority = new NameExpr("hitPriority");
+                    block.addStatement(new VariableDeclarationExpr(new VariableDeclarator(PrimitiveType.longType(), priority.getName(), priorityOf(value(out)))));
+                    // 最高优先级不可能被后面的规则超过
+                    block.addStatement(new IfStmt(new BinaryExpr(priority, new LongLiteralExpr("0L"), BinaryExpr.Operator.EQUALS),
+                            new BlockStmt().addStatement(new ReturnStmt(out)), null));
+                    block.addStatement(new IfStmt(new BinaryExpr(priority, hitPriority, BinaryExpr.Operator.LESS), new BlockStmt()
+                            .addStatement(new AssignExpr(hit, out, AssignExpr.Operator.ASSIGN))
+                            .addStatement(new AssignExpr(hitPriority, priority, AssignExpr.Operator.ASSIGN)), null));
+                }
+                case COLLECT, RULE_ORDER, OUTPUT_ORDER -> {
+                    addOutput(block, output);
+                    if (aggregation == null || aggregation == Aggregation.COUNT) {
+                        if (priorityMethodName != null) {
+                            block.addStatement(new AssignExpr(new ArrayAccessExpr(new NameExpr("priorities"), hitCount), priorityOf(value(out)), AssignExpr.Operator.ASSIGN));
+                        }
+                        block.addStatement(new AssignExpr(new ArrayAccessExpr(hits, new UnaryExpr(hitCount, UnaryExpr.Operator.POSTFIX_INCREMENT)), value(out), AssignExpr.Operator.ASSIGN));
+                    } else {
+                        // FEEL 中 sum/min/max 遇到 null 时结果为 null
+                        block.addStatement(new VariableDeclarationExpr(new VariableDeclarator(manager.getClassType(Object.class), "value", value(out))));
+                        block.addStatement(new IfStmt(new BinaryExpr(new NameExpr("value"), new NullLiteralExpr(), BinaryExpr.Operator.EQUALS),
+                                new BlockStmt().addStatement(new ReturnStmt(manager.getStaticField(EvalResult.class, "NULL"))), null));
+                        block.addStatement(new UnaryExpr(hitCount, UnaryExpr.Operator.POSTFIX_INCREMENT));
+                        hitBlocks.add(block);
+                    }
+                }
+            }
+            return block;
+        }
+
+        /**
+         * 在规则测试之前声明的局部变量
+         */
+        List<Statement> prologue() {
+            List<Statement> statements = new ArrayList<>();
+            ClassOrInterfaceType evalResultType = manager.getClassType(EvalResult.class);
+            switch (hitPolicy) {
+                case FIRST -> {
+                }
+                case UNIQUE -> {
+                    statements.add(declare(evalResultType, hit, new NullLiteralExpr()));
+                    statements.add(declare(PrimitiveType.intType(), new NameExpr("hitRule"), new IntegerLiteralExpr("-1")));
+                }
+                case ANY -> statements.add(declare(evalResultType, hit, new NullLiteralExpr()));
+                case PRIORITY -> {
+                    statements.add(declare(evalResultType, hit, new NullLiteralExpr()));
+                    statements.add(declare(PrimitiveType.longType(), new NameExpr("hitPriority"), manager.getStaticField(Long.class, "MAX_VALUE")));
+                }
+                case COLLECT, RULE_ORDER, OUTPUT_ORDER -> {
+                    IntegerLiteralExpr size = new IntegerLiteralExpr(Integer.toString(ruleCount));
+                    if (aggregation == null || aggregation == Aggregation.COUNT) {
+                        statements.add(declare(manager.getArrayType(Object[].class), hits,
+                                new ArrayCreationExpr(manager.getClassType(Object.class), NodeList.nodeList(new ArrayCreationLevel(size)), null)));
+                        if (priorityMethodName != null) {
+                            statements.add(declare(manager.getArrayType(long[].class), new NameExpr("priorities"),
+                                    new ArrayCreationExpr(PrimitiveType.longType(), NodeList.nodeList(new ArrayCreationLevel(size.clone())), null)));
+                        }
+                    } else {
+                        accKind = accumulatorKind();
+                        statements.add(declare(accumulatorType(), acc, accumulatorInit()));
+                        if (longSum()) {
+                            statements.add(declare(manager.getClassType(BigDecimal.class), accOverflow, new NullLiteralExpr()));
+                        }
+                        for (BlockStmt block : hitBlocks) {
+                            block.addStatement(accumulate(new NameExpr("value")));
+                        }
+                    }
+                    statements.add(declare(PrimitiveType.intType(), hitCount, new IntegerLiteralExpr("0")));
+                }
+            }
+            return statements;
+        }
+
+        /**
+         * 所有规则测试完成之后，返回默认输出之前的代码
+         */
+        List<Statement> epilogue() {
+            Expression result;
+            Expression hasHit;
+            switch (hitPolicy) {
+                case FIRST -> {
+                    return List.of();
+                }
+                case UNIQUE, ANY, PRIORITY -> {
+                    return List.of(new IfStmt(new BinaryExpr(hit, new NullLiteralExpr(), BinaryExpr.Operator.NOT_EQUALS),
+                            new BlockStmt().addStatement(new ReturnStmt(hit)), null));
+                }
+                default -> {
+                    hasHit = new BinaryExpr(hitCount, new IntegerLiteralExpr("0"), BinaryExpr.Operator.GREATER);
+                    if (aggregation == Aggregation.COUNT) {
+                        result = manager.getStaticMethod(HitPolicies.class, "countDistinct").addArgument(hits).addArgument(hitCount);
+                    } else if (aggregation != null) {
+                        result = longSum() ? manager.getStaticMethod(HitPolicies.class, "sum").addArgument(accOverflow).addArgument(acc)
+                                : accKind == FNumber.INTEGER && aggregation != Aggregation.SUM ? new CastExpr(PrimitiveType.intType(), acc) : acc;
+                    } else if (priorityMethodName != null) {
+                        result = manager.getStaticMethod(HitPolicies.class, "sortByPriority").addArgument(hits).addArgument(new NameExpr("priorities")).addArgument(hitCount);
+                    } else {
+                        result = manager.getStaticMethod(HitPolicies.class, "toList").addArgument(hits).addArgument(hitCount);
+                    }
+                }
+            }
+            return List.of(new IfStmt(hasHit, new BlockStmt().addStatement(new ReturnStmt(
+                    manager.getStaticMethod(EvalResult.class, "of").addArgument(result))), null));
+        }
+
+        /**
+         * 所有规则的输出都是 int 时为 INTEGER，都是 int 或 long 时为 LONG，都是原始数值类型时为 DOUBLE，其余情况为 null
+         */
+        private @Nullable FNumber accumulatorKind() {
+            FNumber kind = FNumber.INTEGER;
+            for (FType type : ruleOutputTypes) {
+                if (type == FNumber.INTEGER) {
+                    continue;
+                }
+                if (type == FNumber.LONG && kind != FNumber.DOUBLE) {
+                    kind = FNumber.LONG;
+                } else if (type == FNumber.DOUBLE || type == FNumber.LONG) {
+                    kind = FNumber.DOUBLE;
+                } else {
+                    return null;
+                }
+            }
+            return kind;
+        }
+
+        private Type accumulatorType() {
+            if (accKind == FNumber.DOUBLE) {
+                return PrimitiveType.doubleType();
+            }
+            if (accKind != null) {
+                return PrimitiveType.longType();
+            }
+            return aggregation == Aggregation.SUM ? manager.getClassType(BigDecimal.class) : manager.getClassType(Object.class);
+        }
+
+        private Expression accumulatorInit() {
+            boolean min = aggregation == Aggregation.MIN;
+            if (accKind == FNumber.DOUBLE) {
+                return aggregation == Aggregation.SUM ? new DoubleLiteralExpr("0D")
+                        : manager.getStaticField(Double.class, min ? "POSITIVE_INFINITY" : "NEGATIVE_INFINITY");
+            }
+            if (accKind != null) {
+                return aggregation == Aggregation.SUM ? new LongLiteralExpr("0L")
+                        : manager.getStaticField(Long.class, min ? "MAX_VALUE" : "MIN_VALUE");
+            }
+            return aggregation == Aggregation.SUM ? manager.getStaticField(BigDecimal.class, "ZERO") : new NullLiteralExpr();
+        }
+
+        private boolean longSum() {
+            return aggregation == Aggregation.SUM && (accKind == FNumber.INTEGER || accKind == FNumber.LONG);
+        }
+
+        private Statement accumulate(NameExpr value) {
+            Expression number = manager.castTo(Number.class, value);
+            if (longSum()) {
+                // 溢出时把已有的和转入 accOverflow，从当前值重新累加
+                NameExpr accValue = new NameExpr("accValue");
+                return new BlockStmt()
+                        .addStatement(declare(PrimitiveType.longType(), accValue, new MethodCallExpr(number, "longValue")))
+                        .addStatement(new IfStmt(manager.getStaticMethod(HitPolicies.class, "addOverflows").addArgument(acc).addArgument(accValue),
+                                new BlockStmt()
+                                        .addStatement(new AssignExpr(accOverflow, manager.getStaticMethod(HitPolicies.class, "spill")
+                                                .addArgument(accOverflow).addArgument(acc), AssignExpr.Operator.ASSIGN))
+                                        .addStatement(new AssignExpr(acc, accValue, AssignExpr.Operator.ASSIGN)),
+                                new BlockStmt().addStatement(new AssignExpr(acc, accValue, AssignExpr.Operator.PLUS))));
+            }
+            if (accKind != null) {
+                boolean isDouble = accKind == FNumber.DOUBLE;
+                Expression primitive = new MethodCallExpr(number, isDouble ? "doubleValue" : "longValue");
+                String method = switch (aggregation) {
+                    case SUM -> null;
+                    case MIN -> "min";
+                    default -> "max";
+                };
+                if (method == null) {
+                    return new ExpressionStmt(new AssignExpr(acc, primitive, AssignExpr.Operator.PLUS));
+                }
+                return new ExpressionStmt(new AssignExpr(acc, manager.getStaticMethod(Math.class, method).addArgument(acc).addArgument(primitive), AssignExpr.Operator.ASSIGN));
+            }
+            if (aggregation == Aggregation.SUM) {
+                return new ExpressionStmt(new AssignExpr(acc, new MethodCallExpr(acc, "add")
+                        .addArgument(manager.getStaticMethod(DefaultFeelTypeFactory.class, "toBigDecimal").addArgument(number))
+                        .addArgument(manager.getStaticField(MathContext.class, "DECIMAL128")), AssignExpr.Operator.ASSIGN));
+            }
+            Expression compare = new BinaryExpr(manager.getStaticMethod(HitPolicies.class, "compare").addArgument(value).addArgument(acc),
+                    new IntegerLiteralExpr("0"), aggregation == Aggregation.MIN ? BinaryExpr.Operator.LESS : BinaryExpr.Operator.GREATER);
+            return new IfStmt(new BinaryExpr(new BinaryExpr(acc, new NullLiteralExpr(), BinaryExpr.Operator.EQUALS), compare, BinaryExpr.Operator.OR),
+                    new BlockStmt().addStatement(new AssignExpr(acc, value, AssignExpr.Operator.ASSIGN)), null);
+        }
+
+        /**
+         * 生成计算输出优先级的方法，值越小优先级越高。多个输出按顺序比较，即按各自在 outputValues 中的位置组合为一个数
+         * <pre>{@code
+         *  private static long outputPriority(Object out, POJO input) {
+         *      Object value0 = ((Map<?, ?>) out).get("name0");
+         *      long priority = 0L;
+         *      priority = priority * 3 + (outputPriority0Index0(value0, input) ? 0 : outputPriority0Index1(value0, input) ? 1 : 2);
+         *      ...
+         *      return priority;
+         *  }
+         * }</pre>
+         *
+         * @return 所有输出都没有 outputValues 时返回 null
+         */
+        private @Nullable String appendOutputPriority(List<OutPutMethod> outPutMethods) {
+            CompilerTask task = CompilerTask.instance(context);
+            NameExpr output = new NameExpr("out");
+            NameExpr input = new NameExpr("input");
+            NameExpr priority = new NameExpr("priority");
+            BlockStmt body = new BlockStmt();
+            body.addStatement(declare(PrimitiveType.longType(), priority, new LongLiteralExpr("0L")));
+            boolean hasPriority = false;
+            for (int i = 0; i < outPutMethods.size(); i++) {
+                OutputClause outputClause = outPutMethods.get(i).outputClause;
+                if (outputClause.outputValues() == null) {
+                    continue;
+                }
+                ASTNode astNode = FeelUtil.parseUT2AST(outputClause.outputValues(), FAny.ANY, task.inputTypes());
+                if (!(astNode instanceof UnaryTestsNode unaryTests) || unaryTests.not || unaryTests.positiveUnaryTests == null) {
+                    continue;
+                }
+                List<ASTNode> elements = unaryTests.positiveUnaryTests.elements;
+                NameExpr value = new NameExpr("value" + i);
+                Expression valueInit = outPutMethods.size() == 1 ? output
+                        : new MethodCallExpr(manager.castTo(Map.class, output), "get").addArgument(CodeGens.stringLiteral(outputClause.name()));
+                body.addStatement(declare(manager.getClassType(Object.class), value, valueInit));
+                // 不在 outputValues 中的值优先级最低
+                Expression position = new IntegerLiteralExpr(Integer.toString(elements.size()));
+                for (int j = elements.size() - 1; j >= 0; j--) {
+                    String methodName = "outputPriority" + i + "Index" + j;
+                    task.asFeelExpr(false).methodName(methodName);
+                    ASTNode element = FeelUtil.parseUT2AST(elements.get(j).getText(), FAny.ANY, task.inputTypes());
+                    ASTCompilerVisitor.instance(context).visit(element);
+                    position = new ConditionalExpr(new MethodCallExpr(null, methodName).addArgument(value).addArgument(input),
+                            new IntegerLiteralExpr(Integer.toString(j)), position);
+                }
+                body.addStatement(new AssignExpr(priority, new BinaryExpr(
+                        new BinaryExpr(priority, new IntegerLiteralExpr(Integer.toString(elements.size() + 1)), BinaryExpr.Operator.MULTIPLY),
+                        new EnclosedExpr(position), BinaryExpr.Operator.PLUS), AssignExpr.Operator.ASSIGN));
+                hasPriority = true;
+            }
+            if (!hasPriority) {
+                return null;
+            }
+            body.addStatement(new ReturnStmt(priority));
+            MethodDeclaration method = new MethodDeclaration();
+            manager.getClassDeclaration().getMembers().add(method);
+            method.setName("outputPriority");
+            method.setModifiers(Modifier.Keyword.PRIVATE, Modifier.Keyword.STATIC);
+            method.setType(PrimitiveType.longType());
+            method.addParameter(new Parameter(manager.getClassType(Object.class), output.getName()));
+            method.addParameter(new Parameter(inputType, input.getName()));
+            method.setBody(body);
+            return method.getNameAsString();
+        }
+
+        private void addOutput(BlockStmt block, MethodCallExpr output) {
+            block.addStatement(declare(manager.getClassType(EvalResult.class), out, output));
+            block.addStatement(new IfStmt(new UnaryExpr(new MethodCallExpr(out, "success"), UnaryExpr.Operator.LOGICAL_COMPLEMENT),
+                    new BlockStmt().addStatement(new ReturnStmt(out)), null));
+        }
+
+        private MethodCallExpr priorityOf(Expression value) {
+            return new MethodCallExpr(null, Objects.requireNonNull(priorityMethodName)).addArgument(value).addArgument(new NameExpr(task.rootInputParam()));
+        }
+
+        private MethodCallExpr value(NameExpr result) {
+            return new MethodCallExpr(result, "value");
+        }
+
+        private MethodCallExpr error(Expression message) {
+            return manager.getStaticMethod(EvalResult.class, "ofError").addArgument(message);
+        }
+
+        private ExpressionStmt declare(Type type, NameExpr name, Expression init) {
+            return new ExpressionStmt(new VariableDeclarationExpr(new VariableDeclarator(type, name.getName(), init)));
+        }
+    }
+
     class InputMethod {
         private final InputClause inputClause;
+        private final int index;
         private final String getInputMethodName;
         private final FType getInputReturnType;
         private final String checkInputValuesMethodName;
@@ -366,6 +865,7 @@ public class DMNGenerator {
 
         public InputMethod(InputClause inputClause, int index) {
             this.inputClause = Objects.requireNonNull(inputClause);
+            this.index = index;
             CompilerTask task = CompilerTask.instance(context);
 
             String expression = inputClause.inputExpression();
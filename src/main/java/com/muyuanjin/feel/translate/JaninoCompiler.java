@@ -0,0 +1,55 @@
+package com.muyuanjin.feel.translate;
+
+import com.muyuanjin.common.util.LazyLog;
+import jakarta.annotation.Nullable;
+import org.codehaus.janino.SimpleCompiler;
+
+import java.util.Map;
+
+/**
+ * {@link CompilerTask.Backend#JANINO} 的实现，janino 为可选依赖，不在类路径上时直接返回 null
+ *
+ * @author muyuanjin
+ */
+public final class JaninoCompiler {
+    private static final LazyLog log = LazyLog.of(JaninoCompiler.class);
+    private static final boolean AVAILABLE = isAvailable();
+
+    private JaninoCompiler() {}
+
+    /**
+     * 只编译不加载，返回类名到字节码的映射，可以写入 {@link ClassFileCache}；
+     * janino 不可用或者不支持生成的代码（例如 lambda）时返回 null，由调用方回退到 javac
+     */
+    public static @Nullable Map<String, byte[]> compile(String className, String source) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        return Holder.compile(className, source);
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("org.codehaus.janino.SimpleCompiler", false, JaninoCompiler.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // 隔离对 janino 的引用，janino 不存在时不会加载这个类
+    private static final class Holder {
+        private static @Nullable Map<String, byte[]> compile(String className, String source) {
+            try {
+                SimpleCompiler compiler = new SimpleCompiler();
+                compiler.setParentClassLoader(JaninoCompiler.class.getClassLoader());
+                compiler.cook(className + ".java", source);
+                Map<String, byte[]> classes = compiler.getBytecodes();
+                return classes.containsKey(className) ? classes : null;
+            } catch (Exception | LinkageError e) {
+                log.debug("janino compile failed, fallback to javac: {}", className, e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.muyuanjin.feel.translate;
+
+import com.muyuanjin.common.util.LazyLog;
+import com.muyuanjin.common.util.MapUtil;
+import jakarta.annotation.Nullable;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于 javax.tools 的内存编译，多个源文件在同一个 javac 任务中编译，并直接拿到字节码
+ *
+ * @author muyuanjin
+ */
+public final class MemoryJavac {
+    private static final LazyLog log = LazyLog.of(MemoryJavac.class);
+
+    private static final String CLASSPATH = classpath();
+    private static final AtomicBoolean WARNED = new AtomicBoolean();
+
+    private MemoryJavac() {}
+
+    /**
+     * java.class.path 加上加载本库的类加载器链上所有 URLClassLoader 中的本地文件
+     */
+    private static String classpath() {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        for (ClassLoader loader = MemoryJavac.class.getClassLoader(); loader != null; loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader urlLoader) {
+                for (URL url : urlLoader.getURLs()) {
+                    if ("file".equals(url.getProtocol())) {
+                        try {
+                            paths.add(Path.of(url.toURI()).toString());
+                        } catch (URISyntaxException | IllegalArgumentException e) {
+                            log.debug("ignore classpath entry: {}", url, e);
+                        }
+                    }
+                }
+            }
+        }
+        return String.join(File.pathSeparator, paths);
+    }
+
+    /**
+     * @param sources 类的全限定名 -> 源码
+     * @return 类的二进制名 -> 字节码，当前环境没有可用的 javac 或编译失败时返回 null
+     */
+    public static @Nullable Map<String, byte[]> compile(Map<String, String> sources) {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null || sources.isEmpty()) {
+            return null;
+        }
+        Map<String, ByteArrayOutputStream> outputs = new LinkedHashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager standard = javac.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaFileManager fileManager = new ForwardingJavaFileManager<>(standard) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                    return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                        @Override
+                        public OutputStream openOutputStream() {
+                            return outputs.computeIfAbsent(name, k -> new ByteArrayOutputStream());
+                        }
+                    };
+                }
+            };
+            List<JavaFileObject> units = new ArrayList<>(sources.size());
+            sources.forEach((className, source) -> units.add(new SimpleJavaFileObject(
+                    URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            }));
+            List<String> options = List.of("-proc:none", "-classpath", CLASSPATH);
+            if (!Boolean.TRUE.equals(javac.getTask(null, fileManager, diagnostics, options, null, units).call())) {
+                // 通常是类路径中找不到本库（例如 fat jar 或应用服务器），此时磁盘缓存不会有任何内容，只提示一次
+                if (WARNED.compareAndSet(false, true)) {
+                    log.warn("memory javac compile failed, generated classes will not be written to the disk cache. classpath: {}, diagnostics: {}",
+                            CLASSPATH, diagnostics.getDiagnostics());
+                } else {
+                    log.debug("memory javac compile failed: {}", diagnostics.getDiagnostics());
+                }
+                return null;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("memory javac compile failed", e);
+            return null;
+        }
+        Map<String, byte[]> classes = MapUtil.newLinkedHashMap(outputs.size());
+        outputs.forEach((name, bytes) -> classes.put(name, bytes.toByteArray()));
+        return classes;
+    }
+
+    /**
+     * 取出某个顶层类及其内部类的字节码
+     */
+    public static Map<String, byte[]> classesOf(Map<String, byte[]> classes, String className) {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        String prefix = className + "$";
+        classes.forEach((name, bytes) -> {
+            if (name.equals(className) || name.startsWith(prefix)) {
+                result.put(name, bytes);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 编译单个类，使用独立的类加载器加载，失败时返回 null
+     */
+    public static @Nullable Class<?> compile(String className, String source) {
+        Map<String, byte[]> classes = compile(Map.of(className, source));
+        if (classes == null || !classes.containsKey(className)) {
+            return null;
+        }
+        try {
+            return loader(classes).loadClass(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    public static ClassLoader loader(Map<String, byte[]> classes) {
+        return new Loader(classes);
+    }
+
+    /**
+     * @return 由 {@link #loader} 加载的类所在加载器中全部字节码的大小，其他类加载器加载的类返回 -1
+     */
+    public static int bytecodeSize(Class<?> type) {
+        return type.getClassLoader() instanceof Loader loader ? loader.size : -1;
+    }
+
+    private static final class Loader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+        private final int size;
+
+        private Loader(Map<String, byte[]> classes) {
+            super(MemoryJavac.class.getClassLoader());
+            this.classes = classes;
+            int size = 0;
+            for (byte[] bytes : classes.values()) {
+                size += bytes.length;
+            }
+            this.size = size;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.muyuanjin.feel.translate;
 
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
 import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.NullLiteralExpr;
 import com.muyuanjin.feel.FeelFunctionFactory;
@@ -98,6 +100,18 @@ final class ScopeHelper {
         stack.getFirst().currentVars.put(name, expr);
     }
 
+    /**
+     * @return name 是否是作用域链中声明的局部变量，从输入或全局函数库解析的名称不算
+     */
+    public boolean isLocal(String name) {
+        for (var localVars : stack) {
+            if (localVars.currentVars.containsKey(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public JavaExpr resolve(ASTNode node, String name, FType type) {
         int index = 0;
         JavaExpr result = null;
@@ -164,6 +178,17 @@ final class ScopeHelper {
 
     Expression getInputMember(ASTNode node, String memberName) {
         CompilerTask task = CompilerTask.instance(context);
+        List<String> slots = task.inputSlots();
+        if (slots != null) {
+            // 槽位布局下按固定下标读取，布局之外（未声明）的变量恒为 null
+            int index = slots.indexOf(memberName);
+            if (index < 0) {
+                return new NullLiteralExpr();
+            }
+            FType type = task.inputTypes().getOrDefault(memberName, FAny.ANY);
+            return ClassManager.instance(context).castTo(type.getJavaType(),
+                    new ArrayAccessExpr(new NameExpr(task.rootInputParam()), new IntegerLiteralExpr(Integer.toString(index))));
+        }
         FeelTypeFactory typeFactory = FeelTypeFactory.instance(context);
         JavaExpr input = JavaExpr.of(node, new NameExpr(task.rootInputParam()), task.rootInputJavaType()).feelType(task.rootInputType());
         JavaExpr member = typeFactory.getMember(node, input, memberName, context);
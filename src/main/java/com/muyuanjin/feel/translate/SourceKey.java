@@ -0,0 +1,109 @@
+package com.muyuanjin.feel.translate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 编译结果缓存中源文本部分的键
+ * <p>
+ * 第一次注册时计算 128 位的非加密哈希，之后同一文本从 {@link Registry} 中直接取回同一个键。
+ * 键之间先比较哈希，哈希相同时再比较完整文本，哈希冲突不会导致错误的命中
+ *
+ * @author muyuanjin
+ */
+public final class SourceKey {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final String source;
+    private final int kind;
+    private final long high;
+    private final long low;
+
+    private SourceKey(String source, int kind) {
+        this.source = source;
+        this.kind = kind;
+        long h1 = kind;
+        long h2 = source.length();
+        int length = source.length();
+        int i = 0;
+        // 每次取 4 个字符拼成 64 位，两条通道交替混合（参考 murmur3 x64 128）
+        for (; i + 4 <= length; i += 4) {
+            long k = source.charAt(i) | (long) source.charAt(i + 1) << 16 | (long) source.charAt(i + 2) << 32 | (long) source.charAt(i + 3) << 48;
+            h1 ^= Long.rotateLeft(k * C1, 31) * C2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(k * C2, 33) * C1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        long k = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            k |= (long) source.charAt(i) << shift;
+        }
+        h1 ^= Long.rotateLeft(k * C1, 31) * C2;
+        h2 ^= Long.rotateLeft(k * C2, 33) * C1;
+        h1 += h2;
+        h2 += h1;
+        h1 = mix(h1);
+        h2 = mix(h2);
+        h1 += h2;
+        h2 += h1;
+        this.high = h1;
+        this.low = h2;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof SourceKey that && high == that.high && low == that.low && kind == that.kind && source.equals(that.source);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(high) + Long.toHexString(low);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 源文本到键的注册表，再次查找同一文本只需要一次哈希表探测（String 的哈希值由 String 自身缓存）。
+     * 不同注册表产生的键互不相等，可以用来区分同一文本的不同编译方式
+     */
+    public static final class Registry {
+        private static final int MAXIMUM_SIZE = 16 * 1024;
+
+        private final int kind;
+        private final Cache<String, SourceKey> keys = Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+        public Registry(int kind) {
+            this.kind = kind;
+        }
+
+        public SourceKey intern(String source) {
+            SourceKey key = keys.getIfPresent(source);
+            if (key == null) {
+                key = keys.get(source, s -> new SourceKey(s, kind));
+            }
+            return key;
+        }
+    }
+}
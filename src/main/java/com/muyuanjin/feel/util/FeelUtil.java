@@ -3,6 +3,7 @@ package com.muyuanjin.feel.util;
 import com.muyuanjin.common.entity.Pair;
 import com.muyuanjin.feel.lang.FType;
 import com.muyuanjin.feel.lang.ast.ASTNode;
+import com.muyuanjin.feel.lang.ast.ConstantFolder;
 import com.muyuanjin.feel.lang.type.FAny;
 import com.muyuanjin.feel.parser.FeelASTBuilderVisitor;
 import com.muyuanjin.feel.parser.FeelThrowErrorListener;
@@ -173,7 +174,7 @@ public class FeelUtil {
         FEELLexer lexer = getFEELLexer(expression);
         CommonTokenStream tokenStream = new CommonTokenStream(lexer);
         ParseTree parse = doParse(lexer, tokenStream, testInputType, inputTypes);
-        return parse.accept(new FeelASTBuilderVisitor(tokenStream));
+        return ConstantFolder.fold(parse.accept(new FeelASTBuilderVisitor(tokenStream)));
     }
 
     private static FEELLexer getFEELLexer(String expression) {
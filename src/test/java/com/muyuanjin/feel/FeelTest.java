@@ -1,16 +1,31 @@
 package com.muyuanjin.feel;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.muyuanjin.common.util.TypeUtil;
 import com.muyuanjin.feel.dmn.*;
+import com.muyuanjin.feel.translate.CompilerTask;
 import com.muyuanjin.feel.util.BenchmarkUtil;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -36,6 +51,196 @@ public class FeelTest {
         BenchmarkUtil.benchmark1000(() -> compile2.eval(Map.of("a", 1.0)));
     }
 
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    void test_2024_11_20_10_12_45() {
+        Feel.Expression<Map<String, Integer>> compile = Feel.compile("a+1", Map.of("a", 1));
+        Map<String, Integer>[] inputs = new Map[1000];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = Map.of("a", i);
+        }
+        Object[] results = new Object[inputs.length];
+        compile.evalBatch(inputs, results);
+        for (int i = 0; i < inputs.length; i++) {
+            assertEquals(i + 1, results[i]);
+        }
+        List<Object> list = compile.evalBatch(Arrays.asList(inputs));
+        assertEquals(Arrays.asList(results), list);
+        BenchmarkUtil.benchmark1000(() -> compile.evalBatch(inputs, results));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_11_21_09_30_17() {
+        Feel.Expression<Map<String, Integer>> compile = Feel.compile("a+1", Map.of("a", 1));
+        Feel.IntExpression<Map<String, Integer>> intExpression = assertInstanceOf(Feel.IntExpression.class, compile);
+        assertEquals(2, intExpression.evalInt(Map.of("a", 1)));
+        BenchmarkUtil.benchmark1000(() -> intExpression.evalInt(Map.of("a", 1)));
+
+        Feel.Expression<Map<String, Integer>> compile1 = Feel.compile("a > 1", Map.of("a", 1));
+        Feel.BooleanExpression<Map<String, Integer>> booleanExpression = assertInstanceOf(Feel.BooleanExpression.class, compile1);
+        assertTrue(booleanExpression.evalBoolean(Map.of("a", 2)));
+        assertEquals(Boolean.FALSE, compile1.eval(Map.of("a", 1)).value());
+        // 结果为 null 时 eval 返回 null，原始类型的方法抛出 IllegalStateException
+        assertNull(compile1.eval(Map.of()).value());
+        assertThrows(IllegalStateException.class, () -> booleanExpression.evalBoolean(Map.of()));
+        @SuppressWarnings("unchecked")
+        Map<String, Integer>[] inputs = new Map[]{Map.of("a", 2), Map.of()};
+        assertThrows(IllegalStateException.class, () -> booleanExpression.evalBatch(inputs, new boolean[2]));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_11_22_15_04_51(@TempDir Path dir) {
+        Feel.enableDiskCache(dir);
+        try {
+            Feel.Expression<Map<String, Integer>> compile = Feel.compile("a + 2", Map.of("a", 1));
+            assertEquals(5, compile.eval(Map.of("a", 3)).asNumber());
+            try (var files = Files.list(dir)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            Feel.disableDiskCache();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_11_25_11_20_36() {
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            expressions.add("a + " + i);
+        }
+        List<Feel.Expression<Map<String, Integer>>> compiled = Feel.compileAll(expressions, TypeUtil.ofMap(String.class, Integer.class));
+        assertEquals(expressions.size(), compiled.size());
+        for (int i = 0; i < compiled.size(); i++) {
+            assertEquals(i + 1, compiled.get(i).eval(Map.of("a", 1)).asNumber());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_11_26_16_45_02(@TempDir Path dir) {
+        Feel.backend(CompilerTask.Backend.JANINO);
+        try {
+            Feel.Expression<Map<String, Integer>> compile = Feel.compile("a + 3", Map.of("a", 1));
+            assertEquals(4, compile.eval(Map.of("a", 1)).asNumber());
+            BenchmarkUtil.benchmark1000(() -> compile.eval(Map.of("a", 1)));
+            // 开启磁盘缓存时 janino 的结果同样写入磁盘
+            Feel.enableDiskCache(dir);
+            assertEquals(8, Feel.compile("a * 3 + 5", Map.of("a", 1)).eval(Map.of("a", 1)).asNumber());
+            try (var files = Files.list(dir)) {
+                assertEquals(1, files.filter(file -> file.toString().endsWith(".feelc")).count());
+            }
+        } finally {
+            Feel.disableDiskCache();
+            Feel.backend(CompilerTask.Backend.JAVAC);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_11_27_14_08_33() {
+        Feel.Expression<Map<String, Integer>> expression = Feel.interpret("if a > 1 then a * 2 + 1 else -a", TypeUtil.ofMap(String.class, Integer.class));
+        assertEquals(7, expression.eval(Map.of("a", 3)).asNumber());
+        assertEquals(-1, expression.eval(Map.of("a", 1)).asNumber());
+
+        Feel.Expression<Map<String, Object>> filter = Feel.interpret("for x in [1, 2, 3, 4][item > 2] return x * x");
+        assertSame(filter, Feel.interpret("for x in [1, 2, 3, 4][item > 2] return x * x"));
+        assertTrue(Feel.interpret("some x in [1, 2, 3] satisfies x > 2").eval(Map.of()).asBoolean());
+        // 列表元素和上下文的值与编译后的结果类型一致
+        for (String source : List.of("for x in [1, 2, 3, 4][item > 2] return x * x", "{a: 1, b: [2.5, 3.5], c: {d: 4}}")) {
+            Object interpreted = Feel.interpret(source).eval(Map.of()).get();
+            Object compiled = Feel.compile(source).eval(Map.of()).get();
+            assertEquals(compiled, interpreted);
+            assertEquals(classes(compiled), classes(interpreted));
+        }
+        // 原始类型的运算与编译后的值一致，包括浮点的舍入误差和整数溢出
+        Map<String, Double> doubles = Map.of("a", 0.1, "b", 0.2);
+        Map<String, Integer> ints = Map.of("a", 65536, "b", 65536);
+        assertEquals(0.30000000000000004, Feel.interpret("a + b", TypeUtil.ofMap(String.class, Double.class)).eval(doubles).get());
+        for (String source : List.of("a + b", "a - b", "a * b", "a + b > 0.3")) {
+            Object interpreted = Feel.interpret(source, TypeUtil.ofMap(String.class, Double.class)).eval(doubles).get();
+            Object compiled = Feel.compile(source, TypeUtil.ofMap(String.class, Double.class)).eval(doubles).get();
+            assertEquals(compiled, interpreted, source);
+            interpreted = Feel.interpret(source, TypeUtil.ofMap(String.class, Integer.class)).eval(ints).get();
+            compiled = Feel.compile(source, TypeUtil.ofMap(String.class, Integer.class)).eval(ints).get();
+            assertEquals(compiled, interpreted, source);
+        }
+        Feel.Expression<Map<String, Integer>> divide = Feel.interpret("a / b", TypeUtil.ofMap(String.class, Integer.class));
+        assertThrows(ArithmeticException.class, () -> divide.eval(Map.of("a", 1, "b", 0)));
+        assertThrows(ArithmeticException.class, () -> Feel.compile("a / b", TypeUtil.ofMap(String.class, Integer.class)).eval(Map.of("a", 1, "b", 0)));
+
+        Feel.tierThreshold(1);
+        try {
+            Feel.Expression<Map<String, Integer>> tiered = Feel.interpret("a + 10", TypeUtil.ofMap(String.class, Integer.class));
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(i + 10, tiered.eval(Map.of("a", i)).asNumber());
+            }
+        } finally {
+            Feel.tierThreshold(16);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_11_28_10_21_54() {
+        Feel.cachePolicy(CachePolicy.builder().maximumWeight(1024L * 1024).expireAfterAccess(Duration.ofMinutes(10)).build());
+        try {
+            for (int i = 0; i < 3; i++) {
+                Feel.Expression<Map<String, Integer>> expression = Feel.compile("a * 7 + " + i, Map.of("a", 1));
+                assertEquals(7 + i, expression.eval(Map.of("a", 1)).asNumber());
+                assertEquals(7 + i, Feel.compile("a * 7 + " + i, Map.of("a", 1)).eval(Map.of("a", 1)).asNumber());
+            }
+            CacheStats stats = Feel.cacheStats();
+            assertEquals(3, stats.missCount());
+            assertEquals(3, stats.hitCount());
+            assertThrows(IllegalArgumentException.class, () -> CachePolicy.builder().maximumSize(1L).maximumWeight(1L).build());
+        } finally {
+            Feel.cachePolicy(CachePolicy.UNBOUNDED);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_04_11_12_40() {
+        Feel.SlotExpression<Map<String, Object>> expression = Feel.compileSlots("a * 2 + b", Map.of("a", 1, "b", 2));
+        assertEquals(7, expression.eval(Map.of("a", 2, "b", 3)).asNumber());
+        Object[] slots = expression.toSlots(Map.of("a", 5, "b", 1), new Object[expression.slotNames().size()]);
+        assertEquals(11, expression.evalSlots(slots).asNumber());
+        slots[expression.slotNames().indexOf("a")] = 10;
+        assertEquals(21, expression.evalSlots(slots).asNumber());
+        BenchmarkUtil.benchmark1000(() -> expression.evalSlots(slots));
+        assertThrows(IllegalArgumentException.class, () -> Feel.compileSlots("a", POJO.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_06_09_47_18() {
+        Type inputType = TypeUtil.ofMap(String.class, Integer.class);
+        Feel.Expression<Map<String, Integer>> expression = Feel.compile("a * 3", inputType);
+        assertSame(expression, Feel.compile("a * 3", inputType));
+        assertSame(expression, Feel.compile(new String("a * 3"), inputType));
+        Feel.UnaryTest<Integer, Map<String, Object>> unaryTest = Feel.compileUT("> 3", Integer.class);
+        assertSame(unaryTest, Feel.compileUT("> 3", Integer.class));
+        assertTrue(unaryTest.test(4, null));
+        BenchmarkUtil.benchmark1000(() -> Feel.compile("a * 3", inputType));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_09_14_22_05() {
+        String expression = "a + 1 + 2 + 3 + 4 + 5 + 6 + 7 + 8 + 9 + 10 + 11 + 12 + 13 + 14 + 15 + 16 + 17";
+        Feel.Expression<Map<String, Integer>> compiled = Feel.compile(expression, Map.of("a", 1));
+        assertEquals(154, compiled.eval(Map.of("a", 1)).asNumber());
+        assertSame(compiled, Feel.compile(new String(expression), Map.of("a", 2)));
+        Feel.SlotExpression<Map<String, Object>> slots = Feel.compileSlots(expression, Map.of("a", 1));
+        assertNotSame(compiled, slots);
+        assertEquals(154, slots.eval(Map.of("a", 1)).asNumber());
+        BenchmarkUtil.benchmark1000(() -> Feel.compile(expression, Map.of("a", 1)));
+    }
+
     @Test
     @SneakyThrows
     void test_2024_11_14_14_41_40() {
@@ -82,6 +287,41 @@ public class FeelTest {
 
         BenchmarkUtil.benchmark1000(() -> table.evaluate(new POJO(1, 2)));
         BenchmarkUtil.benchmark1000(() -> table.evaluate(new POJO(1, 1)));
+
+        // 定义不可变，编译结果可以按引用缓存
+        List<DecisionRule> rules = new ArrayList<>(definition.rules());
+        var copied = new DecisionTableDefinition("copied", definition.inputs(), definition.outputs(), null, rules, null, null);
+        Assertions.assertEquals("hello word", Feel.compileDMN(copied, POJO.class).evaluate(new POJO(1, 2)).asString());
+        rules.remove(0);
+        assertEquals(2, copied.rules().size());
+        Assertions.assertEquals("hello word", Feel.compileDMN(copied, POJO.class).evaluate(new POJO(1, 2)).asString());
+        assertThrows(UnsupportedOperationException.class, () -> copied.rules().remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> copied.rules().get(0).inputEntry().set(0, "2"));
+    }
+
+    /**
+     * 把结果中的每个值换成它的类型，列表和上下文逐个转换
+     */
+    private static Object classes(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().map(FeelTest::classes).toList();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> result = new HashMap<>();
+            map.forEach((k, v) -> result.put(k, classes(v)));
+            return result;
+        }
+        return value == null ? null : value.getClass();
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_27_10_12_45() {
+        // 上下文的 Java 类型是 record 时按属性读取，不当作 Map
+        Feel.Expression<Map<String, POJO>> expression = Feel.compile("[get value(p, \"a\"), get value(p, \"c\"), get entries(p)]",
+                TypeUtil.ofMap(String.class, POJO.class));
+        assertEquals(Arrays.asList(1, null, List.of(Map.of("key", "a", "value", 1), Map.of("key", "b", "value", 2))),
+                expression.eval(Map.of("p", new POJO(1, 2))).get());
     }
 
     public record POJO(int a, int b) {}
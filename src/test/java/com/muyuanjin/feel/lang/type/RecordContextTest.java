@@ -1,11 +1,13 @@
 package com.muyuanjin.feel.lang.type;
 
+import com.muyuanjin.feel.parser.MemberAccessor;
 import com.muyuanjin.feel.parser.ParserUtil;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
+import java.util.Map;
 
 /**
  * @author muyuanjin
@@ -29,6 +31,28 @@ public class RecordContextTest {
         Assertions.assertEquals(myPOJO.getNamed(), ParserUtil.accessMember(myPOJO, "named"));
     }
 
+    @Test
+    void test_2024_12_05_15_36_21() {
+        MemberAccessor accessor = new MemberAccessor("name");
+        Object[] receivers = {new MyPOJO("a", 22, "eee"), Map.of("name", "b"), new Named("c"), new Other(1),
+                new MyPOJO("d", 1, null), new Named2('e'), new Named("f")};
+        Object[] expected = {"a", "b", "c", null, "d", "e", "f"};
+        // 超过多态缓存的容量后退化为全局查找，结果不变
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < receivers.length; i++) {
+                Assertions.assertEquals(expected[i], accessor.get(receivers[i]));
+            }
+        }
+        Assertions.assertNull(accessor.get(null));
+        Assertions.assertEquals(22, new MemberAccessor("age").get(receivers[0]));
+    }
+
+    public record Named(String name) {}
+
+    public record Named2(char name) {}
+
+    public record Other(int value) {}
+
     public record MyPOJO(String name, Integer age, String email) {
         public Boolean getNamed() {
             return name != null;
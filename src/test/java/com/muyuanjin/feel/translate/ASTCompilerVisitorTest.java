@@ -176,7 +176,7 @@ public class ASTCompilerVisitorTest {
                 "{fun:function(a:context<name:string,age:number>) a.name+a.age,b:fun({name:\"mu\",age:66}),c:fun.returnType}",
         };
         Map<String, Object> run = (Map) ((List) run(Arrays.toString(strings))).get(0);
-        Assertions.assertEquals(FeelFunction.Default.class, run.get("fun").getClass());
+        Assertions.assertEquals(FeelFunction.Of2.class, run.get("fun").getClass());
         Assertions.assertEquals(FFunction.of(FString.STRING, "name", FString.STRING, "age", FNumber.NUMBER), ((FeelFunction<String>) run.get("fun")).type());
         Assertions.assertEquals("muyuanjin99", run.get("b"));
     }
@@ -10,8 +10,10 @@ import lombok.SneakyThrows;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * @author muyuanjin
@@ -49,6 +51,142 @@ public class DMNCompilerTest {
         BenchmarkUtil.benchmark1000(() -> table.evaluate(new POJO(1, 1)));
     }
 
+    @Test
+    @SneakyThrows
+    void test_2024_11_29_09_42_17() {
+        var builder = DecisionTableDefinition.builder()
+                .name("indexed")
+                .input(new InputClause("a", null))
+                .input(new InputClause("b", null))
+                .output(new OutputClause(null, null, "-1"));
+        for (int i = 0; i < 40; i++) {
+            builder.rule(DecisionRule.builder()
+                    .input(i % 10 == 9 ? "-" : (i % 10) + ", " + (i % 10 + 100))
+                    .input(i % 3 == 0 ? "< " + i : i % 3 == 1 ? "[" + i + ".." + (i + 5) + ")" : ">= " + i)
+                    .output(Integer.toString(i))
+                    .build());
+        }
+        var definition = builder.build();
+        DecisionTable<POJO> table = new DefaultDMNCompiler("com.muyuanjin.feel", "MyClass").compile(definition, POJO.class);
+        Assertions.assertTrue(table.getSource().contains("RuleIndex"));
+        for (int a = 0; a < 12; a++) {
+            for (int b = -2; b < 50; b++) {
+                int expected = -1;
+                for (int i = 0; i < 40; i++) {
+                    boolean matchA = i % 10 == 9 || a == i % 10 || a == i % 10 + 100;
+                    boolean matchB = i % 3 == 0 ? b < i : i % 3 == 1 ? b >= i && b < i + 5 : b >= i;
+                    if (matchA && matchB) {
+                        expected = i;
+                        break;
+                    }
+                }
+                Assertions.assertEquals(expected, table.evaluate(new POJO(a, b)).asNumber().intValue(), "a=" + a + ", b=" + b);
+            }
+        }
+        BenchmarkUtil.benchmark1000(() -> table.evaluate(new POJO(8, 30)));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_02_10_05_48() {
+        var definition = DecisionTableDefinition.builder()
+                .name("hoisted")
+                .input(new InputClause("a * 10 + b", null))
+                .input(new InputClause("b", "[0..5]"))
+                .output(new OutputClause(null, null, "\"default\""))
+                .rule(DecisionRule.builder().input("> 100").input("-").output("\"big\"").build())
+                .rule(DecisionRule.builder().input("> 10").input("< 3").output("\"small b\"").build())
+                .rule(DecisionRule.builder().input("-").input("-").output("\"any\"").build())
+                .build();
+        DecisionTable<POJO> table = new DefaultDMNCompiler("com.muyuanjin.feel", "MyClass").compile(definition, POJO.class);
+        String source = table.getSource();
+        Assertions.assertEquals(1, source.split("getInput0\\(input\\)", -1).length - 1);
+        // 一处声明，一处调用
+        Assertions.assertEquals(2, source.split("checkInputValues1\\(", -1).length - 1);
+        Assertions.assertEquals("big", table.evaluate(new POJO(10, 1)).asString());
+        Assertions.assertEquals("small b", table.evaluate(new POJO(2, 1)).asString());
+        Assertions.assertEquals("any", table.evaluate(new POJO(0, 4)).asString());
+        Assertions.assertEquals("default", table.evaluate(new POJO(10, 6)).asString());
+        BenchmarkUtil.benchmark1000(() -> table.evaluate(new POJO(2, 1)));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_03_16_27_09() {
+        DefaultDMNCompiler compiler = new DefaultDMNCompiler("com.muyuanjin.feel", "MyClass");
+        POJO six = new POJO(6, 0);
+        POJO one = new POJO(1, 0);
+
+        Assertions.assertEquals("low", compiler.compile(levelTable(HitPolicy.FIRST), POJO.class).evaluate(six).asString());
+        Assertions.assertEquals("high", compiler.compile(levelTable(HitPolicy.PRIORITY), POJO.class).evaluate(six).asString());
+        Assertions.assertEquals(List.of("low", "high", "medium"), compiler.compile(levelTable(HitPolicy.RULE_ORDER), POJO.class).evaluate(six).asList());
+        Assertions.assertEquals(List.of("high", "medium", "low"), compiler.compile(levelTable(HitPolicy.OUTPUT_ORDER), POJO.class).evaluate(six).asList());
+        Assertions.assertEquals(List.of("low", "high", "medium"), compiler.compile(levelTable(HitPolicy.COLLECT), POJO.class).evaluate(six).asList());
+
+        DecisionTable<POJO> unique = compiler.compile(levelTable(HitPolicy.UNIQUE), POJO.class);
+        // compile 与 compileAll 共用同一个缓存，自定义的包名不与 Feel 默认的类名混用
+        Assertions.assertSame(unique, compiler.compile(levelTable(HitPolicy.UNIQUE), POJO.class));
+        Assertions.assertSame(unique, compiler.compileAll(List.of(levelTable(HitPolicy.UNIQUE)), POJO.class).get(0));
+        Assertions.assertEquals("com.muyuanjin.feel", unique.getClass().getPackageName());
+        Assertions.assertFalse(unique.evaluate(six).success());
+        Assertions.assertEquals("low", unique.evaluate(one).asString());
+        DecisionTable<POJO> any = compiler.compile(levelTable(HitPolicy.ANY), POJO.class);
+        Assertions.assertFalse(any.evaluate(six).success());
+        Assertions.assertEquals("low", any.evaluate(one).asString());
+
+        Assertions.assertEquals(13L, compiler.compile(scoreTable(Aggregation.SUM), POJO.class).evaluate(six).asNumber());
+        Assertions.assertEquals(1, compiler.compile(scoreTable(Aggregation.MIN), POJO.class).evaluate(six).asNumber());
+        Assertions.assertEquals(10, compiler.compile(scoreTable(Aggregation.MAX), POJO.class).evaluate(six).asNumber());
+        Assertions.assertEquals(3, compiler.compile(scoreTable(Aggregation.COUNT), POJO.class).evaluate(six).asNumber());
+        Assertions.assertTrue(compiler.compile(scoreTable(Aggregation.SUM), POJO.class).evaluate(new POJO(-1, 0)).isNull());
+        // long 溢出后改用 BigDecimal
+        DecisionTableDefinition overflow = DecisionTableDefinition.builder()
+                .name("overflow")
+                .input(new InputClause("a", null))
+                .output(new OutputClause("score"))
+                .rule(DecisionRule.builder().input(">= 0").output("9223372036854775807").build())
+                .rule(DecisionRule.builder().input(">= 5").output("2").build())
+                .hitPolicy(HitPolicy.COLLECT)
+                .aggregation(Aggregation.SUM)
+                .build();
+        Assertions.assertEquals(new BigDecimal("9223372036854775809"), compiler.compile(overflow, POJO.class).evaluate(six).asNumber());
+        Assertions.assertEquals(9223372036854775807L, compiler.compile(overflow, POJO.class).evaluate(one).asNumber());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DecisionTableDefinition.builder()
+                .name("invalid")
+                .input(new InputClause("a", null))
+                .output(new OutputClause())
+                .hitPolicy(HitPolicy.FIRST)
+                .aggregation(Aggregation.SUM)
+                .build());
+    }
+
+    private static DecisionTableDefinition levelTable(HitPolicy hitPolicy) {
+        return DecisionTableDefinition.builder()
+                .name("level")
+                .input(new InputClause("a", null))
+                .output(new OutputClause("level", "\"high\", \"medium\", \"low\"", null))
+                .rule(DecisionRule.builder().input(">= 0").output("\"low\"").build())
+                .rule(DecisionRule.builder().input(">= 5").output("\"high\"").build())
+                .rule(DecisionRule.builder().input(">= 3").output("\"medium\"").build())
+                .rule(DecisionRule.builder().input("< 0").output("\"low\"").build())
+                .hitPolicy(hitPolicy)
+                .build();
+    }
+
+    private static DecisionTableDefinition scoreTable(Aggregation aggregation) {
+        return DecisionTableDefinition.builder()
+                .name("score")
+                .input(new InputClause("a", null))
+                .output(new OutputClause("score"))
+                .rule(DecisionRule.builder().input(">= 0").output("1").build())
+                .rule(DecisionRule.builder().input(">= 5").output("10").build())
+                .rule(DecisionRule.builder().input(">= 3").output("2").build())
+                .hitPolicy(HitPolicy.COLLECT)
+                .aggregation(aggregation)
+                .build();
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -2,7 +2,14 @@ package com.muyuanjin.feel.util;
 
 import com.muyuanjin.compiler.JavaCompiler;
 import com.muyuanjin.compiler.util.JMethods;
+import com.muyuanjin.feel.lang.FType;
+import com.muyuanjin.feel.lang.FTypes;
+import com.muyuanjin.feel.lang.FeelFunction;
+import com.muyuanjin.feel.lang.NumberList;
+import com.muyuanjin.feel.lang.type.FAny;
+import com.muyuanjin.feel.lang.type.FBoolean;
 import com.muyuanjin.feel.lang.type.FContext;
+import com.muyuanjin.feel.lang.type.FFunction;
 import com.muyuanjin.feel.lang.type.FList;
 import com.muyuanjin.feel.lang.type.FNumber;
 import lombok.SneakyThrows;
@@ -10,6 +17,13 @@ import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.muyuanjin.feel.lang.FTypes.STRING;
@@ -30,7 +44,7 @@ class FeelUtilTest {
                 public class TestExpr {
                 
                     public static int eval(Map<String, Object> input) {
-                        return 1 + 1;
+                        return 2;
                     }
                 }
                 """;
@@ -62,6 +76,285 @@ class FeelUtilTest {
         Assertions.assertEquals(true, o);
     }
 
+    @Test
+    @SneakyThrows
+    void test_2024_12_10_10_31_44() {
+        Assertions.assertTrue(FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "if 2 * 3 > 5 then \"a\" + \"b\" else \"c\"").contains("return \"ab\";"));
+        Assertions.assertTrue(FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "{a: 2, b: a * -3}.b").contains("return -6;"));
+        // int 溢出和除法保持原样
+        Assertions.assertTrue(FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "2147483647 + 1").contains("2147483647 + 1"));
+        Assertions.assertFalse(FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "1 / 2").contains("0.5"));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_12_15_08_21() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "if a.b.c > 10 then a.b.c * 2 else a.b.c",
+                Map.<String, FType>of("a", FContext.of("b", FContext.of("c", FNumber.INTEGER))));
+        // 重复的路径只访问一次
+        Assertions.assertEquals(1, compiled.split("\"c\"", -1).length - 1);
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Object o = JMethods.invokeStatic(loaded, "eval", Map.of("a", Map.of("b", Map.of("c", 12))));
+        Assertions.assertEquals(24, ((Number) o).intValue());
+        o = JMethods.invokeStatic(loaded, "eval", Map.of("a", Map.of("b", Map.of("c", 8))));
+        Assertions.assertEquals(8, ((Number) o).intValue());
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_13_11_26_40() {
+        Map<String, FType> inputTypes = Map.of("a", FNumber.INTEGER, "b", FNumber.LONG);
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "a / b", inputTypes);
+        Assertions.assertTrue(compiled.contains("NumberCalc.divideExact"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(new BigDecimal("2"), JMethods.invokeStatic(loaded, "eval", Map.of("a", 6, "b", 3L)));
+        // 除不尽和溢出时与 BigDecimal 的结果一致
+        Assertions.assertEquals(BigDecimal.ONE.divide(new BigDecimal("3"), MathContext.DECIMAL128),
+                JMethods.invokeStatic(loaded, "eval", Map.of("a", 1, "b", 3L)));
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "a + b", inputTypes);
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(new BigDecimal("9223372036854775808"), JMethods.invokeStatic(loaded, "eval", Map.of("a", 1, "b", Long.MAX_VALUE)));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_16_10_12_37() {
+        Map<String, FType> inputTypes = Map.of("a", FBoolean.BOOLEAN, "b", FList.of(FNumber.INTEGER));
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "a and (some x in b satisfies x > 1)", inputTypes);
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        // 左侧为 false 时不再遍历右侧的列表
+        Assertions.assertEquals(false, JMethods.invokeStatic(loaded, "eval", Map.of("a", false)));
+        Assertions.assertEquals(true, JMethods.invokeStatic(loaded, "eval", Map.of("a", true, "b", List.of(1, 2))));
+        Assertions.assertEquals(false, JMethods.invokeStatic(loaded, "eval", Map.of("a", true, "b", List.of(0, 1))));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_17_14_35_02() {
+        Map<String, FType> inputTypes = Map.of("l", FList.of(FNumber.INTEGER));
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[count(l[item > 5]), sum(for x in l return x), l[item > 1][2], some x in (for y in l return y) satisfies x > 5]", inputTypes);
+        // 结果直接被消费时不生成中间列表
+        Assertions.assertFalse(compiled.contains("forResult") || compiled.contains("filter_"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(List.of(1, 15, 3, true), JMethods.invokeStatic(loaded, "eval", Map.of("l", List.of(1, 2, 3, 6, 3))));
+        // 元素不足时和普通的下标访问一样越界
+        InvocationTargetException e = Assertions.assertThrows(InvocationTargetException.class,
+                () -> loaded.getMethod("eval", Map.class).invoke(null, Map.of("l", List.of(1, 1))));
+        Assertions.assertInstanceOf(IndexOutOfBoundsException.class, e.getCause());
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_17_16_08_44() {
+        Map<String, FType> inputTypes = Map.of("l", FList.of(FNumber.INTEGER), "b", FList.of(FBoolean.BOOLEAN), "a", FList.of(FAny.ANY));
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[min(for x in l return x), max(for x in l return x), " +
+                "any(for x in b return x), all(for x in b return x), any(for x in a return x), all(for x in a return x)]", inputTypes);
+        Assertions.assertFalse(compiled.contains("forResult"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        // 空元素不参与比较；非布尔元素使结果为 null，除非之后遇到能决定结果的元素
+        Assertions.assertEquals(Arrays.asList(1, 3, null, false, true, null), JMethods.invokeStatic(loaded, "eval",
+                Map.of("l", Arrays.asList(3, null, 1), "b", Arrays.asList(null, false), "a", List.of("x", true))));
+        Assertions.assertEquals(Arrays.asList(null, null, true, true, null, null), JMethods.invokeStatic(loaded, "eval",
+                Map.of("l", Arrays.asList((Object) null), "b", List.of(true, true), "a", List.of(1))));
+
+        // 常量循环的越界在求值时抛出，不影响类初始化
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[[1, 2, 3][item > 1][2], [1, 1][item > 0][3]]");
+        Class<Object> constant = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        InvocationTargetException e = Assertions.assertThrows(InvocationTargetException.class,
+                () -> constant.getMethod("eval", Map.class).invoke(null, Map.of()));
+        Assertions.assertInstanceOf(IndexOutOfBoundsException.class, e.getCause());
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[1, 2, 3][item > 1][2]");
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(3, JMethods.invokeStatic(loaded, "eval", Map.of()));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_18_09_47_13() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "for i in 1..n return i", Map.<String, FType>of("n", FNumber.INTEGER));
+        Assertions.assertTrue(compiled.contains("NumberList.capacity") && compiled.contains("OfInt"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5), JMethods.invokeStatic(loaded, "eval", Map.of("n", 5)));
+        Assertions.assertEquals(List.of(), JMethods.invokeStatic(loaded, "eval", Map.of("n", 0)));
+        // 结果列表和 ArrayList 一样可以按下标插入和删除
+        NumberList.OfInt list = (NumberList.OfInt) JMethods.invokeStatic(loaded, "eval", Map.of("n", 3));
+        list.add(0, 0);
+        list.add(4, 4);
+        Assertions.assertEquals(2, list.remove(2));
+        Assertions.assertEquals(List.of(0, 1, 3, 4), list);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> list.add(5, 5));
+
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "for x in l return x", Map.<String, FType>of("l", FList.of(FNumber.INTEGER)));
+        Assertions.assertTrue(compiled.contains(".size()"));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(List.of(3, 1, 2), JMethods.invokeStatic(loaded, "eval", Map.of("l", List.of(3, 1, 2))));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_19_16_20_48() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "Math.sqrt");
+        // 函数只在类初始化时查找一次
+        Assertions.assertFalse(compiled.substring(compiled.indexOf(" eval(")).contains("UtilFeelFunctionFactory.fun"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        FeelFunction<?> sqrt = (FeelFunction<?>) JMethods.invokeStatic(loaded, "eval", Map.of());
+        Assertions.assertSame(sqrt, JMethods.invokeStatic(loaded, "eval", Map.of()));
+        Assertions.assertEquals(4.0, sqrt.invoke(16.0));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_20_11_03_29() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "{gt: function(a: number, b: number) a > b, r: gt(x, 1)}.r", Map.<String, FType>of("x", FNumber.INTEGER));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(true, JMethods.invokeStatic(loaded, "eval", Map.of("x", 2)));
+
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "function(a: number, b: number) a > b");
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        FeelFunction<?> gt = (FeelFunction<?>) JMethods.invokeStatic(loaded, "eval", Map.of());
+        // 固定参数个数的调用和变长参数的调用结果一致
+        Assertions.assertInstanceOf(FeelFunction.OfBoolean2.class, gt);
+        Assertions.assertTrue(gt.invokeBoolean2(2, 1));
+        Assertions.assertEquals(false, gt.invoke(1, 2));
+
+        // 不确定被调用的函数只返回 boolean 时保留 null
+        FFunction predicate = FFunction.of(FBoolean.BOOLEAN, FNumber.INTEGER);
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[f(x), not(f(x))]", Map.<String, FType>of("f", predicate, "x", FNumber.INTEGER));
+        Assertions.assertFalse(compiled.contains("invokeBoolean"));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        FeelFunction<Boolean> f = new FeelFunction.Of1<>(predicate, x -> (Integer) x > 0 ? Boolean.TRUE : null);
+        Assertions.assertEquals(List.of(true, false), JMethods.invokeStatic(loaded, "eval", Map.of("f", f, "x", 1)));
+        Assertions.assertEquals(Arrays.asList(null, null), JMethods.invokeStatic(loaded, "eval", Map.of("f", f, "x", 0)));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_23_10_15_41() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[sort(l), min(l), max(3, 1, 2), distinct values(l), index of(l, 3), union(l, [7])]", Map.<String, FType>of("l", FList.of(FNumber.INTEGER)));
+        Assertions.assertTrue(compiled.contains("ListFunctions.sortInts"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(List.of(List.of(1, 3, 3), 1, 3, List.of(3, 1), List.of(1, 3), List.of(3, 1, 7)),
+                JMethods.invokeStatic(loaded, "eval", Map.of("l", List.of(3, 1, 3))));
+        // 数值相等的不同类型的数字视为同一个值
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "distinct values(l)", Map.<String, FType>of("l", FList.of(FNumber.NUMBER)));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(List.of(1, 2.5), JMethods.invokeStatic(loaded, "eval", Map.of("l", List.of(1, 1L, new BigDecimal("1.00"), 2.5, 1.0))));
+        // 非严格的比较函数也能排序，相等的元素保持原有顺序
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[sort(l, function(x, y) x <= y), sort(l, function(x, y) x < y), sort(l, function(x, y) x >= y)]",
+                Map.<String, FType>of("l", FList.of(FNumber.NUMBER)));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(List.of(List.of(1.0, 1, 2, 2.0), List.of(1.0, 1, 2, 2.0), List.of(2, 2.0, 1.0, 1)),
+                JMethods.invokeStatic(loaded, "eval", Map.of("l", List.of(2, 1.0, 1, 2.0))));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_24_14_08_27() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[string length(s), substring(s, 2, 2), upper case(s), matches(s, \"^H\", \"i\"), floor(n), decimal(n, 1), list contains(l, \"b\"), sqrt(-1)]",
+                Map.<String, FType>of("s", STRING, "n", FNumber.NUMBER, "l", FList.of(STRING)));
+        Assertions.assertTrue(compiled.contains("StringFunctions.substring"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(Arrays.asList(5, "él", "HÉLLO", true, 2, new BigDecimal("2.8"), true, null),
+                JMethods.invokeStatic(loaded, "eval", Map.of("s", "héllo", "n", new BigDecimal("2.75"), "l", List.of("a", "b"))));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_25_09_52_16() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[sum(i), sum(l), mean(i), product(2, 3), sum(d), mean(d)]",
+                Map.<String, FType>of("i", FList.of(FNumber.INTEGER), "l", FList.of(FNumber.LONG), "d", FList.of(FNumber.DOUBLE)));
+        Assertions.assertTrue(compiled.contains("NumericFunctions.sumInts") && compiled.contains("NumericFunctions.productInts")
+                              && compiled.contains("NumericFunctions.meanDoubles"));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        // long 溢出后改用 BigDecimal，double 补偿求和
+        Assertions.assertEquals(List.of(6, new BigDecimal("9223372036854775808"), new BigDecimal("2"), 6, 0.6, 0.6 / 3),
+                JMethods.invokeStatic(loaded, "eval", Map.of("i", List.of(1, 2, 3), "l", List.of(Long.MAX_VALUE, 1L), "d", List.of(0.1, 0.2, 0.3))));
+
+        // 元素类型未知的 sum 和融合后的 sum 与按类型的实现结果一致
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[sum(n), sum(m), sum(for x in d return x), sum(for x in l return x), sum(for x in i return x), sum(for x in n return x)]",
+                Map.<String, FType>of("n", FList.of(FNumber.NUMBER), "m", FList.of(FNumber.NUMBER), "d", FList.of(FNumber.DOUBLE),
+                        "l", FList.of(FNumber.LONG), "i", FList.of(FNumber.INTEGER)));
+        Assertions.assertTrue(compiled.contains("SumAccumulator"));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(Arrays.asList(0.6, new BigDecimal("1.5"), 0.6, new BigDecimal("9223372036854775808"), null, 0.6),
+                JMethods.invokeStatic(loaded, "eval", Map.of("n", List.of(0.1, 0.2, 0.3), "m", List.of(1, new BigDecimal("0.5")),
+                        "d", List.of(0.1, 0.2, 0.3), "l", List.of(Long.MAX_VALUE, 1L), "i", Arrays.asList(1, null))));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_26_10_31_44() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[floor(a), ceiling(b), floor(-d), ceiling(e), floor(i), floor(2.5), ceiling(-2.5)]",
+                Map.<String, FType>of("a", FNumber.NUMBER, "b", FNumber.NUMBER, "d", FNumber.DOUBLE, "e", FNumber.DOUBLE, "i", FNumber.LONG));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        // 超出 int 范围时不溢出，超出 long 范围时为 BigDecimal
+        Assertions.assertEquals(Arrays.asList(new BigDecimal("12345678901234567890"), 3000000001L, -2500000000L,
+                        new BigDecimal("100000000000000000000"), 5000000000L, 2, -2),
+                JMethods.invokeStatic(loaded, "eval", Map.of("a", new BigDecimal("12345678901234567890.5"), "b", new BigDecimal("3000000000.2"),
+                        "d", 2.5e9, "e", 1e20, "i", 5000000000L)));
+
+        // MIN_VALUE 的绝对值超出原类型的范围时扩大结果类型
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[abs(x), abs(y), abs(-3), abs(x + 1)]",
+                Map.<String, FType>of("x", FNumber.INTEGER, "y", FNumber.LONG));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(Arrays.asList(2147483648L, new BigDecimal("9223372036854775808"), 3, 2147483647),
+                JMethods.invokeStatic(loaded, "eval", Map.of("x", Integer.MIN_VALUE, "y", Long.MIN_VALUE)));
+
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[median(l), median(1, 2), stddev(l), stddev([1]), mode(l), mode(1, 2, 2, 1), modulo(-7, 3), modulo(7.5, -2), modulo(1, 0), median(n)]",
+                Map.<String, FType>of("l", FList.of(FNumber.INTEGER), "n", FList.of(FNumber.INTEGER)));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        List<?> result = (List<?>) JMethods.invokeStatic(loaded, "eval", Map.of("l", List.of(5, 1, 3, 3, 2), "n", Arrays.asList(1, null)));
+        Assertions.assertEquals(3, result.get(0));
+        Assertions.assertEquals(0, new BigDecimal("1.5").compareTo(new BigDecimal(result.get(1).toString())));
+        Assertions.assertEquals(0, new BigDecimal("2.2").sqrt(MathContext.DECIMAL128).compareTo((BigDecimal) result.get(2)));
+        // 元素为 null、少于两个元素或除数为 0 时结果为 null
+        Assertions.assertEquals(Arrays.asList(null, List.of(3), List.of(1, 2), 2, new BigDecimal("-0.5"), null, null), result.subList(3, 10));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_26_14_05_12() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[before(1, 10), before([1..5], (5..10]), before([1..5], [5..10]), " +
+                "after(10, [1..5]), meets([1..5], [5..10]), met by([5..10], [1..5]), overlaps([1..5], [3..8]), overlaps before([1..5], [3..8]), " +
+                "overlaps after([3..8], [1..5]), finishes(5, [1..5]), finished by([1..5], [3..5]), starts(1, [1..5]), started by([1..5], [1..3]), " +
+                "coincides([1..5], [1..5]), before(1, x), after(x, 1)]", Map.<String, FType>of("x", FAny.ANY));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        // 端点不能比较或参数为 null 时结果为 null
+        Assertions.assertEquals(Arrays.asList(true, true, false, true, true, true, true, true, true, true, true, true, true, true, null, null),
+                JMethods.invokeStatic(loaded, "eval", Map.of("x", "a")));
+    }
+
+    @Test
+    @SneakyThrows
+    void test_2024_12_26_16_47_38() {
+        String compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval",
+                "[day of year(d), day of week(d), month of year(d), week of year(d), get value(c, \"a\"), get value(c, \"z\"), get entries({a: 1, b: \"x\"})]",
+                Map.<String, FType>of("d", FTypes.DATE, "c", FContext.of("a", FNumber.INTEGER)));
+        Class<Object> loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(Arrays.asList(61, 5, "March", 9, 1, null, List.of(Map.of("key", "a", "value", 1), Map.of("key", "b", "value", "x"))),
+                JMethods.invokeStatic(loaded, "eval", Map.of("d", LocalDate.of(2024, 3, 1), "c", Map.of("a", 1))));
+
+        // 字面量的正则表达式只编译一次，参数可能为 null 或表达式无效时交给运行时
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "[matches(\"Hello\", \"^h\", \"i\"), replace(\"abcb\", \"b\", \"[$0]\"), " +
+                "split(\"a,b,,c\", \",\"), matches(s, \"l+\"), replace(s, \"L\", \"x\", \"i\")]", Map.<String, FType>of("s", STRING));
+        Assertions.assertTrue(compiled.contains("StringFunctions.pattern"));
+        loaded = JavaCompiler.NATIVE.compile("TestExpr.java", compiled).loadSingle();
+        Assertions.assertEquals(List.of(true, "a[b]c[b]", List.of("a", "b", "", "c"), true, "hexxo"),
+                JMethods.invokeStatic(loaded, "eval", Map.of("s", "hello")));
+        Assertions.assertEquals(Arrays.asList(true, "a[b]c[b]", List.of("a", "b", "", "c"), null, null),
+                JMethods.invokeStatic(loaded, "eval", new HashMap<>()));
+        compiled = FeelUtil.compileExpr("runtime.feel", "TestExpr", "eval", "matches(\"a\", \"[\")");
+        Assertions.assertFalse(compiled.contains("StringFunctions.pattern"));
+    }
+
     @Test
     @SneakyThrows
     void test_2024_11_31_16_42_56() {